@@ -0,0 +1,113 @@
+package org.bulkload;
+
+import hbase.impls.HTableAdmin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.HFileOutputFormat;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * Tool bulk loading the views exported by Pig with PigStorage into their HBase tables.
+ * For each table it runs a MapReduce job writing HFiles sorted and split along the current regions of the table,
+ * all the jobs at once; only once all of them have succeeded it moves the HFiles into the regions, table after table.
+ * No region server ever sees the puts, and each region switches to the new cells at once, but the switch is atomic
+ * per region only: while a table is being loaded some of its regions may serve the new cells and others the old ones,
+ * and if the load of a table fails the tables loaded before it keep the new cells.
+ * Usage: BulkLoad &lt;bulkdir&gt; &lt;table&gt;... where &lt;bulkdir&gt;/&lt;table&gt; holds the export of the table.
+ * @author Daniele Morgantini
+ */
+public class BulkLoad extends Configured implements Tool {
+
+	/** Subdirectory of the bulk directory where the HFiles of each table are written */
+	public static final String HFILES = "hfiles";
+
+	@Override
+	public int run(final String[] args) throws Exception {
+
+		if(args.length < 2) {
+			System.err.println("Usage: BulkLoad <bulkdir> <table>...");
+			return 2;
+		}
+
+		Configuration conf = HBaseConfiguration.create(getConf());
+		conf.setLong(ViewMapper.TIMESTAMP, System.currentTimeMillis());
+		HTableAdmin admin = new HTableAdmin(conf);
+		Path bulkdir = new Path(args[0]);
+
+		/* fails fast on the tables that aren't views or don't exist, before any job is run */
+		Map<Path,HTable> hfiles = new LinkedHashMap<Path,HTable>();
+		for(int i = 1; i < args.length; i++) {
+			String table = args[i];
+			View.of(table);
+			HTable htable = admin.getTable(table);
+			if(htable == null)
+				throw new IOException("Table " + table + " does not exist");
+			hfiles.put(new Path(new Path(bulkdir, HFILES), table), htable);
+		}
+
+		List<Job> jobs = new ArrayList<Job>();
+		for(Map.Entry<Path,HTable> e : hfiles.entrySet()) {
+			String table = e.getKey().getName();
+			Job job = this.prepare(conf, new Path(bulkdir, table), e.getKey(), e.getValue());
+			job.submit();
+			jobs.add(job);
+		}
+		/* nothing is loaded unless the HFiles of every table have been written */
+		for(Job job : jobs) {
+			if(!job.waitForCompletion(true)) {
+				for(Job other : jobs)
+					if(!other.isComplete())
+						other.killJob();
+				return 1;
+			}
+		}
+
+		LoadIncrementalHFiles loader = new LoadIncrementalHFiles(conf);
+		for(Map.Entry<Path,HTable> e : hfiles.entrySet())
+			loader.doBulkLoad(e.getKey(), e.getValue());
+		return 0;
+	}
+
+	private Job prepare(final Configuration conf, final Path input, final Path output, final HTable htable)
+			throws IOException {
+
+		Configuration jobConf = new Configuration(conf);
+		String table = new String(htable.getTableName(), "UTF-8");
+		jobConf.set(ViewMapper.TABLE, table);
+
+		Job job = new Job(jobConf, "bulkload " + table);
+		job.setJarByClass(BulkLoad.class);
+		job.setInputFormatClass(TextInputFormat.class);
+		job.setMapperClass(ViewMapper.class);
+		job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+		job.setMapOutputValueClass(KeyValue.class);
+		FileInputFormat.addInputPath(job, input);
+		FileOutputFormat.setOutputPath(job, output);
+		/* one reducer per region, each sorting its cells into an HFile that fits the region */
+		HFileOutputFormat.configureIncrementalLoad(job, htable);
+		return job;
+	}
+
+	public static void main(final String[] args) throws Exception {
+		System.exit(ToolRunner.run(new BulkLoad(), args));
+	}
+
+}
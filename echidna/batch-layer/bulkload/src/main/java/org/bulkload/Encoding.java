@@ -0,0 +1,35 @@
+package org.bulkload;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Encodings of the fields written by the Pig exports, as HBaseBinaryConverter turns the Pig types into bytes
+ * @author Daniele Morgantini
+ */
+public enum Encoding {
+
+	/** chararray, as its UTF-8 bytes */
+	STRING,
+	/** int, as 4 big-endian bytes */
+	INT,
+	/** long, as 8 big-endian bytes */
+	LONG;
+
+	/**
+	 * Encodes a field as written by PigStorage
+	 * @return the bytes of the field
+	 * @param field the text of the field
+	 * @throws NumberFormatException if a number is expected and the field isn't one
+	 */
+	public byte[] encode(final String field) {
+		switch(this) {
+		case INT:
+			return Bytes.toBytes(Integer.parseInt(field));
+		case LONG:
+			return Bytes.toBytes(Long.parseLong(field));
+		default:
+			return Bytes.toBytes(field);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package org.bulkload;
+
+/**
+ * The views written by the Pig exports, with the encoding HBaseStorage's HBaseBinaryConverter gives
+ * to their row keys and values (the qualifiers are always strings)
+ * @author Daniele Morgantini
+ */
+public enum View {
+
+	MENTIONEDBY("mentionedBy", Encoding.STRING, Encoding.LONG),
+	MENTIONEDBYDAY("mentionedByDay", Encoding.STRING, Encoding.INT),
+	MENTIONEDBYWEEK("mentionedByWeek", Encoding.STRING, Encoding.INT),
+	MENTIONEDBYMONTH("mentionedByMonth", Encoding.STRING, Encoding.INT),
+	MENTIONEDBYYEAR("mentionedByYear", Encoding.STRING, Encoding.INT),
+	FOLLOWEDBY("followedBy", Encoding.LONG, Encoding.LONG),
+	FOLLOW("follow", Encoding.LONG, Encoding.LONG),
+	WFF("wff", Encoding.LONG, Encoding.INT),
+	WFAFB("wfafb", Encoding.LONG, Encoding.INT),
+	WFMMONTH("wfmMonth", Encoding.STRING, Encoding.INT),
+	WFMDAY("wfmDay", Encoding.STRING, Encoding.INT);
+
+	private final String table;
+
+	private final Encoding row;
+
+	private final Encoding value;
+
+	private View(final String table, final Encoding row, final Encoding value) {
+		this.table = table;
+		this.row = row;
+		this.value = value;
+	}
+
+	/**
+	 * Retrieves the view stored in a table
+	 * @return the view stored in the table
+	 * @param table the name of the table
+	 * @throws IllegalArgumentException if no view is stored in the table
+	 */
+	public static View of(final String table) {
+		for(View v : values())
+			if(v.table.equals(table))
+				return v;
+		throw new IllegalArgumentException("Unknown view: " + table);
+	}
+
+	/**
+	 * Retrieves the name of the table
+	 * @return the name of the table
+	 */
+	public String getTable() {
+		return this.table;
+	}
+
+	/**
+	 * Retrieves the encoding of the row keys
+	 * @return the encoding of the row keys
+	 */
+	public Encoding getRow() {
+		return this.row;
+	}
+
+	/**
+	 * Retrieves the encoding of the values
+	 * @return the encoding of the values
+	 */
+	public Encoding getValue() {
+		return this.value;
+	}
+
+}
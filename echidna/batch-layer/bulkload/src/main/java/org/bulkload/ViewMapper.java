@@ -0,0 +1,88 @@
+package org.bulkload;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ * Mapper turning the lines written by PigStorage for a view, "row\t[qualifier#value,...]",
+ * into the cells HBaseStorage would have put into its table
+ * @author Daniele Morgantini
+ */
+public class ViewMapper extends Mapper<LongWritable,Text,ImmutableBytesWritable,KeyValue> {
+
+	/** Configuration key of the table the view is loaded into */
+	public static final String TABLE = "bulkload.table";
+
+	/** Configuration key of the timestamp shared by all the cells of an export */
+	public static final String TIMESTAMP = "bulkload.timestamp";
+
+	/** The column family of the views */
+	public static final byte[] FAMILY = Bytes.toBytes("t");
+
+	private View view;
+
+	private long timestamp;
+
+	@Override
+	protected void setup(final Context context) {
+		this.view = View.of(context.getConfiguration().get(TABLE));
+		this.timestamp = context.getConfiguration().getLong(TIMESTAMP, System.currentTimeMillis());
+	}
+
+	@Override
+	protected void map(final LongWritable offset, final Text line, final Context context)
+			throws IOException, InterruptedException {
+
+		for(KeyValue kv : toKeyValues(this.view, line.toString(), this.timestamp))
+			context.write(new ImmutableBytesWritable(kv.getRow()), kv);
+	}
+
+	/**
+	 * Parses a line written by PigStorage into the cells of a view
+	 * @return the cells of the line, in the order of the map entries
+	 * @param view the view the line belongs to
+	 * @param line the line, a row key and a map separated by a tab
+	 * @param timestamp the timestamp of the cells
+	 * @throws IOException if the line is malformed
+	 */
+	public static List<KeyValue> toKeyValues(final View view, final String line, final long timestamp)
+			throws IOException {
+
+		List<KeyValue> kvs = new ArrayList<KeyValue>();
+		int tab = line.indexOf('\t');
+		if(tab < 0)
+			throw new IOException("Malformed line for " + view.getTable() + ": " + line);
+		String map = line.substring(tab + 1).trim();
+		/* a null map is written as an empty field */
+		if(map.isEmpty())
+			return kvs;
+		if(!map.startsWith("[") || !map.endsWith("]"))
+			throw new IOException("Malformed map for " + view.getTable() + ": " + line);
+		map = map.substring(1, map.length() - 1);
+		if(map.isEmpty())
+			return kvs;
+
+		try {
+			byte[] row = view.getRow().encode(line.substring(0, tab));
+			for(String entry : map.split(",")) {
+				int hash = entry.indexOf('#');
+				if(hash < 0)
+					throw new IOException("Malformed entry for " + view.getTable() + ": " + line);
+				kvs.add(new KeyValue(row, FAMILY, Bytes.toBytes(entry.substring(0, hash)), timestamp,
+									view.getValue().encode(entry.substring(hash + 1))));
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed number for " + view.getTable() + ": " + line, e);
+		}
+		return kvs;
+	}
+
+}
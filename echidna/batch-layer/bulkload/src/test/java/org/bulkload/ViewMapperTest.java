@@ -0,0 +1,41 @@
+package org.bulkload;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Test class for ViewMapper
+ */
+public class ViewMapperTest extends TestCase {
+
+	public void testShouldEncodeTheLinesAsHBaseStorageDoes() throws IOException {
+		List<KeyValue> kvs = ViewMapper.toKeyValues(View.FOLLOWEDBY, "4000\t[201#1394442000000]", 7L);
+		assertEquals(1, kvs.size());
+		KeyValue kv = kvs.get(0);
+		assertTrue(Bytes.equals(Bytes.toBytes(4000L), kv.getRow()));
+		assertTrue(Bytes.equals(ViewMapper.FAMILY, kv.getFamily()));
+		assertTrue(Bytes.equals(Bytes.toBytes("201"), kv.getQualifier()));
+		assertEquals(1394442000000L, Bytes.toLong(kv.getValue()));
+		assertEquals(7L, kv.getTimestamp());
+
+		kvs = ViewMapper.toKeyValues(View.of("mentionedByDay"), "4000_2014-03-05\t[101#2,102#1]", 7L);
+		assertEquals(2, kvs.size());
+		assertTrue(Bytes.equals(Bytes.toBytes("4000_2014-03-05"), kvs.get(1).getRow()));
+		assertTrue(Bytes.equals(Bytes.toBytes("102"), kvs.get(1).getQualifier()));
+		assertEquals(1, Bytes.toInt(kvs.get(1).getValue()));
+
+		assertTrue(ViewMapper.toKeyValues(View.WFF, "4000\t", 7L).isEmpty());
+		try {
+			ViewMapper.toKeyValues(View.WFF, "4000\t[201#many]", 7L);
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("wff"));
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.MentionCounts;
+import org.coprocessors.util.LongIntCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the in-memory aggregations: the counting of the qualifiers read by the subqueries,
+ * the per-region counting of the endpoint and the merge of the results of the regions.
+ * @author Daniele Morgantini
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+	@Param({"100000"})
+	public int authors;
+
+	@Param({"1000000"})
+	public int mentions;
+
+	@Param({"1.1"})
+	public double exponent;
+
+	@Param({"16"})
+	public int regions;
+
+	private MentionGraph graph;
+
+	private byte[][] qualifiers;
+
+	private List<MentionCounts> regionCounts;
+
+
+	@Setup
+	public void setUp() {
+		this.graph = new MentionGraph(this.authors, this.mentions, this.exponent, 42L);
+		this.qualifiers = this.graph.mentionerQualifiers();
+		this.regionCounts = this.graph.regionCounts(this.regions);
+	}
+
+	/** Counts the qualifiers of the read rows as the follow subqueries do */
+	@Benchmark
+	public LongIntCounter countQualifiers() {
+		LongIntCounter counter = new LongIntCounter();
+		for(byte[] q : this.qualifiers)
+			counter.increment(LongIntCounter.parseLong(q, 0, q.length));
+		return counter;
+	}
+
+	/** Counts the qualifiers of the read rows with boxed keys, as a baseline */
+	@Benchmark
+	public Map<Long,Integer> countQualifiersBoxed() {
+		Map<Long,Integer> counter = new HashMap<Long,Integer>();
+		for(byte[] q : this.qualifiers) {
+			Long id = Long.parseLong(Bytes.toString(q));
+			Integer count = counter.get(id);
+			counter.put(id, count == null ? 1 : count + 1);
+		}
+		return counter;
+	}
+
+	/** Counts the mentioners of each mentioned author as the aggregation endpoint does in a region */
+	@Benchmark
+	public MentionCounts countMentions() {
+		long[] mentioned = this.graph.getMentioned();
+		long[] mentioners = this.graph.getMentioners();
+		Map<Long,LongIntCounter> counters = new HashMap<Long,LongIntCounter>();
+		for(int i = 0; i < mentioned.length; i++) {
+			LongIntCounter counter = counters.get(mentioned[i]);
+			if(counter == null) {
+				counter = new LongIntCounter();
+				counters.put(mentioned[i], counter);
+			}
+			counter.increment(mentioners[i]);
+		}
+		return MentionCounts.fromCounters(counters);
+	}
+
+	/** Merges the results of the regions as the client does after a coprocessor call */
+	@Benchmark
+	public MentionCounts mergeRegions() {
+		return MentionCounts.merge(this.regionCounts);
+	}
+
+}
@@ -0,0 +1,168 @@
+package benchmarks;
+
+import hbase.query.Author;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.MentionCounts;
+import org.coprocessors.util.LongIntCounter;
+
+/**
+ * Synthetic mention graph whose mentioned and mentioning authors follow a power law,
+ * so that few authors gather most of the mentions as in the real data.
+ * The same seed always generates the same graph.
+ * @author Daniele Morgantini
+ */
+public class MentionGraph {
+
+	private static final long FIRSTID = 10000000L;
+
+	private long[] mentioned;
+
+	private long[] mentioners;
+
+	private int[] days;
+
+
+	/**
+	 * Generates a synthetic mention graph
+	 * @return an instance of MentionGraph
+	 * @param authors the number of authors
+	 * @param mentions the number of mentions
+	 * @param exponent the exponent of the power law, the higher the more skewed
+	 * @param seed the seed of the generator
+	 */
+	public MentionGraph(final int authors, final int mentions, final double exponent, final long seed) {
+
+		Random random = new Random(seed);
+		double[] cdf = zipf(authors, exponent);
+		long[] ids = shuffledIds(authors, random);
+
+		this.mentioned = new long[mentions];
+		this.mentioners = new long[mentions];
+		this.days = new int[mentions];
+		for(int i = 0; i < mentions; i++) {
+			this.mentioned[i] = ids[sample(cdf, random)];
+			this.mentioners[i] = ids[sample(cdf, random)];
+			this.days[i] = random.nextInt(365);
+		}
+	}
+
+	/**
+	 * Retrieves the number of mentions
+	 * @return the number of mentions
+	 */
+	public int size() {
+		return this.mentioned.length;
+	}
+
+	/**
+	 * Retrieves the mentioned author of each mention
+	 * @return the mentioned author of each mention
+	 */
+	public long[] getMentioned() {
+		return this.mentioned;
+	}
+
+	/**
+	 * Retrieves the mentioning author of each mention
+	 * @return the mentioning author of each mention
+	 */
+	public long[] getMentioners() {
+		return this.mentioners;
+	}
+
+	/**
+	 * Retrieves the mentioning authors as the qualifiers of the aggregated tables store them
+	 * @return the string form of the mentioning author of each mention
+	 */
+	public byte[][] mentionerQualifiers() {
+		byte[][] qualifiers = new byte[this.mentioners.length][];
+		for(int i = 0; i < qualifiers.length; i++)
+			qualifiers[i] = Bytes.toBytes(String.valueOf(this.mentioners[i]));
+		return qualifiers;
+	}
+
+	/**
+	 * Retrieves the mentioned authors, with the number of mentions they received as hits
+	 * @return the distinct mentioned authors
+	 */
+	public List<Author> mentionedAuthors() {
+		LongIntCounter counter = new LongIntCounter();
+		for(long id : this.mentioned)
+			counter.increment(id);
+
+		List<Author> authors = new ArrayList<Author>(counter.size());
+		LongIntCounter.Cursor e = counter.cursor();
+		while(e.next())
+			authors.add(new Author(e.key(), e.value()));
+		return authors;
+	}
+
+	/**
+	 * Counts the mentions as the aggregation endpoint does, splitting them among regions by day
+	 * so that the same mentioned author appears in many of them
+	 * @return the counts of each region
+	 * @param regions the number of regions
+	 */
+	public List<MentionCounts> regionCounts(final int regions) {
+
+		List<Map<Long,LongIntCounter>> perRegion = new ArrayList<Map<Long,LongIntCounter>>(regions);
+		for(int r = 0; r < regions; r++)
+			perRegion.add(new HashMap<Long,LongIntCounter>());
+
+		for(int i = 0; i < this.mentioned.length; i++) {
+			Map<Long,LongIntCounter> counters = perRegion.get(this.days[i] * regions / 365);
+			LongIntCounter counter = counters.get(this.mentioned[i]);
+			if(counter == null) {
+				counter = new LongIntCounter();
+				counters.put(this.mentioned[i], counter);
+			}
+			counter.increment(this.mentioners[i]);
+		}
+
+		List<MentionCounts> counts = new ArrayList<MentionCounts>(regions);
+		for(Map<Long,LongIntCounter> counters : perRegion)
+			counts.add(MentionCounts.fromCounters(counters));
+		return counts;
+	}
+
+	private static double[] zipf(final int n, final double exponent) {
+		double[] cdf = new double[n];
+		double sum = 0;
+		for(int rank = 0; rank < n; rank++) {
+			sum += 1.0 / Math.pow(rank + 1, exponent);
+			cdf[rank] = sum;
+		}
+		for(int rank = 0; rank < n; rank++)
+			cdf[rank] /= sum;
+		return cdf;
+	}
+
+	private static int sample(final double[] cdf, final Random random) {
+		int i = Arrays.binarySearch(cdf, random.nextDouble());
+		if(i < 0)
+			i = -i - 1;
+		return Math.min(i, cdf.length - 1);
+	}
+
+	private static long[] shuffledIds(final int n, final Random random) {
+		long[] ids = new long[n];
+		for(int i = 0; i < n; i++)
+			ids[i] = FIRSTID + i;
+		for(int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			long tmp = ids[i];
+			ids[i] = ids[j];
+			ids[j] = tmp;
+		}
+		return ids;
+	}
+
+}
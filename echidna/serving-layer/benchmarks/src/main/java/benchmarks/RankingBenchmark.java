@@ -0,0 +1,81 @@
+package benchmarks;
+
+import hbase.query.Author;
+import hbase.query.HQuery;
+import hbase.query.subquery.AuthorsRankedByHits;
+import hbase.query.subquery.AuthorsRankedById;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the ranking subqueries over the authors of a skewed mention graph.
+ * Every invocation ranks a fresh copy of the authors, whose cost is included.
+ * @author Daniele Morgantini
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RankingBenchmark {
+
+	@Param({"100000"})
+	public int authors;
+
+	@Param({"1000000"})
+	public int mentions;
+
+	@Param({"1.1"})
+	public double exponent;
+
+	private List<Author> mentioned;
+
+
+	@Setup
+	public void setUp() {
+		this.mentioned = new MentionGraph(this.authors, this.mentions, this.exponent, 42L).mentionedAuthors();
+	}
+
+	@Benchmark
+	public List<Author> rankedByHitsAsc() {
+		HQuery query = this.query();
+		new AuthorsRankedByHits(query, true).execute(query.users());
+		return query.users().getAuthors();
+	}
+
+	@Benchmark
+	public List<Author> rankedByHitsDesc() {
+		HQuery query = this.query();
+		new AuthorsRankedByHits(query, false).execute(query.users());
+		return query.users().getAuthors();
+	}
+
+	@Benchmark
+	public List<Author> rankedById() {
+		HQuery query = this.query();
+		new AuthorsRankedById(query, true).execute(query.users());
+		return query.users().getAuthors();
+	}
+
+	private HQuery query() {
+		HQuery query = new HQuery();
+		query.updateUsers(new ArrayList<Author>(this.mentioned));
+		return query;
+	}
+
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import hbase.query.Author;
+import hbase.query.time.FixedTime;
+import hbase.query.time.LastMonth;
+import hbase.query.time.LastMonthFromNow;
+import hbase.query.time.LastWeek;
+import hbase.query.time.LastYear;
+import hbase.query.time.ThisMonth;
+import hbase.query.time.ThisYear;
+import hbase.query.time.TimeRange;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the row key generation of the time windows, done once per mentioned author by the subqueries.
+ * @author Daniele Morgantini
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RowKeyBenchmark {
+
+	@Param({"1000"})
+	public int authors;
+
+	@Param({"LastWeek", "ThisMonth", "LastMonth", "LastYear", "ThisYear"})
+	public String window;
+
+	private long[] ids;
+
+	private FixedTime fixedTime;
+
+	private TimeRange timeRange;
+
+
+	@Setup
+	public void setUp() {
+		List<Author> mentioned = new MentionGraph(this.authors * 10, this.authors * 10, 1.1, 42L).mentionedAuthors();
+		this.ids = new long[Math.min(this.authors, mentioned.size())];
+		for(int i = 0; i < this.ids.length; i++)
+			this.ids[i] = mentioned.get(i).getId();
+		this.fixedTime = fixedTime(this.window);
+		this.timeRange = new LastMonthFromNow();
+	}
+
+	@Benchmark
+	public void fixedTimeRowKeys(final Blackhole bh) {
+		for(long id : this.ids) {
+			bh.consume(this.fixedTime.generateFirstRowKey(id));
+			bh.consume(this.fixedTime.generateLastRowKey(id));
+		}
+	}
+
+	@Benchmark
+	public void timeRangeRowKeys(final Blackhole bh) {
+		for(long id : this.ids) {
+			bh.consume(this.timeRange.generateFirstRowKey(id));
+			bh.consume(this.timeRange.generateLastRowKey(id));
+		}
+	}
+
+	private static FixedTime fixedTime(final String window) {
+		if("LastWeek".equals(window))
+			return new LastWeek();
+		if("ThisMonth".equals(window))
+			return new ThisMonth();
+		if("LastMonth".equals(window))
+			return new LastMonth();
+		if("LastYear".equals(window))
+			return new LastYear();
+		return new ThisYear();
+	}
+
+}
@@ -2,9 +2,11 @@ package org.coprocessors;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.KeyValue;
@@ -13,14 +15,16 @@ import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.BaseEndpointCoprocessor;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.filter.BinaryComparator;
-import org.apache.hadoop.hbase.filter.ColumnPrefixFilter;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
-import org.apache.hadoop.hbase.filter.PrefixFilter;
 import org.apache.hadoop.hbase.filter.QualifierFilter;
-import org.apache.hadoop.hbase.filter.ValueFilter;
+import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.filter.QualifierPrefixSetFilter;
+import org.coprocessors.filter.QualifierSetFilter;
+import org.coprocessors.filter.ValueSetFilter;
+import org.coprocessors.util.LongIntCounter;
 
 /**
  * Endpoint implementation to perform the mentions aggregation
@@ -31,87 +35,247 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 
 	@Override
 	public Map<String,Map<String,Integer>> aggregateMentionsByMM(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
+		return toMaps(this.countByMM(auths, args));
+	}
+	
+	@Override
+	public MentionCounts countMentionsByMM(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
+		return MentionCounts.fromCounters(this.countByMM(auths, args));
+	}
+	
+	@Override
+	public Map<String,Map<String,Integer>> aggregateMentionsByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
+		return toMaps(this.countByMMThisYear(auths, args));
+	}
+	
+	@Override
+	public MentionCounts countMentionsByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
+		return MentionCounts.fromCounters(this.countByMMThisYear(auths, args));
+	}
+	
+	@Override
+	public Map<String,Map<String,Integer>> aggregateMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, final Map<Long,List<String>> args) throws IOException {
+		return toMaps(this.countByMMBackwards(auths, startTime, endTime, args));
+	}
+	
+	@Override
+	public MentionCounts countMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, final Map<Long,List<String>> args) throws IOException {
+		return MentionCounts.fromCounters(this.countByMMBackwards(auths, startTime, endTime, args));
+	}
+	
+	@Override
+	public MentionCounts pruneMentionsByMM(final byte[][] auths, final Map<Long,List<String>> args,
+							final int minTimes, final int minMentioned, final int topK) throws IOException {
+		return this.prune(this.countByMM(auths, args), args, false, minTimes, minMentioned, topK);
+	}
+	
+	@Override
+	public MentionCounts pruneMentionsByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args,
+							final int minTimes, final int minMentioned, final int topK) throws IOException {
+		return this.prune(this.countByMMThisYear(auths, args), args, true, minTimes, minMentioned, topK);
+	}
+	
+	@Override
+	public MentionCounts pruneMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, final Map<Long,List<String>> args,
+							final int minTimes, final int minMentioned, final int topK) throws IOException {
+		return this.prune(this.countByMMBackwards(auths, startTime, endTime, args), args, false, minTimes, minMentioned, topK);
+	}
+	
+	/**
+	 * Drops the mentioners that can't qualify anymore. The counts of a mentioned author are thresholded
+	 * only if its whole row range lies in this region, otherwise they are partial and other regions may add to them.
+	 * The minimum number of mentioned authors and the top-k are applied only if this region holds the rows of all the mentioned authors.
+	 * @return the pruned MentionCounts object
+	 * @param counters the counters of the mentioners, by mentioned author
+	 * @param args the params in a map containing the id of the mentioned user and a list of the first and last row key of each range to scan
+	 * @param prefix whether the first row key is a row prefix rather than a range
+	 * @param minTimes the minimum number of mentions per mentioned author
+	 * @param minMentioned the minimum number of mentioned authors
+	 * @param topK the number of authors with most mentioned authors to keep, 0 to keep them all
+	 */
+	private MentionCounts prune(final Map<Long,LongIntCounter> counters, final Map<Long,List<String>> args, final boolean prefix,
+							final int minTimes, final int minMentioned, final int topK) {
 		
-		Map<String,Map<String,Integer>> general = new HashMap<String,Map<String,Integer>>();
-		RegionCoprocessorEnvironment environment = (RegionCoprocessorEnvironment) getEnvironment();
+		byte[] regionStart = this.getStartKey();
+		byte[] regionEnd = this.getEndKey();
 		
-		for(Map.Entry<Long, List<String>> m : args.entrySet()){
-			Map<String,Integer> map = new HashMap<String,Integer>();
+		boolean complete = true;
+		for(Map.Entry<Long,LongIntCounter> e : counters.entrySet()) {
+			List<String> range = args.get(e.getKey());
+			boolean contained = true;
+			for(int i = 0; i < (prefix ? 1 : range.size() - 1); i += 2) {
+				byte[] lowerRow = Bytes.toBytes(range.get(i));
+				byte[] stopRow;
+				if(prefix)
+					stopRow = prefixStop(lowerRow);
+				else if(range.get(i).equals(range.get(i + 1)))
+					stopRow = Bytes.add(lowerRow, new byte[1]);
+				else
+					stopRow = Bytes.toBytes(range.get(i + 1));
+				
+				contained &= Bytes.compareTo(regionStart, lowerRow) <= 0 &&
+						(regionEnd.length == 0 || (stopRow.length > 0 && Bytes.compareTo(stopRow, regionEnd) <= 0));
+			}
+			if(!contained) {
+				complete = false;
+				continue;
+			}
+			LongIntCounter counter = e.getValue();
+			LongIntCounter kept = new LongIntCounter(counter.size());
+			LongIntCounter.Cursor c = counter.cursor();
+			while(c.next()) {
+				if(c.value() >= minTimes)
+					kept.add(c.key(), c.value());
+			}
+			e.setValue(kept);
+		}
+		
+		if(complete && (minMentioned > 1 || topK > 0)) {
+			LongIntCounter hits = new LongIntCounter();
+			for(LongIntCounter counter : counters.values()) {
+				LongIntCounter.Cursor c = counter.cursor();
+				while(c.next())
+					hits.increment(c.key());
+			}
 			
-			String firstRow = m.getValue().get(0);
-			String lastRow = m.getValue().get(1);
-			Scan scan;
+			PriorityQueue<Candidate> best = new PriorityQueue<Candidate>();
+			LongIntCounter.Cursor c = hits.cursor();
+			while(c.next()) {
+				if(c.value() < minMentioned)
+					continue;
+				best.add(new Candidate(c.key(), c.value()));
+				if(topK > 0 && best.size() > topK)
+					best.poll();
+			}
 			
-			byte[] lowerRow = Bytes.toBytes(firstRow);
-			byte[] upperRow = Bytes.toBytes(lastRow);
-			if(Bytes.equals(lowerRow,upperRow)) {
-				Get get = new Get(lowerRow);
-				scan = new Scan(get);
+			LongIntCounter winners = new LongIntCounter(best.size());
+			for(Candidate w : best)
+				winners.increment(w.id);
+			for(Map.Entry<Long,LongIntCounter> e : counters.entrySet()) {
+				LongIntCounter kept = new LongIntCounter();
+				LongIntCounter.Cursor k = e.getValue().cursor();
+				while(k.next()) {
+					if(winners.contains(k.key()))
+						kept.add(k.key(), k.value());
+				}
+				e.setValue(kept);
 			}
-			else {
-				scan = new Scan(lowerRow,upperRow);
+		}
+		return MentionCounts.fromCounters(counters);
+	}
+	
+	/**
+	 * Opens a scanner over the rows of the region the endpoint is loaded in
+	 * @return the scanner, to be closed by the caller
+	 * @param scan the rows and cells to read
+	 */
+	protected InternalScanner getScanner(final Scan scan) throws IOException {
+		return this.getRegion().getScanner(scan);
+	}
+	
+	/**
+	 * Retrieves the first row key of the region the endpoint is loaded in
+	 * @return the first row key of the region, empty for the first region
+	 */
+	protected byte[] getStartKey() {
+		return this.getRegion().getStartKey();
+	}
+	
+	/**
+	 * Retrieves the row key following the region the endpoint is loaded in
+	 * @return the end row key of the region, empty for the last region
+	 */
+	protected byte[] getEndKey() {
+		return this.getRegion().getEndKey();
+	}
+	
+	private HRegion getRegion() {
+		return ((RegionCoprocessorEnvironment) getEnvironment()).getRegion();
+	}
+	
+	/**
+	 * Computes the first row key following all the row keys with the given prefix
+	 * @return the stop row of the prefix, empty if there is none
+	 * @param prefix the row prefix
+	 */
+	public static byte[] prefixStop(final byte[] prefix) {
+		for(int i = prefix.length - 1; i >= 0; i--) {
+			if(prefix[i] != (byte) 0xFF) {
+				byte[] stop = Arrays.copyOf(prefix, i + 1);
+				stop[i]++;
+				return stop;
 			}
-			if(auths.length > 0) {
-				FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-				for(byte[] q : auths) {
-					qualifierFilters.addFilter(new QualifierFilter(CompareFilter.CompareOp.EQUAL,
-							new BinaryComparator(q)));
+		}
+		return new byte[0];
+	}
+	
+	/**
+	 * Creates the reads of the row ranges of a mentioned author
+	 * @return a scan per range
+	 * @param range the first and last row key of each range, in consecutive pairs: a single row if they are equal, the last excluded otherwise
+	 */
+	private static List<Scan> scans(final List<String> range) {
+		List<Scan> scans = new ArrayList<Scan>(range.size() / 2);
+		for(int i = 0; i + 1 < range.size(); i += 2) {
+			byte[] lowerRow = Bytes.toBytes(range.get(i));
+			byte[] upperRow = Bytes.toBytes(range.get(i + 1));
+			if(Bytes.equals(lowerRow,upperRow))
+				scans.add(new Scan(new Get(lowerRow)));
+			else
+				scans.add(new Scan(lowerRow,upperRow));
+		}
+		return scans;
+	}
+	
+	private Map<Long,LongIntCounter> countByMM(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
+		
+		Map<Long,LongIntCounter> general = new HashMap<Long,LongIntCounter>();
+		
+		for(Map.Entry<Long, List<String>> m : args.entrySet()){
+			LongIntCounter counter = new LongIntCounter();
+			
+			for(Scan scan : scans(m.getValue())) {
+				if(auths.length > 0) {
+					scan.setFilter(new QualifierSetFilter(auths));
 				}
-				scan.setFilter(qualifierFilters);
-			}									
-			InternalScanner scanner = environment.getRegion().getScanner(scan);
-			try {
-				List<KeyValue> curVals = new ArrayList<KeyValue>();
-			    boolean done = false;
-			    do {
-			    	curVals.clear();
-			        done = scanner.next(curVals);
-			        for(KeyValue kv : curVals) {
-			        	int value = Bytes.toInt(kv.getValue());
-						String mentioner = Bytes.toString(kv.getQualifier());
-						if(map.containsKey(mentioner)) {
-							value += map.get(mentioner);
-						}
-						map.put(mentioner, value);
-			        }
-			    } while (done);
-		    } finally {
-		      scanner.close();
-		    }
-			general.put(String.valueOf(m.getKey()), map);
+				InternalScanner scanner = this.getScanner(scan);
+				try {
+					List<KeyValue> curVals = new ArrayList<KeyValue>();
+				    boolean done = false;
+				    do {
+				    	curVals.clear();
+				        done = scanner.next(curVals);
+				        for(KeyValue kv : curVals) {
+				        	long mentioner = LongIntCounter.parseLong(kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength());
+				        	counter.add(mentioner, Bytes.toInt(kv.getBuffer(), kv.getValueOffset()));
+				        }
+				    } while (done);
+			    } finally {
+			      scanner.close();
+			    }
+			}
+			general.put(m.getKey(), counter);
 		}
 		return general;
 	}
 
-	@Override
-	public Map<String,Map<String,Integer>> aggregateMentionsByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
+	private Map<Long,LongIntCounter> countByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
 		
-		Map<String,Map<String,Integer>> general = new HashMap<String,Map<String,Integer>>();
-		RegionCoprocessorEnvironment environment = (RegionCoprocessorEnvironment) getEnvironment();
+		Map<Long,LongIntCounter> general = new HashMap<Long,LongIntCounter>();
 		
 		for(Map.Entry<Long, List<String>> m : args.entrySet()){
-			Map<String,Integer> map = new HashMap<String,Integer>();
+			LongIntCounter counter = new LongIntCounter();
 			
 			String firstRow = m.getValue().get(0);
 				
-			FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
-			
-			Filter rPref = new PrefixFilter(Bytes.toBytes(firstRow));
-			fList.addFilter(rPref);
+			byte[] rowPrefix = Bytes.toBytes(firstRow);
+			Scan scan = new Scan(rowPrefix, prefixStop(rowPrefix));
 			
 			if(auths.length > 0) {
-				FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-				for(byte[] prefix : auths) {
-					Filter prefixFilter = new ColumnPrefixFilter(prefix);
-					qualifierFilters.addFilter(prefixFilter);
-				}
-				fList.addFilter(qualifierFilters);
+				scan.setFilter(new QualifierPrefixSetFilter(auths));
 			}
 			
-			Scan scan = new Scan()
-						.setFilter(fList);				
-			
-			InternalScanner scanner = environment.getRegion().getScanner(scan);
+			InternalScanner scanner = this.getScanner(scan);
 			try {
 				List<KeyValue> curVals = new ArrayList<KeyValue>();
 			    boolean done = false;
@@ -119,30 +283,24 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 			    	curVals.clear();
 			        done = scanner.next(curVals);
 			        for(KeyValue kv : curVals) {
-			        	int value = Bytes.toInt(kv.getValue());
-						String mentioner = Bytes.toString(kv.getQualifier());
-						if(map.containsKey(mentioner)) {
-							value += map.get(mentioner);
-						}
-						map.put(mentioner, value);
+			        	long mentioner = LongIntCounter.parseLong(kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength());
+			        	counter.add(mentioner, Bytes.toInt(kv.getBuffer(), kv.getValueOffset()));
 			        }
 			    } while (done);
 		    } finally {
 		      scanner.close();
 		    }
-			general.put(String.valueOf(m.getKey()), map);
+			general.put(m.getKey(), counter);
 		}
 		return general;
 	}
 	
-	@Override
-	public Map<String,Map<String,Integer>> aggregateMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, Map<Long,List<String>> args) throws IOException {
+	private Map<Long,LongIntCounter> countByMMBackwards(final byte[][] auths, final long startTime, final long endTime, final Map<Long,List<String>> args) throws IOException {
 		
-		Map<String,Map<String,Integer>> general = new HashMap<String,Map<String,Integer>>();
-		RegionCoprocessorEnvironment environment = (RegionCoprocessorEnvironment) getEnvironment();
+		Map<Long,LongIntCounter> general = new HashMap<Long,LongIntCounter>();
 		
 		for(Map.Entry<Long, List<String>> m : args.entrySet()){
-			Map<String,Integer> map = new HashMap<String,Integer>();
+			LongIntCounter counter = new LongIntCounter();
 			
 			String firstRow = m.getValue().get(0);
 			String lastRow = m.getValue().get(1);
@@ -162,20 +320,13 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 			fList.addFilter(qualifierFilter2);
 			
 			if(auths.length>0){
-				FilterList valueList = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-		
-				for(byte[] value : auths) {
-					Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.EQUAL,
-							new BinaryComparator(value));
-					valueList.addFilter(valueFilter);
-				}
-				fList.addFilter(valueList);
+				fList.addFilter(new ValueSetFilter(auths));
 			}
 			
 			scan = new Scan(lowerRow,upperRow)
 						.setFilter(fList);
 			
-			InternalScanner scanner = environment.getRegion().getScanner(scan);
+			InternalScanner scanner = this.getScanner(scan);
 			try {
 				List<KeyValue> curVals = new ArrayList<KeyValue>();
 			    boolean done = false;
@@ -183,18 +334,13 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 			    	curVals.clear();
 			        done = scanner.next(curVals);
 			        for(KeyValue kv : curVals) {
-			        	int value = 1;
-						String mentioner = String.valueOf(Bytes.toLong(kv.getValue()));
-						if(map.containsKey(mentioner)) {
-							value += map.get(mentioner);
-						}
-						map.put(mentioner, value);
+			        	counter.increment(Bytes.toLong(kv.getBuffer(), kv.getValueOffset()));
 			        }
 			    } while (done);
 		    } finally {
 		      scanner.close();
 		    }
-			general.put(String.valueOf(m.getKey()), map);
+			general.put(m.getKey(), counter);
 		}
 		return general;
 	}
@@ -203,47 +349,30 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 	@Override
 	public Map<String,Integer> aggregateMentions(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
 		Map<String,Integer> general = new HashMap<String,Integer>();
-		RegionCoprocessorEnvironment environment = (RegionCoprocessorEnvironment) getEnvironment();
 		
 		for(Map.Entry<Long, List<String>> m : args.entrySet()){
 
 			String mentioned = String.valueOf(m.getKey());
 			int value = 0;
-			String firstRow = m.getValue().get(0);
-			String lastRow = m.getValue().get(1);
-			Scan scan;
-			
-			byte[] lowerRow = Bytes.toBytes(firstRow);
-			byte[] upperRow = Bytes.toBytes(lastRow);
-			if(Bytes.equals(lowerRow,upperRow)) {
-				Get get = new Get(lowerRow);
-				scan = new Scan(get);
-			}
-			else {
-				scan = new Scan(lowerRow,upperRow);
-			}
-			if(auths.length > 0) {
-				FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-				for(byte[] q : auths) {
-					qualifierFilters.addFilter(new QualifierFilter(CompareFilter.CompareOp.EQUAL,
-							new BinaryComparator(q)));
+			for(Scan scan : scans(m.getValue())) {
+				if(auths.length > 0) {
+					scan.setFilter(new QualifierSetFilter(auths));
 				}
-				scan.setFilter(qualifierFilters);
-			}									
-			InternalScanner scanner = environment.getRegion().getScanner(scan);
-			try {
-				List<KeyValue> curVals = new ArrayList<KeyValue>();
-			    boolean done = false;
-			    do {
-			    	curVals.clear();
-			        done = scanner.next(curVals);
-			        for(KeyValue kv : curVals) {
-			        	value += Bytes.toInt(kv.getValue());
-			        }
-			    } while (done);
-		    } finally {
-		      scanner.close();
-		    }
+				InternalScanner scanner = this.getScanner(scan);
+				try {
+					List<KeyValue> curVals = new ArrayList<KeyValue>();
+				    boolean done = false;
+				    do {
+				    	curVals.clear();
+				        done = scanner.next(curVals);
+				        for(KeyValue kv : curVals) {
+				        	value += Bytes.toInt(kv.getValue());
+				        }
+				    } while (done);
+			    } finally {
+			      scanner.close();
+			    }
+			}
 			general.put(mentioned, value);
 		}
 		return general;
@@ -253,7 +382,6 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 	public Map<String,Integer> aggregateMentionsThisYear(final byte[][] auths, final Map<Long,List<String>> args) throws IOException {
 		
 		Map<String,Integer> general = new HashMap<String,Integer>();
-		RegionCoprocessorEnvironment environment = (RegionCoprocessorEnvironment) getEnvironment();
 		
 		for(Map.Entry<Long, List<String>> m : args.entrySet()){
 			
@@ -261,24 +389,14 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 			int value = 0;
 			String firstRow = m.getValue().get(0);
 				
-			FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
-			
-			Filter rPref = new PrefixFilter(Bytes.toBytes(firstRow));
-			fList.addFilter(rPref);
+			byte[] rowPrefix = Bytes.toBytes(firstRow);
+			Scan scan = new Scan(rowPrefix, prefixStop(rowPrefix));
 			
 			if(auths.length > 0) {
-				FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-				for(byte[] prefix : auths) {
-					Filter prefixFilter = new ColumnPrefixFilter(prefix);
-					qualifierFilters.addFilter(prefixFilter);
-				}
-				fList.addFilter(qualifierFilters);
+				scan.setFilter(new QualifierPrefixSetFilter(auths));
 			}
 			
-			Scan scan = new Scan()
-						.setFilter(fList);				
-			
-			InternalScanner scanner = environment.getRegion().getScanner(scan);
+			InternalScanner scanner = this.getScanner(scan);
 			try {
 				List<KeyValue> curVals = new ArrayList<KeyValue>();
 			    boolean done = false;
@@ -301,7 +419,6 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 	public Map<String,Integer> aggregateMentionsBackwards(final byte[][] auths, final long startTime, final long endTime, Map<Long,List<String>> args) throws IOException {
 		
 		Map<String,Integer> general = new HashMap<String,Integer>();
-		RegionCoprocessorEnvironment environment = (RegionCoprocessorEnvironment) getEnvironment();
 		
 		for(Map.Entry<Long, List<String>> m : args.entrySet()){
 			
@@ -323,20 +440,13 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 			fList.addFilter(qualifierFilter2);
 			
 			if(auths.length>0){
-				FilterList valueList = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-		
-				for(byte[] value : auths) {
-					Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.EQUAL,
-							new BinaryComparator(value));
-					valueList.addFilter(valueFilter);
-				}
-				fList.addFilter(valueList);
+				fList.addFilter(new ValueSetFilter(auths));
 			}
 			
 			scan = new Scan(lowerRow,upperRow)
 						.setFilter(fList);
 			
-			InternalScanner scanner = environment.getRegion().getScanner(scan);
+			InternalScanner scanner = this.getScanner(scan);
 			int value = 0;
 			try {
 				List<KeyValue> curVals = new ArrayList<KeyValue>();
@@ -353,4 +463,46 @@ public class AuthorAggregatorEndpoint extends BaseEndpointCoprocessor implements
 		}
 		return general;
 	}
+	
+	/**
+	 * Converts the counters of the mentioned authors into the maps sent back to the client
+	 * @return the Map<mentioned,Map<mentioner,times>> object
+	 * @param counters the counters of the mentioners, by mentioned author
+	 */
+	private static Map<String,Map<String,Integer>> toMaps(final Map<Long,LongIntCounter> counters) {
+		Map<String,Map<String,Integer>> general = new HashMap<String,Map<String,Integer>>();
+		for(Map.Entry<Long,LongIntCounter> e : counters.entrySet()) {
+			LongIntCounter counter = e.getValue();
+			Map<String,Integer> map = new HashMap<String,Integer>(counter.size() * 2);
+			LongIntCounter.Cursor c = counter.cursor();
+			while(c.next()) {
+				map.put(String.valueOf(c.key()), c.value());
+			}
+			general.put(String.valueOf(e.getKey()), map);
+		}
+		return general;
+	}
+	
+	
+	/**
+	 * Mentioner competing for the top-k, the worst one comes first
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+		
+		private final long id;
+		
+		private final int hits;
+		
+		Candidate(final long id, final int hits) {
+			this.id = id;
+			this.hits = hits;
+		}
+		
+		@Override
+		public int compareTo(final Candidate other) {
+			if(this.hits != other.hits)
+				return this.hits < other.hits ? -1 : 1;
+			return this.id > other.id ? -1 : (this.id == other.id ? 0 : 1);
+		}
+	}
 }
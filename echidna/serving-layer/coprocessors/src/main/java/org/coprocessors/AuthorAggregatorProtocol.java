@@ -14,7 +14,7 @@ public interface AuthorAggregatorProtocol extends CoprocessorProtocol {
 
 	/** Method to compute the aggregation of the number of mention by mentioner and mentioned in the specified time range: Map<mentioned,Map<mentioner,times>> 
 	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
-	 * @params args the params in a map containing the id of the mentioned user and a list of the first and last row key to scan
+	 * @params args the params in a map containing the id of the mentioned user and the first and last row key of each range to scan, in consecutive pairs
 	 * @return a Map<mentioned,Map<mentioner,times>> object
 	 * @throws IOException */
 	Map<String,Map<String,Integer>> aggregateMentionsByMM(final byte[][] auths, final Map<Long,List<String>> args) throws IOException;
@@ -35,9 +35,68 @@ public interface AuthorAggregatorProtocol extends CoprocessorProtocol {
 	 * @throws IOException */
 	Map<String,Map<String,Integer>> aggregateMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, Map<Long,List<String>> args) throws IOException;
 	
-	/** Method to compute the aggregation of the number of mention by mentioned in the specified time range: Map<mentioned,times>
+	/** Method to compute the aggregation of the number of mention by mentioner and mentioned in the specified time range, in columnar form
+	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @params args the params in a map containing the id of the mentioned user and the first and last row key of each range to scan, in consecutive pairs
+	 * @return a MentionCounts object, holding the sorted mentioners and their times for each mentioned
+	 * @throws IOException */
+	MentionCounts countMentionsByMM(final byte[][] auths, final Map<Long,List<String>> args) throws IOException;
+
+	/** Method to compute the aggregation of the number of mention by mentioner and mentioned in this year's time range, in columnar form
+	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @params args the params in a map containing the id of the mentioned user and a list of the first and last row key to scan
+	 * @return a MentionCounts object, holding the sorted mentioners and their times for each mentioned
+	 * @throws IOException */
+	MentionCounts countMentionsByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args) throws IOException;
+	
+	/** Method to compute the aggregation of the number of mention by mentioner and mentioned in the specified time range, in columnar form
+	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @param startTime the first millisecond to consider
+	 * @param endTime the last millisecond to consider
+	 * @params args the params in a map containing the id of the mentioned user and a list of the first and last row key to scan
+	 * @return a MentionCounts object, holding the sorted mentioners and their times for each mentioned
+	 * @throws IOException */
+	MentionCounts countMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, final Map<Long,List<String>> args) throws IOException;
+	
+	/** Same as countMentionsByMM, but the mentioners that can't qualify are left out: the thresholds and the top-k are applied
+	 * by a region only when it holds all the rows they depend on, so the result after merging is the same
+	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @params args the params in a map containing the id of the mentioned user and the first and last row key of each range to scan, in consecutive pairs
+	 * @param minTimes the minimum number of mentions per mentioned author
+	 * @param minMentioned the minimum number of mentioned authors
+	 * @param topK the number of authors with most mentioned authors to keep (ties broken by lower id), 0 to keep them all
+	 * @return a MentionCounts object, holding the sorted mentioners and their times for each mentioned
+	 * @throws IOException */
+	MentionCounts pruneMentionsByMM(final byte[][] auths, final Map<Long,List<String>> args,
+						final int minTimes, final int minMentioned, final int topK) throws IOException;
+	
+	/** Same as countMentionsByMMThisYear, but the mentioners that can't qualify are left out
+	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @params args the params in a map containing the id of the mentioned user and a list of the first and last row key to scan
+	 * @param minTimes the minimum number of mentions per mentioned author
+	 * @param minMentioned the minimum number of mentioned authors
+	 * @param topK the number of authors with most mentioned authors to keep (ties broken by lower id), 0 to keep them all
+	 * @return a MentionCounts object, holding the sorted mentioners and their times for each mentioned
+	 * @throws IOException */
+	MentionCounts pruneMentionsByMMThisYear(final byte[][] auths, final Map<Long,List<String>> args,
+						final int minTimes, final int minMentioned, final int topK) throws IOException;
+	
+	/** Same as countMentionsByMMBackwards, but the mentioners that can't qualify are left out
 	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @param startTime the first millisecond to consider
+	 * @param endTime the last millisecond to consider
 	 * @params args the params in a map containing the id of the mentioned user and a list of the first and last row key to scan
+	 * @param minTimes the minimum number of mentions per mentioned author
+	 * @param minMentioned the minimum number of mentioned authors
+	 * @param topK the number of authors with most mentioned authors to keep (ties broken by lower id), 0 to keep them all
+	 * @return a MentionCounts object, holding the sorted mentioners and their times for each mentioned
+	 * @throws IOException */
+	MentionCounts pruneMentionsByMMBackwards(final byte[][] auths, final long startTime, final long endTime, final Map<Long,List<String>> args,
+						final int minTimes, final int minMentioned, final int topK) throws IOException;
+	
+	/** Method to compute the aggregation of the number of mention by mentioned in the specified time range: Map<mentioned,times>
+	 * @param auths the IDs of the users to filter the cells (if you only want the mentiones from these users)
+	 * @params args the params in a map containing the id of the mentioned user and the first and last row key of each range to scan, in consecutive pairs
 	 * @return a Map<mentioned,times> object
 	 * @throws IOException */
 	Map<String,Integer> aggregateMentions(final byte[][] auths, final Map<Long,List<String>> args) throws IOException;
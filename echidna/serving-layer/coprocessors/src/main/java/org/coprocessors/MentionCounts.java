@@ -0,0 +1,247 @@
+package org.coprocessors;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.coprocessors.util.LongIntCounter;
+
+/**
+ * Columnar payload of the mentions aggregation: for each mentioned author,
+ * the sorted IDs of the mentioners along with the number of their mentions.
+ * IDs are written as variable length deltas and counts as variable length ints.
+ * @author Daniele Morgantini
+ */
+public class MentionCounts implements Writable {
+
+	private static final long[] NOIDS = new long[0];
+
+	private static final int[] NOCOUNTS = new int[0];
+
+	private long[] mentioned;
+
+	private long[][] mentioners;
+
+	private int[][] counts;
+
+
+	/**
+	 * No argument constructor, needed for deserialization
+	 * @return an empty MentionCounts instance
+	 */
+	public MentionCounts() {
+		this(NOIDS, new long[0][], new int[0][]);
+	}
+
+	/**
+	 * Creates an instance of MentionCounts
+	 * @return a MentionCounts instance
+	 * @param mentioned the sorted IDs of the mentioned authors
+	 * @param mentioners the sorted IDs of the mentioners, for each mentioned author
+	 * @param counts the number of mentions of each mentioner, for each mentioned author
+	 */
+	public MentionCounts(final long[] mentioned, final long[][] mentioners, final int[][] counts) {
+		this.mentioned = mentioned;
+		this.mentioners = mentioners;
+		this.counts = counts;
+	}
+
+	/**
+	 * Creates an instance of MentionCounts out of the counters of the mentioned authors
+	 * @return a MentionCounts instance
+	 * @param counters the counters of the mentioners, by mentioned author
+	 */
+	public static MentionCounts fromCounters(final Map<Long,LongIntCounter> counters) {
+
+		Map<Long,LongIntCounter> sorted = new TreeMap<Long,LongIntCounter>(counters);
+		long[] mentioned = new long[sorted.size()];
+		long[][] mentioners = new long[sorted.size()][];
+		int[][] counts = new int[sorted.size()][];
+
+		int i = 0;
+		for(Map.Entry<Long,LongIntCounter> e : sorted.entrySet()) {
+			LongIntCounter counter = e.getValue();
+			long[] ids = new long[counter.size()];
+			LongIntCounter.Cursor c = counter.cursor();
+			int j = 0;
+			while(c.next()) {
+				ids[j++] = c.key();
+			}
+			Arrays.sort(ids);
+			int[] values = new int[ids.length];
+			for(j = 0; j < ids.length; j++) {
+				values[j] = counter.get(ids[j]);
+			}
+			mentioned[i] = e.getKey();
+			mentioners[i] = ids;
+			counts[i] = values;
+			i++;
+		}
+		return new MentionCounts(mentioned, mentioners, counts);
+	}
+
+	/**
+	 * Merges the payloads computed by different regions, summing the counts of the same mentioner
+	 * @return the merged payload
+	 * @param parts the payloads to merge
+	 */
+	public static MentionCounts merge(final Collection<MentionCounts> parts) {
+
+		Map<Long,PriorityQueue<Head>> heads = new TreeMap<Long,PriorityQueue<Head>>();
+		for(MentionCounts part : parts) {
+			if(part == null)
+				continue;
+			for(int i = 0; i < part.mentioned.length; i++) {
+				if(part.mentioners[i].length == 0)
+					continue;
+				PriorityQueue<Head> queue = heads.get(part.mentioned[i]);
+				if(queue == null) {
+					queue = new PriorityQueue<Head>();
+					heads.put(part.mentioned[i], queue);
+				}
+				queue.add(new Head(part.mentioners[i], part.counts[i]));
+			}
+		}
+
+		long[] mentioned = new long[heads.size()];
+		long[][] mentioners = new long[heads.size()][];
+		int[][] counts = new int[heads.size()][];
+
+		int i = 0;
+		for(Map.Entry<Long,PriorityQueue<Head>> e : heads.entrySet()) {
+			PriorityQueue<Head> queue = e.getValue();
+			int bound = 0;
+			for(Head h : queue)
+				bound += h.ids.length;
+			long[] ids = new long[bound];
+			int[] values = new int[bound];
+			int n = -1;
+			while(!queue.isEmpty()) {
+				Head h = queue.poll();
+				long id = h.ids[h.pos];
+				if(n >= 0 && ids[n] == id) {
+					values[n] += h.counts[h.pos];
+				}
+				else {
+					n++;
+					ids[n] = id;
+					values[n] = h.counts[h.pos];
+				}
+				if(++h.pos < h.ids.length)
+					queue.add(h);
+			}
+			mentioned[i] = e.getKey();
+			mentioners[i] = Arrays.copyOf(ids, n + 1);
+			counts[i] = Arrays.copyOf(values, n + 1);
+			i++;
+		}
+		return new MentionCounts(mentioned, mentioners, counts);
+	}
+
+	/**
+	 * Retrieves the number of mentioned authors
+	 * @return the number of mentioned authors
+	 */
+	public int size() {
+		return this.mentioned.length;
+	}
+
+	/**
+	 * Retrieves the ID of the i-th mentioned author
+	 * @return the ID of the i-th mentioned author
+	 * @param i the position of the mentioned author
+	 */
+	public long getMentioned(final int i) {
+		return this.mentioned[i];
+	}
+
+	/**
+	 * Retrieves the sorted IDs of the mentioners of the i-th mentioned author
+	 * @return the sorted IDs of the mentioners
+	 * @param i the position of the mentioned author
+	 */
+	public long[] getMentioners(final int i) {
+		return this.mentioners[i];
+	}
+
+	/**
+	 * Retrieves the number of mentions of each mentioner of the i-th mentioned author
+	 * @return the number of mentions, aligned to the mentioners
+	 * @param i the position of the mentioned author
+	 */
+	public int[] getCounts(final int i) {
+		return this.counts[i];
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, this.mentioned.length);
+		for(int i = 0; i < this.mentioned.length; i++) {
+			WritableUtils.writeVLong(out, this.mentioned[i]);
+			long[] ids = this.mentioners[i];
+			int[] values = this.counts[i];
+			WritableUtils.writeVInt(out, ids.length);
+			long previous = 0;
+			for(int j = 0; j < ids.length; j++) {
+				WritableUtils.writeVLong(out, ids[j] - previous);
+				WritableUtils.writeVInt(out, values[j]);
+				previous = ids[j];
+			}
+		}
+	}
+
+	@Override
+	public void readFields(final DataInput in) throws IOException {
+		int size = WritableUtils.readVInt(in);
+		this.mentioned = new long[size];
+		this.mentioners = new long[size][];
+		this.counts = new int[size][];
+		for(int i = 0; i < size; i++) {
+			this.mentioned[i] = WritableUtils.readVLong(in);
+			int length = WritableUtils.readVInt(in);
+			long[] ids = length == 0 ? NOIDS : new long[length];
+			int[] values = length == 0 ? NOCOUNTS : new int[length];
+			long previous = 0;
+			for(int j = 0; j < length; j++) {
+				previous += WritableUtils.readVLong(in);
+				ids[j] = previous;
+				values[j] = WritableUtils.readVInt(in);
+			}
+			this.mentioners[i] = ids;
+			this.counts[i] = values;
+		}
+	}
+
+
+	/**
+	 * Current position in the sorted mentioners of a single payload, used by the k-way merge
+	 */
+	private static class Head implements Comparable<Head> {
+
+		private final long[] ids;
+
+		private final int[] counts;
+
+		private int pos;
+
+		Head(final long[] ids, final int[] counts) {
+			this.ids = ids;
+			this.counts = counts;
+		}
+
+		@Override
+		public int compareTo(final Head other) {
+			long a = this.ids[this.pos];
+			long b = other.ids[other.pos];
+			return a < b ? -1 : (a == b ? 0 : 1);
+		}
+	}
+
+}
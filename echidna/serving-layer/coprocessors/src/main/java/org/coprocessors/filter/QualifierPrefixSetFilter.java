@@ -0,0 +1,82 @@
+package org.coprocessors.filter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+/**
+ * Filter keeping the cells whose qualifier starts with one of a set of prefixes, equivalent to a MUST_PASS_ONE
+ * FilterList of ColumnPrefixFilters: the qualifier is cut at each length the prefixes have,
+ * and each cut is looked for with a binary search
+ * @author Daniele Morgantini
+ */
+public class QualifierPrefixSetFilter extends FilterBase {
+
+	private byte[][] prefixes;
+
+	private int[] lengths;
+
+	/**
+	 * No argument constructor, for deserialization only
+	 */
+	public QualifierPrefixSetFilter() {
+		this.prefixes = new byte[0][];
+		this.lengths = new int[0];
+	}
+
+	/**
+	 * Creates an instance of QualifierPrefixSetFilter
+	 * @return an instance of QualifierPrefixSetFilter
+	 * @param prefixes the prefixes of the qualifiers to keep
+	 */
+	public QualifierPrefixSetFilter(final byte[][] prefixes) {
+		this.prefixes = SortedBytes.sortDistinct(prefixes);
+		this.lengths = lengths(this.prefixes);
+	}
+
+	@Override
+	public ReturnCode filterKeyValue(final KeyValue kv) {
+		int length = kv.getQualifierLength();
+		for(int l : this.lengths) {
+			if(l > length)
+				break;
+			if(SortedBytes.search(this.prefixes, kv.getBuffer(), kv.getQualifierOffset(), l) >= 0)
+				return ReturnCode.INCLUDE;
+		}
+		return ReturnCode.NEXT_COL;
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		SortedBytes.write(out, this.prefixes);
+	}
+
+	@Override
+	public void readFields(final DataInput in) throws IOException {
+		this.prefixes = SortedBytes.read(in);
+		this.lengths = lengths(this.prefixes);
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName() + " " + this.prefixes.length + " prefixes";
+	}
+
+	private static int[] lengths(final byte[][] prefixes) {
+		int[] lengths = new int[prefixes.length];
+		for(int i = 0; i < prefixes.length; i++)
+			lengths[i] = prefixes[i].length;
+		Arrays.sort(lengths);
+		int n = 0;
+		for(int i = 0; i < lengths.length; i++) {
+			if(n == 0 || lengths[n - 1] != lengths[i])
+				lengths[n++] = lengths[i];
+		}
+		return Arrays.copyOf(lengths, n);
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.coprocessors.filter;
+
+import org.apache.hadoop.hbase.KeyValue;
+
+/**
+ * Filter keeping the cells whose qualifier belongs to a set which, on a cell it doesn't keep, makes the scanner seek
+ * straight to the next wanted qualifier instead of reading the columns in between, so that reading a few columns
+ * of a very wide row (e.g. the followers of a celebrity) doesn't cost time proportional to its width.
+ * Once past the last wanted qualifier the rest of the row is skipped, hence it is meant for tables with a single column family.
+ * @author Daniele Morgantini
+ */
+public class QualifierSeekFilter extends QualifierSetFilter {
+
+	private byte[] hint;
+
+	/**
+	 * No argument constructor, for deserialization only
+	 */
+	public QualifierSeekFilter() {
+		super();
+	}
+
+	/**
+	 * Creates an instance of QualifierSeekFilter
+	 * @return an instance of QualifierSeekFilter
+	 * @param qualifiers the qualifiers to keep
+	 */
+	public QualifierSeekFilter(final byte[][] qualifiers) {
+		super(qualifiers);
+	}
+
+	@Override
+	public ReturnCode filterKeyValue(final KeyValue kv) {
+		byte[][] qualifiers = this.getQualifiers();
+		int i = SortedBytes.search(qualifiers, kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength());
+		if(i >= 0)
+			return ReturnCode.INCLUDE;
+		i = -(i + 1);
+		if(i == qualifiers.length)
+			return ReturnCode.NEXT_ROW;
+		this.hint = qualifiers[i];
+		return ReturnCode.SEEK_NEXT_USING_HINT;
+	}
+
+	@Override
+	public KeyValue getNextKeyHint(final KeyValue kv) {
+		if(this.hint == null)
+			return null;
+		return KeyValue.createFirstOnRow(kv.getBuffer(), kv.getRowOffset(), kv.getRowLength(),
+				kv.getBuffer(), kv.getFamilyOffset(), kv.getFamilyLength(),
+				this.hint, 0, this.hint.length);
+	}
+
+	@Override
+	public void reset() {
+		this.hint = null;
+	}
+
+}
@@ -0,0 +1,65 @@
+package org.coprocessors.filter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+/**
+ * Filter keeping the cells whose qualifier belongs to a set, equivalent to a MUST_PASS_ONE FilterList
+ * of QualifierFilters but checking each cell with a binary search instead of every filter in turn
+ * @author Daniele Morgantini
+ */
+public class QualifierSetFilter extends FilterBase {
+
+	private byte[][] qualifiers;
+
+	/**
+	 * No argument constructor, for deserialization only
+	 */
+	public QualifierSetFilter() {
+		this.qualifiers = new byte[0][];
+	}
+
+	/**
+	 * Creates an instance of QualifierSetFilter
+	 * @return an instance of QualifierSetFilter
+	 * @param qualifiers the qualifiers to keep
+	 */
+	public QualifierSetFilter(final byte[][] qualifiers) {
+		this.qualifiers = SortedBytes.sortDistinct(qualifiers);
+	}
+
+	/**
+	 * Retrieves the qualifiers to keep
+	 * @return the qualifiers to keep, sorted
+	 */
+	public byte[][] getQualifiers() {
+		return this.qualifiers;
+	}
+
+	@Override
+	public ReturnCode filterKeyValue(final KeyValue kv) {
+		if(SortedBytes.search(this.qualifiers, kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength()) >= 0)
+			return ReturnCode.INCLUDE;
+		return ReturnCode.NEXT_COL;
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		SortedBytes.write(out, this.qualifiers);
+	}
+
+	@Override
+	public void readFields(final DataInput in) throws IOException {
+		this.qualifiers = SortedBytes.read(in);
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName() + " " + this.qualifiers.length + " qualifiers";
+	}
+
+}
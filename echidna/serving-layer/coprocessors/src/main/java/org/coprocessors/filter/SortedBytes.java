@@ -0,0 +1,72 @@
+package org.coprocessors.filter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Utility methods on sorted arrays of byte arrays, shared by the set filters
+ * @author Daniele Morgantini
+ */
+final class SortedBytes {
+
+	private SortedBytes() {
+	}
+
+	/**
+	 * Sorts a copy of the byte arrays in the order HBase sorts them, without duplicates
+	 * @return the sorted and distinct byte arrays
+	 * @param values the byte arrays
+	 */
+	static byte[][] sortDistinct(final byte[][] values) {
+		byte[][] sorted = values.clone();
+		Arrays.sort(sorted, Bytes.BYTES_COMPARATOR);
+		int n = 0;
+		for(int i = 0; i < sorted.length; i++) {
+			if(n == 0 || !Bytes.equals(sorted[n - 1], sorted[i]))
+				sorted[n++] = sorted[i];
+		}
+		return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+	}
+
+	/**
+	 * Searches a slice of a buffer among the sorted byte arrays
+	 * @return the position of the slice if found, (-(insertion point) - 1) otherwise
+	 * @param sorted the sorted byte arrays
+	 * @param buffer the buffer holding the slice
+	 * @param offset the offset of the slice
+	 * @param length the length of the slice
+	 */
+	static int search(final byte[][] sorted, final byte[] buffer, final int offset, final int length) {
+		int low = 0;
+		int high = sorted.length - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = Bytes.compareTo(sorted[mid], 0, sorted[mid].length, buffer, offset, length);
+			if(cmp < 0)
+				low = mid + 1;
+			else if(cmp > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	static void write(final DataOutput out, final byte[][] sorted) throws IOException {
+		out.writeInt(sorted.length);
+		for(byte[] b : sorted)
+			Bytes.writeByteArray(out, b);
+	}
+
+	static byte[][] read(final DataInput in) throws IOException {
+		byte[][] sorted = new byte[in.readInt()][];
+		for(int i = 0; i < sorted.length; i++)
+			sorted[i] = Bytes.readByteArray(in);
+		return sorted;
+	}
+
+}
@@ -0,0 +1,57 @@
+package org.coprocessors.filter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+/**
+ * Filter keeping the cells whose value belongs to a set (e.g. the IDs of some authors, encoded as longs),
+ * equivalent to a MUST_PASS_ONE FilterList of ValueFilters but checking each cell with a binary search
+ * @author Daniele Morgantini
+ */
+public class ValueSetFilter extends FilterBase {
+
+	private byte[][] values;
+
+	/**
+	 * No argument constructor, for deserialization only
+	 */
+	public ValueSetFilter() {
+		this.values = new byte[0][];
+	}
+
+	/**
+	 * Creates an instance of ValueSetFilter
+	 * @return an instance of ValueSetFilter
+	 * @param values the values of the cells to keep
+	 */
+	public ValueSetFilter(final byte[][] values) {
+		this.values = SortedBytes.sortDistinct(values);
+	}
+
+	@Override
+	public ReturnCode filterKeyValue(final KeyValue kv) {
+		if(SortedBytes.search(this.values, kv.getBuffer(), kv.getValueOffset(), kv.getValueLength()) >= 0)
+			return ReturnCode.INCLUDE;
+		return ReturnCode.SKIP;
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		SortedBytes.write(out, this.values);
+	}
+
+	@Override
+	public void readFields(final DataInput in) throws IOException {
+		this.values = SortedBytes.read(in);
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName() + " " + this.values.length + " values";
+	}
+
+}
@@ -0,0 +1,232 @@
+package org.coprocessors.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive long keys to primitive int counters.
+ * It avoids boxing the author ids while aggregating, both in the endpoint and in the client.
+ * It is not thread safe.
+ * @author Daniele Morgantini
+ */
+public class LongIntCounter {
+
+	private static final int DEFAULTCAPACITY = 16;
+
+	private long[] keys;
+
+	private int[] values;
+
+	private boolean[] used;
+
+	private int size;
+
+	private int mask;
+
+
+	/**
+	 * No argument constructor
+	 * @return an empty LongIntCounter instance
+	 */
+	public LongIntCounter() {
+		this(DEFAULTCAPACITY);
+	}
+
+	/**
+	 * Creates an instance of LongIntCounter sized for the expected number of keys
+	 * @return an empty LongIntCounter instance
+	 * @param expected the expected number of keys
+	 */
+	public LongIntCounter(final int expected) {
+		int capacity = DEFAULTCAPACITY;
+		while(capacity * 3 < expected * 4)
+			capacity <<= 1;
+		this.allocate(capacity);
+	}
+
+	/**
+	 * Adds the delta to the counter of the key, starting from 0 if the key is missing
+	 * @return the updated counter of the key
+	 * @param key the key
+	 * @param delta the value to add
+	 */
+	public int add(final long key, final int delta) {
+		int slot = this.slot(key);
+		if(!this.used[slot]) {
+			if((this.size + 1) * 4 > this.keys.length * 3) {
+				this.rehash(this.keys.length << 1);
+				slot = this.slot(key);
+			}
+			this.used[slot] = true;
+			this.keys[slot] = key;
+			this.size++;
+		}
+		this.values[slot] += delta;
+		return this.values[slot];
+	}
+
+	/**
+	 * Increments by one the counter of the key
+	 * @return the updated counter of the key
+	 * @param key the key
+	 */
+	public int increment(final long key) {
+		return this.add(key, 1);
+	}
+
+	/**
+	 * Retrieves the counter of the key
+	 * @return the counter of the key, 0 if the key is missing
+	 * @param key the key
+	 */
+	public int get(final long key) {
+		int slot = this.slot(key);
+		return this.used[slot] ? this.values[slot] : 0;
+	}
+
+	/**
+	 * Tells whether the key has a counter
+	 * @return true if the key has a counter, false otherwise
+	 * @param key the key
+	 */
+	public boolean contains(final long key) {
+		return this.used[this.slot(key)];
+	}
+
+	/**
+	 * Retrieves the number of keys
+	 * @return the number of keys
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Tells whether there are no keys
+	 * @return true if there are no keys, false otherwise
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Removes all the keys, keeping the allocated capacity
+	 */
+	public void clear() {
+		Arrays.fill(this.used, false);
+		Arrays.fill(this.values, 0);
+		this.size = 0;
+	}
+
+	/**
+	 * Retrieves a cursor over the key-counter pairs, in no particular order
+	 * @return a cursor positioned before the first pair
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Parses the decimal representation of a long, without building a String
+	 * @return the parsed long
+	 * @param bytes the buffer containing the digits
+	 * @param offset the position of the first digit
+	 * @param length the number of bytes to parse
+	 */
+	public static long parseLong(final byte[] bytes, final int offset, final int length) {
+		if(length <= 0)
+			throw new NumberFormatException("Empty number");
+		int i = offset;
+		int end = offset + length;
+		boolean negative = bytes[i] == '-';
+		if(negative && length == 1)
+			throw new NumberFormatException("Not a number: -");
+		if(negative)
+			i++;
+		long result = 0;
+		for(; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if(digit < 0 || digit > 9)
+				throw new NumberFormatException("Not a digit at position " + (i - offset));
+			result = result * 10 + digit;
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Parses the decimal representation of a long, without building a String
+	 * @return the parsed long
+	 * @param bytes the digits
+	 */
+	public static long parseLong(final byte[] bytes) {
+		return parseLong(bytes, 0, bytes.length);
+	}
+
+
+	private int slot(final long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (h ^ (h >>> 32)) & this.mask;
+		while(this.used[slot] && this.keys[slot] != key)
+			slot = (slot + 1) & this.mask;
+		return slot;
+	}
+
+	private void allocate(final int capacity) {
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.used = new boolean[capacity];
+		this.mask = capacity - 1;
+	}
+
+	private void rehash(final int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		boolean[] oldUsed = this.used;
+		this.allocate(capacity);
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldUsed[i]) {
+				int slot = this.slot(oldKeys[i]);
+				this.used[slot] = true;
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Cursor over the key-counter pairs of a LongIntCounter
+	 */
+	public class Cursor {
+
+		private int slot = -1;
+
+		/**
+		 * Moves to the next pair
+		 * @return true if there is a pair, false if the pairs are over
+		 */
+		public boolean next() {
+			while(++this.slot < keys.length) {
+				if(used[this.slot])
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Retrieves the key of the current pair
+		 * @return the key of the current pair
+		 */
+		public long key() {
+			return keys[this.slot];
+		}
+
+		/**
+		 * Retrieves the counter of the current pair
+		 * @return the counter of the current pair
+		 */
+		public int value() {
+			return values[this.slot];
+		}
+	}
+
+}
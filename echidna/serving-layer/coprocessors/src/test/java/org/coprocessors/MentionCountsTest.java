@@ -0,0 +1,61 @@
+package org.coprocessors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.coprocessors.util.LongIntCounter;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for MentionCounts.
+ */
+public class MentionCountsTest extends TestCase {
+
+	public void testWriteAndRead() throws IOException {
+		Map<Long,LongIntCounter> counters = new HashMap<Long,LongIntCounter>();
+		LongIntCounter c = new LongIntCounter();
+		c.add(300000000000L, 2);
+		c.add(7L, 1);
+		c.add(42L, 5);
+		counters.put(10L, c);
+		counters.put(3L, new LongIntCounter());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MentionCounts.fromCounters(counters).write(new DataOutputStream(bytes));
+		MentionCounts read = new MentionCounts();
+		read.readFields(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(2, read.size());
+		assertEquals(3L, read.getMentioned(0));
+		assertEquals(0, read.getMentioners(0).length);
+		assertEquals(10L, read.getMentioned(1));
+		assertTrue(Arrays.equals(new long[] {7L, 42L, 300000000000L}, read.getMentioners(1)));
+		assertTrue(Arrays.equals(new int[] {1, 5, 2}, read.getCounts(1)));
+	}
+
+	public void testMerge() {
+		List<MentionCounts> parts = new ArrayList<MentionCounts>();
+		parts.add(new MentionCounts(new long[] {1L, 2L},
+				new long[][] {{1L, 5L, 9L}, {4L}}, new int[][] {{1, 1, 1}, {3}}));
+		parts.add(new MentionCounts(new long[] {1L},
+				new long[][] {{2L, 5L}}, new int[][] {{2, 4}}));
+		parts.add(null);
+
+		MentionCounts merged = MentionCounts.merge(parts);
+		assertEquals(2, merged.size());
+		assertEquals(1L, merged.getMentioned(0));
+		assertTrue(Arrays.equals(new long[] {1L, 2L, 5L, 9L}, merged.getMentioners(0)));
+		assertTrue(Arrays.equals(new int[] {1, 2, 5, 1}, merged.getCounts(0)));
+		assertEquals(2L, merged.getMentioned(1));
+		assertTrue(Arrays.equals(new long[] {4L}, merged.getMentioners(1)));
+	}
+}
@@ -0,0 +1,85 @@
+package org.coprocessors.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Unit test for the set filters.
+ */
+public class SetFiltersTest extends TestCase {
+
+	private static final byte[] ROW = Bytes.toBytes("row");
+
+	private static final byte[] FAMILY = Bytes.toBytes("t");
+
+	private static KeyValue cell(final String qualifier, final byte[] value) {
+		return new KeyValue(ROW, FAMILY, Bytes.toBytes(qualifier), value);
+	}
+
+	private static byte[][] bytes(final String... values) {
+		byte[][] b = new byte[values.length][];
+		for(int i = 0; i < values.length; i++)
+			b[i] = Bytes.toBytes(values[i]);
+		return b;
+	}
+
+	private static <T extends Filter> T roundTrip(final Filter filter, final T copy) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		filter.write(new DataOutputStream(buffer));
+		copy.readFields(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+		return copy;
+	}
+
+	public void testQualifierSet() throws IOException {
+		Filter filter = roundTrip(new QualifierSetFilter(bytes("42", "7", "1000", "7")), new QualifierSetFilter());
+		byte[] value = Bytes.toBytes(1);
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("7", value)));
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("1000", value)));
+		assertEquals(Filter.ReturnCode.NEXT_COL, filter.filterKeyValue(cell("100", value)));
+		assertEquals(Filter.ReturnCode.NEXT_COL, filter.filterKeyValue(cell("420", value)));
+		assertEquals(3, ((QualifierSetFilter) filter).getQualifiers().length);
+	}
+
+	public void testQualifierSeek() throws IOException {
+		Filter filter = roundTrip(new QualifierSeekFilter(bytes("20", "50")), new QualifierSeekFilter());
+		byte[] value = Bytes.toBytes(1);
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("20", value)));
+		KeyValue before = cell("3", value);
+		assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filter.filterKeyValue(before));
+		KeyValue hint = filter.getNextKeyHint(before);
+		assertTrue(Bytes.equals(Bytes.toBytes("50"), hint.getQualifier()));
+		assertTrue(Bytes.equals(ROW, hint.getRow()));
+		assertTrue(KeyValue.COMPARATOR.compare(hint, cell("50", value)) < 0);
+		assertEquals(Filter.ReturnCode.NEXT_ROW, filter.filterKeyValue(cell("6", value)));
+	}
+
+	public void testQualifierPrefixSet() throws IOException {
+		Filter filter = roundTrip(new QualifierPrefixSetFilter(bytes("12", "345")), new QualifierPrefixSetFilter());
+		byte[] value = Bytes.toBytes(1);
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("12", value)));
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("1299", value)));
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("3456", value)));
+		assertEquals(Filter.ReturnCode.NEXT_COL, filter.filterKeyValue(cell("1", value)));
+		assertEquals(Filter.ReturnCode.NEXT_COL, filter.filterKeyValue(cell("34", value)));
+		assertEquals(Filter.ReturnCode.NEXT_COL, filter.filterKeyValue(cell("3", value)));
+	}
+
+	public void testValueSet() throws IOException {
+		byte[][] ids = new byte[][] { Bytes.toBytes(5L), Bytes.toBytes(-3L), Bytes.toBytes(1L << 40) };
+		Filter filter = roundTrip(new ValueSetFilter(ids), new ValueSetFilter());
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("q", Bytes.toBytes(-3L))));
+		assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("q", Bytes.toBytes(1L << 40))));
+		assertEquals(Filter.ReturnCode.SKIP, filter.filterKeyValue(cell("q", Bytes.toBytes(6L))));
+		assertEquals(Filter.ReturnCode.SKIP, filter.filterKeyValue(cell("q", Bytes.toBytes(5))));
+	}
+
+}
@@ -0,0 +1,48 @@
+package org.coprocessors.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for LongIntCounter.
+ */
+public class LongIntCounterTest extends TestCase {
+
+	public void testMatchesHashMap() {
+		LongIntCounter counter = new LongIntCounter();
+		Map<Long,Integer> expected = new HashMap<Long,Integer>();
+		Random random = new Random(42);
+		for(int i = 0; i < 100000; i++) {
+			long key = random.nextInt(5000) - 100;
+			int delta = random.nextInt(10);
+			Integer old = expected.get(key);
+			expected.put(key, old == null ? delta : old + delta);
+			counter.add(key, delta);
+		}
+		assertEquals(expected.size(), counter.size());
+		int seen = 0;
+		LongIntCounter.Cursor c = counter.cursor();
+		while(c.next()) {
+			assertEquals(expected.get(c.key()).intValue(), c.value());
+			seen++;
+		}
+		assertEquals(expected.size(), seen);
+		assertEquals(0, counter.get(Long.MAX_VALUE));
+		assertFalse(counter.contains(Long.MAX_VALUE));
+	}
+
+	public void testParseLong() {
+		assertEquals(0L, LongIntCounter.parseLong("0".getBytes()));
+		assertEquals(1234567890123L, LongIntCounter.parseLong("1234567890123".getBytes()));
+		assertEquals(-42L, LongIntCounter.parseLong("-42".getBytes()));
+		assertEquals(77L, LongIntCounter.parseLong("12_77".getBytes(), 3, 2));
+		try {
+			LongIntCounter.parseLong("12_77".getBytes());
+			fail();
+		} catch (NumberFormatException e) {
+		}
+	}
+}
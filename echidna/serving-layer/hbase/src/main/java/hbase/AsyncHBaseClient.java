@@ -0,0 +1,129 @@
+package hbase;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Asynchronous client to read HTable rows: every read returns immediately
+ * with a future, completed once the read is over.
+ * @author Daniele Morgantini
+ * */
+public interface AsyncHBaseClient {
+
+	/**
+	 * Single get to retrieve the row.
+	 * @param row the row key
+	 * @return the future of the row */
+	public abstract ListenableFuture<Result> get(final byte[] row);
+
+	/**
+	 * Single get to retrieve the cells of the row whose value is no less than min.
+	 * @param row the row key
+	 * @param min the minimum value
+	 * @return the future of the row */
+	public abstract ListenableFuture<Result> get(final byte[] row, final byte[] min);
+
+	/**
+	 * Single get to retrieve the given qualifiers of the row.
+	 * @param row the row key
+	 * @param qualifiers the qualifiers to retrieve
+	 * @return the future of the row */
+	public abstract ListenableFuture<Result> get(final byte[] row, final byte[][] qualifiers);
+
+	/**
+	 * Single get to retrieve the given qualifiers of the row whose value is no less than min.
+	 * @param row the row key
+	 * @param qualifiers the qualifiers to retrieve
+	 * @param min the minimum value
+	 * @return the future of the row */
+	public abstract ListenableFuture<Result> get(final byte[] row, final byte[][] qualifiers, final byte[] min);
+
+	/**
+	 * Multiple get to retrieve the given qualifiers of the rows, sent as a single batch.
+	 * @param rows the row keys
+	 * @param qualifiers the qualifiers to retrieve, none to retrieve all of them
+	 * @return the future of the rows, in the same order */
+	public abstract ListenableFuture<Result[]> get(final byte[][] rows, final byte[][] qualifiers);
+
+	/**
+	 * Multiple get to retrieve the given qualifiers of the rows whose value is no less than min, sent as a single batch.
+	 * @param rows the row keys
+	 * @param qualifiers the qualifiers to retrieve, none to retrieve all of them
+	 * @param min the minimum value
+	 * @return the future of the rows, in the same order */
+	public abstract ListenableFuture<Result[]> get(final byte[][] rows, final byte[][] qualifiers, final byte[] min);
+
+	/**
+	 * Multiple get to retrieve the rows in the time range.
+	 * @param rows the row keys
+	 * @param columnFamilies the column families to retrieve
+	 * @param timeRange the time range
+	 * @return the future of the rows */
+	public abstract ListenableFuture<Result[]> get(final byte[][] rows, final byte[][] columnFamilies, final long[] timeRange);
+
+	/**
+	 * Single get to retrieve the qualifiers of the row starting with one of the prefixes and whose value is no less than min.
+	 * @param row the row key
+	 * @param qualifiersPrefix the prefixes of the qualifiers
+	 * @param min the minimum value
+	 * @return the future of the row */
+	public abstract ListenableFuture<Result> getPrefix(final byte[] row, final byte[][] qualifiersPrefix, final byte[] min);
+
+	/**
+	 * Scan of the rows in the range.
+	 * @param lowerRow the first row key, inclusive
+	 * @param upperRow the last row key, exclusive
+	 * @return the future of the rows */
+	public abstract ListenableFuture<Result[]> scan(final byte[] lowerRow, final byte[] upperRow);
+
+	/**
+	 * Scan of the given qualifiers of the rows in the range.
+	 * @param lowerRow the first row key, inclusive
+	 * @param upperRow the last row key, exclusive
+	 * @param qualifiers the qualifiers to retrieve
+	 * @return the future of the rows */
+	public abstract ListenableFuture<Result[]> scan(final byte[] lowerRow, final byte[] upperRow, final byte[][] qualifiers);
+
+	/**
+	 * Scan of the qualifiers starting with one of the prefixes, of the rows in the range.
+	 * @param lowerRow the first row key, inclusive
+	 * @param upperRow the last row key, exclusive
+	 * @param qualifiersPrefix the prefixes of the qualifiers
+	 * @return the future of the rows */
+	public abstract ListenableFuture<Result[]> scanPrefix(final byte[] lowerRow, final byte[] upperRow, final byte[][] qualifiersPrefix);
+
+	/**
+	 * Method to execute coprocessorExec method from the HTable
+	 * @param startKey the start row key for the internal scan
+	 * @param endKey the end row key for the internal scan
+	 * @param callable the unit of work to execute
+	 * @return the future of the results from the execution in the regions
+	 */
+	public abstract <T extends CoprocessorProtocol,R> ListenableFuture<Map<byte[],R>> coprocessorExec(final Class<T> protocol,
+													final byte[] startKey, final byte[] endKey, final Batch.Call<T,R> callable);
+
+	/**
+	 * Runs some blocking work against the table, such as consuming a scanner, without blocking the caller.
+	 * @param call the work to run
+	 * @return the future of the result of the work */
+	public abstract <T> ListenableFuture<T> submit(final HBaseCall<T> call);
+
+
+	/**
+	 * Unit of blocking work against a table
+	 */
+	public interface HBaseCall<T> {
+
+		/**
+		 * Runs the work
+		 * @param client the blocking client of the table
+		 * @return the result of the work */
+		public abstract T call(final HBaseClient client) throws IOException;
+	}
+}
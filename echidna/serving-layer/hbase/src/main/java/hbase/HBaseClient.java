@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Map;
 
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
 import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
 
@@ -256,6 +257,99 @@ public interface HBaseClient {
 	public abstract Result[] scanPrefix(final byte[] rowPrefix, final byte[][] qualifiersPrefix) throws IOException;
 	
 	
+	/**
+	 * Lazy scan over the results in the row range.
+	 * The returned scanner pulls rows from the region servers as it is iterated and must be closed by the caller.
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded) */
+	public abstract ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over the columns in the row and column ranges, to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param lowerQualifier the smallest qualifier (column) value in the range (included)
+	 * @param upperQualifier the biggest qualifier (column) value in the range (excluded) */
+	public abstract ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow,
+									final byte[] lowerQualifier, final byte[] upperQualifier) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over specific columns in the row range, containing allowed values, to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param lowerQualifier the smallest qualifier (column) value in the range (included)
+	 * @param upperQualifier the biggest qualifier (column) value in the range (excluded) 
+	 * @param allowedValues the list of allowed values to consider */
+	public abstract ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow, final byte[] lowerQualifier,
+									final byte[] upperQualifier, final byte[][] allowedValues) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over specific columns in the row range, to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param qualifiers the array of the specified columns to look for */
+	public abstract ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow,
+									final byte[][] qualifiers) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over specific columns in the row range containing a minimum value, to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param qualifiers the array of the specified columns to look for
+	 * @param min the minimum allowed value */
+	public abstract ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow,
+					final byte[][] qualifiers, final byte[] min) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over specific columns in the row range containing a minimum value, to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param qualifiersPrefix the array of prefixes columns should start with
+	 * @param min the minimum allowed value */
+	public abstract ResultScanner openPrefixScanner(final byte[] lowerRow, final byte[] upperRow,
+					final byte[][] qualifiersPrefix, final byte[] min) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over specific columns in the row range(specified by a prefix) containing a minimum value,
+	 * to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param rowPrefix the prefix of the row key to look for
+	 * @param qualifiersPrefix the array of prefixes columns should start with
+	 * @param min the minimum allowed value */
+	public abstract ResultScanner openPrefixScanner(final byte[] rowPrefix, final byte[][] qualifiersPrefix,
+					final byte[] min) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over the results in the row range belonging to specific columns, to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param qualifiersPrefix the array of prefixes columns should start with */
+	public abstract ResultScanner openPrefixScanner(final byte[] lowerRow, final byte[] upperRow,
+					final byte[][] qualifiersPrefix) throws IOException;
+	
+	
+	/**
+	 * Lazy scan over specific columns in the row range(specified by a prefix), to be closed by the caller
+	 * @return the scanner over the results satisfying the query
+	 * @param rowPrefix the prefix of the row key to look for
+	 * @param qualifiersPrefix the array of prefixes columns should start with */
+	public abstract ResultScanner openPrefixScanner(final byte[] rowPrefix, final byte[][] qualifiersPrefix) throws IOException;
+	
+	
 	/**
 	 * Single get to retrieve specific columns, containing a minimum value 
 	 * @return the results satisfying the query
@@ -297,6 +391,37 @@ public interface HBaseClient {
 	 * @param qualifiers the array of the specified columns to look for
 	 * @param min the minimum allowed value */
 	public abstract Result get(final byte[] row, final byte[][] qualifiers, final byte[] min) throws IOException;
+	
+	/**
+	 * Multiple get to return the rows, sent as a single batch grouped by region server
+	 * @return the results satisfying the query, one per row and in the same order (empty if the row is missing)
+	 * @param rows the row keys */
+	public abstract Result[] get(final byte[][] rows) throws IOException;
+	
+	
+	/**
+	 * Multiple get to return the cells of the rows whose value is no less than min, sent as a single batch grouped by region server
+	 * @return the results satisfying the query, one per row and in the same order (empty if the row is missing)
+	 * @param rows the row keys
+	 * @param min the minimum allowed value */
+	public abstract Result[] get(final byte[][] rows, final byte[] min) throws IOException;
+	
+	
+	/**
+	 * Multiple get to return the results belonging to specified columns, sent as a single batch grouped by region server
+	 * @return the results satisfying the query, one per row and in the same order (empty if the row is missing)
+	 * @param rows the row keys
+	 * @param qualifiers the array of the specified columns to look for */
+	public abstract Result[] get(final byte[][] rows, final byte[][] qualifiers) throws IOException;
+	
+	
+	/**
+	 * Multiple get to return the results belonging to specified columns, sent as a single batch grouped by region server
+	 * @return the results satisfying the query, one per row and in the same order (empty if the row is missing)
+	 * @param rows the row keys
+	 * @param qualifiers the array of the specified columns to look for
+	 * @param min the minimum allowed value */
+	public abstract Result[] get(final byte[][] rows, final byte[][] qualifiers, final byte[] min) throws IOException;
 
 	
 	/**
@@ -0,0 +1,179 @@
+package hbase.impls;
+
+import hbase.AsyncHBaseClient;
+import hbase.HBaseClient;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Implementation of AsyncHBaseClient. The reads run on a bounded pool shared by all the tables,
+ * each pool thread using its own handle of the table, so the caller never waits for them.
+ * @author Daniele Morgantini
+ * */
+public class AsyncHTableManager implements AsyncHBaseClient {
+
+	private HBaseClient client;
+
+	private ListeningExecutorService pool;
+
+
+	/**
+	 * Creates an instance of AsyncHTableManager
+	 * @return an instance of AsyncHTableManager
+	 * @param client the thread-safe blocking client of the table
+	 * @param pool the pool to run the reads on
+	 */
+	public AsyncHTableManager(final HBaseClient client, final ExecutorService pool) {
+		this.client = client;
+		this.pool = MoreExecutors.listeningDecorator(pool);
+	}
+
+	@Override
+	public ListenableFuture<Result> get(final byte[] row) {
+		return this.submit(new HBaseCall<Result>() {
+			@Override
+			public Result call(final HBaseClient client) throws IOException {
+				return client.get(row);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result> get(final byte[] row, final byte[] min) {
+		return this.submit(new HBaseCall<Result>() {
+			@Override
+			public Result call(final HBaseClient client) throws IOException {
+				return client.get(row, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result> get(final byte[] row, final byte[][] qualifiers) {
+		return this.submit(new HBaseCall<Result>() {
+			@Override
+			public Result call(final HBaseClient client) throws IOException {
+				return client.get(row, qualifiers);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result> get(final byte[] row, final byte[][] qualifiers, final byte[] min) {
+		return this.submit(new HBaseCall<Result>() {
+			@Override
+			public Result call(final HBaseClient client) throws IOException {
+				return client.get(row, qualifiers, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result[]> get(final byte[][] rows, final byte[][] qualifiers) {
+		return this.submit(new HBaseCall<Result[]>() {
+			@Override
+			public Result[] call(final HBaseClient client) throws IOException {
+				return client.get(rows, qualifiers);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result[]> get(final byte[][] rows, final byte[][] qualifiers, final byte[] min) {
+		return this.submit(new HBaseCall<Result[]>() {
+			@Override
+			public Result[] call(final HBaseClient client) throws IOException {
+				return client.get(rows, qualifiers, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result[]> get(final byte[][] rows, final byte[][] columnFamilies, final long[] timeRange) {
+		return this.submit(new HBaseCall<Result[]>() {
+			@Override
+			public Result[] call(final HBaseClient client) throws IOException {
+				return client.get(rows, columnFamilies, timeRange);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result> getPrefix(final byte[] row, final byte[][] qualifiersPrefix, final byte[] min) {
+		return this.submit(new HBaseCall<Result>() {
+			@Override
+			public Result call(final HBaseClient client) throws IOException {
+				return client.getPrefix(row, qualifiersPrefix, min);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result[]> scan(final byte[] lowerRow, final byte[] upperRow) {
+		return this.submit(new HBaseCall<Result[]>() {
+			@Override
+			public Result[] call(final HBaseClient client) throws IOException {
+				return client.scan(lowerRow, upperRow);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result[]> scan(final byte[] lowerRow, final byte[] upperRow, final byte[][] qualifiers) {
+		return this.submit(new HBaseCall<Result[]>() {
+			@Override
+			public Result[] call(final HBaseClient client) throws IOException {
+				return client.scan(lowerRow, upperRow, qualifiers);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Result[]> scanPrefix(final byte[] lowerRow, final byte[] upperRow, final byte[][] qualifiersPrefix) {
+		return this.submit(new HBaseCall<Result[]>() {
+			@Override
+			public Result[] call(final HBaseClient client) throws IOException {
+				return client.scanPrefix(lowerRow, upperRow, qualifiersPrefix);
+			}
+		});
+	}
+
+	@Override
+	public <T extends CoprocessorProtocol,R> ListenableFuture<Map<byte[],R>> coprocessorExec(final Class<T> protocol,
+													final byte[] startKey, final byte[] endKey, final Batch.Call<T,R> callable) {
+		return this.submit(new HBaseCall<Map<byte[],R>>() {
+			@Override
+			public Map<byte[],R> call(final HBaseClient client) throws IOException {
+				try {
+					return client.coprocessorExec(protocol, startKey, endKey, callable);
+				} catch (IOException e) {
+					throw e;
+				} catch (Throwable t) {
+					throw new IOException(t);
+				}
+			}
+		});
+	}
+
+	@Override
+	public <T> ListenableFuture<T> submit(final HBaseCall<T> call) {
+		return this.pool.submit(new Callable<T>() {
+			@Override
+			public T call() throws IOException {
+				return call.call(client);
+			}
+		});
+	}
+
+}
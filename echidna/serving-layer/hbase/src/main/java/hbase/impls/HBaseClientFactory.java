@@ -1,9 +1,22 @@
 package hbase.impls;
 
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import hbase.AsyncHBaseClient;
 import hbase.HBaseAdministrator;
 import hbase.HBaseClient;
+import hbase.query.time.Rollup;
 
 /**
  * Simple factory to create single instances of HBaseClients.
@@ -12,7 +25,22 @@ import hbase.HBaseClient;
  */
 public class HBaseClientFactory {
 	
+	/** System property to keep the tables in memory instead of connecting to HBase */
+	public static final String INMEMORY = "echidna.hbase.inmemory";
+	
+	/** System property with the number of simulated regions of the in-memory tables */
+	public static final String INMEMORYREGIONS = "echidna.hbase.inmemory.regions";
+	
+	/** System property telling that the weekly and yearly rollups of the mentions (mentionedByWeek, mentionedByYear) are loaded */
+	public static final String ROLLUPS = "echidna.hbase.rollups";
+	
+	private static final int DEFAULTREGIONS = 4;
+	
+	private static final String COLUMNFAMILY = "t";
+	
 	private static HBaseClientFactory instance;
+	
+	private int inMemoryRegions;
 
 	private HBaseAdministrator admin;
 	
@@ -22,6 +50,12 @@ public class HBaseClientFactory {
 	
 	private HBaseClient mentionedByDay;
 	
+	private HBaseClient mentionedByWeek;
+	
+	private HBaseClient mentionedByYear;
+	
+	private volatile boolean rollups = Boolean.getBoolean(ROLLUPS);
+	
 	private HBaseClient followedBy;
 
 	private HBaseClient follow;
@@ -37,6 +71,30 @@ public class HBaseClientFactory {
 	private static int LARGEBATCH = 50;
 	private static int MEDIUMBATCH = 25;
 	private static int SMALLBATCH = 15;
+	
+	private static int ASYNCWORKERS = 16;
+	
+	private static int SCANWORKERS = 16;
+	
+	private static int SCANPARALLELISM = 4;
+	
+	/** Rows per RPC of the scans over tables with a few columns per row, e.g. the mentions of an author in a month */
+	private static int NARROWCACHING = 200;
+	
+	/** Results per RPC of the scans over tables with very wide rows, each result holding up to a batch of their columns */
+	private static int WIDECACHING = 500;
+	
+	private static long MAXRESULTSIZE = 4L * 1024 * 1024;
+	
+	private ExecutorService pool;
+	
+	private ExecutorService scanPool;
+	
+	private Configuration conf = HBaseConfiguration.create();
+	
+	private Map<String,HTableManager> managers = new ConcurrentHashMap<String,HTableManager>();
+	
+	private Map<String,ScanProfile> profiles = new ConcurrentHashMap<String,ScanProfile>();
 
 	
 	private HBaseClientFactory() {
@@ -47,74 +105,237 @@ public class HBaseClientFactory {
 		}
 	}
 	
-	private HBaseClient createHBaseClient(final String tableName, final int batching) {
-		HBaseClient client = null;
-		try {
-			client = new HTableManager(this.admin.getTable(tableName), batching);
-		} catch (IOException e) {
-			e.printStackTrace();
+	private HBaseClientFactory(final int inMemoryRegions) {
+		this.inMemoryRegions = inMemoryRegions;
+	}
+	
+	private HBaseClient createHBaseClient(final String tableName, final ScanProfile defaults, final boolean ordered) {
+		ScanProfile profile = this.profiles.get(tableName);
+		if(profile == null)
+			profile = ScanProfile.fromConfiguration(this.conf, tableName, defaults);
+		
+		HTableManager client = null;
+		if(this.inMemoryRegions > 0)
+			client = new HTableManager(new InMemoryHTable(tableName, InMemoryHTable.decimalSplits(this.inMemoryRegions), COLUMNFAMILY), profile);
+		else {
+			try {
+				client = new HTableManager(this.admin.getTable(tableName), profile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return null;
+			}
 		}
+		client.setParallelScans(this.scanPool(), SCANPARALLELISM, ordered);
+		this.managers.put(tableName, client);
+		/* a profile set while the client was being created would otherwise be lost */
+		ScanProfile latest = this.profiles.get(tableName);
+		if(latest != null && latest != profile)
+			client.setScanProfile(latest);
 		return client;
 	}
 	
+	/**
+	 * Retrieves the pool the clients read the regions of their scans on, shared by all the tables
+	 * @return the pool of the scans
+	 */
+	private synchronized ExecutorService scanPool() {
+		if(this.scanPool == null)
+			this.scanPool = Executors.newFixedThreadPool(SCANWORKERS,
+						new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hbase-scan-%d").build());
+		return this.scanPool;
+	}
+	
 	public static synchronized HBaseClientFactory getInstance() {
-		if(instance == null)
-			instance = new HBaseClientFactory();
+		if(instance == null) {
+			if(Boolean.getBoolean(INMEMORY))
+				instance = new HBaseClientFactory(Integer.getInteger(INMEMORYREGIONS, DEFAULTREGIONS));
+			else
+				instance = new HBaseClientFactory();
+		}
 		return instance;
 	}
+	
+	/**
+	 * Replaces the shared factory with one whose clients keep empty tables in memory, to be filled through the clients.
+	 * It must be called before creating the queries, since the subqueries retrieve their clients when created.
+	 * @return the shared factory
+	 * @param regions the number of simulated regions of each table
+	 */
+	public static synchronized HBaseClientFactory useInMemory(final int regions) {
+		instance = new HBaseClientFactory(Math.max(regions, 1));
+		return instance;
+	}
+
+	/**
+	 * Creates the default settings of the scans over a table with a few columns per row
+	 * @return the default settings of the scans
+	 * @param batch the maximum number of columns per result
+	 * @param cacheBlocks false for the tables read by one-off scans over many rows, which would evict the hot blocks
+	 */
+	private static ScanProfile narrow(final int batch, final boolean cacheBlocks) {
+		return new ScanProfile(NARROWCACHING, batch, MAXRESULTSIZE, cacheBlocks);
+	}
+	
+	/**
+	 * Creates the default settings of the scans over a table with very wide rows
+	 * @return the default settings of the scans
+	 * @param batch the maximum number of columns per result
+	 */
+	private static ScanProfile wide(final int batch) {
+		return new ScanProfile(WIDECACHING, batch, MAXRESULTSIZE, true);
+	}
 
-	public HBaseClient getMentionedBy() {
-		this.mentionedBy = this.instantiateClient(this.mentionedBy, "mentionedBy", SMALLBATCH);
+	public synchronized HBaseClient getMentionedBy() {
+		this.mentionedBy = this.instantiateClient(this.mentionedBy, "mentionedBy", narrow(SMALLBATCH, true), false);
 		return this.mentionedBy ;
 	}
 	
-	public HBaseClient getMentionedByMonth() {
-		this.mentionedByMonth = this.instantiateClient(this.mentionedByMonth, "mentionedByMonth", MEDIUMBATCH);
+	public synchronized HBaseClient getMentionedByMonth() {
+		this.mentionedByMonth = this.instantiateClient(this.mentionedByMonth, "mentionedByMonth", narrow(MEDIUMBATCH, true), false);
 		return this.mentionedByMonth;
 	}
 	
-	public HBaseClient getMentionedByDay() {
-		this.mentionedByDay = this.instantiateClient(this.mentionedByDay, "mentionedByDay", LARGEBATCH);
+	public synchronized HBaseClient getMentionedByDay() {
+		this.mentionedByDay = this.instantiateClient(this.mentionedByDay, "mentionedByDay", narrow(LARGEBATCH, true), false);
 		return this.mentionedByDay;
 	}
 	
-	public HBaseClient getFollowedBy() {
-		this.followedBy = this.instantiateClient(this.followedBy, "followedBy", MEDIUMBATCH);
+	public synchronized HBaseClient getMentionedByWeek() {
+		this.mentionedByWeek = this.instantiateClient(this.mentionedByWeek, "mentionedByWeek", narrow(MEDIUMBATCH, true), false);
+		return this.mentionedByWeek;
+	}
+	
+	public synchronized HBaseClient getMentionedByYear() {
+		this.mentionedByYear = this.instantiateClient(this.mentionedByYear, "mentionedByYear", narrow(SMALLBATCH, true), false);
+		return this.mentionedByYear;
+	}
+	
+	/**
+	 * Retrieves the client of the table holding the mentions aggregated with the given granularity
+	 * @return the client of the table
+	 * @param rollup the granularity of the aggregation
+	 */
+	public HBaseClient getMentionedBy(final Rollup rollup) {
+		switch(rollup) {
+		case YEAR:
+			return this.getMentionedByYear();
+		case MONTH:
+			return this.getMentionedByMonth();
+		case WEEK:
+			return this.getMentionedByWeek();
+		default:
+			return this.getMentionedByDay();
+		}
+	}
+	
+	/**
+	 * Retrieves the granularities of the mentions the time windows can be covered with
+	 * @return the months and the days, along with the weeks and the years if their rollups are loaded
+	 */
+	public Set<Rollup> getRollups() {
+		if(this.rollups)
+			return EnumSet.allOf(Rollup.class);
+		return EnumSet.of(Rollup.MONTH, Rollup.DAY);
+	}
+	
+	/**
+	 * Tells whether the time windows can be covered with the weekly and yearly rollups too, overriding the system property
+	 * @param rollups true if mentionedByWeek and mentionedByYear are loaded
+	 */
+	public void setRollups(final boolean rollups) {
+		this.rollups = rollups;
+	}
+	
+	public synchronized HBaseClient getFollowedBy() {
+		this.followedBy = this.instantiateClient(this.followedBy, "followedBy", wide(MEDIUMBATCH));
 		return this.followedBy;
 	}
 
-	public HBaseClient getFollow() {
-		this.follow = this.instantiateClient(this.follow, "follow", MEDIUMBATCH);
+	public synchronized HBaseClient getFollow() {
+		this.follow = this.instantiateClient(this.follow, "follow", wide(MEDIUMBATCH));
 		return this.follow;
 	}
 	
-	public HBaseClient getWhoseFollowersFollow() {
-		this.whoseFollowersFollow = this.instantiateClient(this.whoseFollowersFollow, "wff", LARGEBATCH);
+	public synchronized HBaseClient getWhoseFollowersFollow() {
+		this.whoseFollowersFollow = this.instantiateClient(this.whoseFollowersFollow, "wff", wide(LARGEBATCH));
 		return this.whoseFollowersFollow;
 	}
 	
-	public HBaseClient getWhoseFollowersAreFollowedBy() {
-		this.whoseFollowersAreFollowedBy = this.instantiateClient(this.whoseFollowersAreFollowedBy, "wfafb", LARGEBATCH);
+	public synchronized HBaseClient getWhoseFollowersAreFollowedBy() {
+		this.whoseFollowersAreFollowedBy = this.instantiateClient(this.whoseFollowersAreFollowedBy, "wfafb", wide(LARGEBATCH));
 		return this.whoseFollowersAreFollowedBy;
 	}
 	
-	public HBaseClient getWhoseFollowersMentionedMonth() {
+	public synchronized HBaseClient getWhoseFollowersMentionedMonth() {
 		this.whoseFollowersMentionedMonth = this.instantiateClient(this.whoseFollowersMentionedMonth, 
-												"wfmMonth", LARGEBATCH);
+												"wfmMonth", narrow(LARGEBATCH, false));
 		return this.whoseFollowersMentionedMonth;
 	}
 	
-	public HBaseClient getWhoseFollowersMentionedDay() {
+	public synchronized HBaseClient getWhoseFollowersMentionedDay() {
 		this.whoseFollowersMentionedDay = this.instantiateClient(this.whoseFollowersMentionedDay,
-												"wfmDay", MEDIUMBATCH);
+												"wfmDay", narrow(MEDIUMBATCH, false));
 		return this.whoseFollowersMentionedDay;
 	}
 	
 	
-	private HBaseClient instantiateClient(final HBaseClient table, final String name, final int batching) {
+	/**
+	 * Retrieves an asynchronous client reading the same table as the given one.
+	 * All the asynchronous clients share a bounded pool of threads.
+	 * @return an asynchronous client of the table
+	 * @param client the blocking client of the table
+	 */
+	public synchronized AsyncHBaseClient getAsync(final HBaseClient client) {
+		if(this.pool == null)
+			this.pool = Executors.newFixedThreadPool(ASYNCWORKERS,
+						new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hbase-client-%d").build());
+		return new AsyncHTableManager(client, this.pool);
+	}
+	
+	
+	private HBaseClient instantiateClient(final HBaseClient table, final String name, final ScanProfile defaults) {
+		return this.instantiateClient(table, name, defaults, true);
+	}
+	
+	/**
+	 * Creates the client of the table if not created yet. The getters calling it are synchronized,
+	 * so that concurrent requests share a single client, and a single in-memory table, per table.
+	 * @return the client of the table
+	 * @param table the client of the table, null if not created yet
+	 * @param name the name of the table
+	 * @param defaults the settings of the scans over the table missing from the configuration
+	 * @param ordered false if the readers of the table only aggregate the results of its scans, so they need not be in row key order
+	 */
+	private HBaseClient instantiateClient(final HBaseClient table, final String name, final ScanProfile defaults, final boolean ordered) {
 		HBaseClient client = table;
 		if(client == null)
-			client = createHBaseClient(name, batching);
+			client = createHBaseClient(name, defaults, ordered);
 		return client;
 	}
+	
+	
+	/**
+	 * Retrieves the settings of the scans over a table
+	 * @return the settings of the scans, null if the client of the table has not been created yet
+	 * @param table the name of the table
+	 */
+	public ScanProfile getScanProfile(final String table) {
+		HTableManager client = this.managers.get(table);
+		if(client == null)
+			return this.profiles.get(table);
+		return client.getScanProfile();
+	}
+	
+	/**
+	 * Changes the settings of the scans over a table at runtime, overriding the configuration.
+	 * They take effect from the next scan, or when the client of the table is created.
+	 * @param table the name of the table
+	 * @param profile the settings of the scans
+	 */
+	public void setScanProfile(final String table, final ScanProfile profile) {
+		this.profiles.put(table, profile);
+		HTableManager client = this.managers.get(table);
+		if(client != null)
+			client.setScanProfile(profile);
+	}
 }
@@ -3,46 +3,198 @@ package hbase.impls;
 import hbase.HBaseClient;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.ClientScanner;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
-import org.apache.hadoop.hbase.filter.ColumnPrefixFilter;
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.filter.BinaryComparator;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
-import org.apache.hadoop.hbase.filter.PrefixFilter;
 import org.apache.hadoop.hbase.filter.QualifierFilter;
 import org.apache.hadoop.hbase.filter.ValueFilter;
 import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.coprocessors.AuthorAggregatorEndpoint;
+import org.coprocessors.filter.QualifierPrefixSetFilter;
+import org.coprocessors.filter.QualifierSeekFilter;
+import org.coprocessors.filter.ValueSetFilter;
 
 /**
  * Implementation of HBaseClient to communicate with HBase for perfoming CRUD operations on HTable rows.
  * @author Daniele Morgantini
  * */
 public class HTableManager implements HBaseClient {
+	
+	/** Number of qualifiers above which they are read through a seeking filter rather than as explicit columns */
+	private static final int SEEKTHRESHOLD = 32;
+	
+	/** Time after which the region boundaries are looked up again, in milliseconds */
+	private static final long REGIONSREFRESH = 60000L;
 				   
-	private HTable table;
+	private HTableInterface table;
+	
+	private volatile ScanProfile profile;
+	
+	private volatile Configuration scanConf;
+	
+	private ExecutorService scanPool;
 	
-	private int batching;
+	private int scanParallelism;
+	
+	private boolean scanOrdered;
+	
+	private volatile byte[][] regionStarts;
+	
+	private volatile long regionStartsTime;
 	
     /**
      * No argument contructor
      * @return an instance of the HBaseClient */
-	public HTableManager(final HTable table, final int batching){
+	public HTableManager(final HTableInterface table, final int batching){
+		this(table, new ScanProfile(0, batching, 0L, true));
+	}
+	
+	
+	/**
+	 * Creates an instance of HTableManager
+	 * @return an instance of the HBaseClient
+	 * @param table the table
+	 * @param profile the settings of the scans over the table */
+	public HTableManager(final HTableInterface table, final ScanProfile profile){
 		this.table = table;
-		this.batching = batching;
+		this.setScanProfile(profile);
+	}
+	
+	
+	/**
+	 * Retrieves the settings of the scans over the table
+	 * @return the settings of the scans */
+	public ScanProfile getScanProfile() {
+		return this.profile;
+	}
+	
+	
+	/**
+	 * Changes the settings of the scans over the table, taking effect from the next scan
+	 * @param profile the settings of the scans */
+	public void setScanProfile(final ScanProfile profile) {
+		
+		Configuration conf = null;
+		if(profile.getMaxResultSize() > 0 && this.table instanceof HTable) {
+			conf = new Configuration(this.table.getConfiguration());
+			conf.setLong(HConstants.HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE_KEY, profile.getMaxResultSize());
+		}
+		this.scanConf = conf;
+		this.profile = profile;
+	}
+	
+	
+	/**
+	 * Makes the scans returning all their results at once split the row range on the region boundaries
+	 * and read the pieces concurrently. The calling thread reads pieces too, so a busy pool only slows the scans down.
+	 * @param pool the pool to read the pieces on
+	 * @param parallelism the maximum number of pieces read at the same time by a scan, the calling thread included
+	 * @param ordered true to return the results in row key order, false to return them as the pieces complete
+	 */
+	public void setParallelScans(final ExecutorService pool, final int parallelism, final boolean ordered) {
+		this.scanPool = pool;
+		this.scanParallelism = parallelism;
+		this.scanOrdered = ordered;
+	}
+	
+	
+	/**
+	 * Opens a table handle for a single operation, to be released as soon as it is done, since an HTable must not be shared among threads.
+	 * The handles are opened on the connection of the original table, so they share its region cache and its batch pool
+	 * and are cheap to open and close. Any other kind of table is expected to be thread-safe and is shared.
+	 * @return the table handle */
+	@SuppressWarnings("deprecation")
+	private HTableInterface table() throws IOException {
+		
+		if(this.table instanceof HTable) {
+			HTable htable = (HTable) this.table;
+			return htable.getConnection().getTable(htable.getTableName());
+		}
+		return this.table;
+	}
+	
+	
+	/**
+	 * Releases a table handle opened by table()
+	 * @param handle the handle to release */
+	private void release(final HTableInterface handle) throws IOException {
+		
+		if(handle != this.table)
+			handle.close();
+	}
+	
+	
+	/**
+	 * Reads a row on a handle of its own
+	 * @return the result of the get
+	 * @param get the get to execute */
+	private Result fetch(final Get get) throws IOException {
+		
+		HTableInterface handle = this.table();
+		try {
+			return handle.get(get);
+		} finally {
+			this.release(handle);
+		}
+	}
+	
+	
+	/**
+	 * Reads some rows on a handle of their own
+	 * @return the results of the gets
+	 * @param gets the gets to execute */
+	private Result[] fetch(final List<Get> gets) throws IOException {
+		
+		HTableInterface handle = this.table();
+		try {
+			return handle.get(gets);
+		} finally {
+			this.release(handle);
+		}
+	}
+	
+	
+	/**
+	 * Retrieves the column families of the table
+	 * @return the column families */
+	private HColumnDescriptor[] families() throws IOException {
+		
+		HTableInterface handle = this.table();
+		try {
+			return handle.getTableDescriptor().getColumnFamilies();
+		} finally {
+			this.release(handle);
+		}
 	}
 	
 	
@@ -52,7 +204,12 @@ public class HTableManager implements HBaseClient {
 		
 		Put tableRow = new Put(row)
 						   .add(colfam, col, ts, value);
-		this.table.put(tableRow);		
+		HTableInterface handle = this.table();
+		try {
+			handle.put(tableRow);
+		} finally {
+			this.release(handle);
+		}
 	}
 	
 	
@@ -67,7 +224,12 @@ public class HTableManager implements HBaseClient {
 							   .add(colfams[i], cols[i], tss[i], values[i]);
 			tableRows.add(tableRow);
 		}
-		this.table.put(tableRows);
+		HTableInterface handle = this.table();
+		try {
+			handle.put(tableRows);
+		} finally {
+			this.release(handle);
+		}
 	}
 	
 	
@@ -75,7 +237,12 @@ public class HTableManager implements HBaseClient {
 	public boolean exists(final byte[] row) throws IOException {
 		
 		Get tableRow = new Get(row);
-		return this.table.exists(tableRow);
+		HTableInterface handle = this.table();
+		try {
+			return handle.exists(tableRow);
+		} finally {
+			this.release(handle);
+		}
 	}
 	
 	
@@ -96,7 +263,7 @@ public class HTableManager implements HBaseClient {
 		Get tableRow = new Get(row)
 					   .setFilter(valueFilter);
 				
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -107,7 +274,7 @@ public class HTableManager implements HBaseClient {
 		Get tableRow = prepareGet(row, columnFamilies, 0, timeRange)
 				       .setMaxVersions(maxVersions);
 		
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -117,7 +284,7 @@ public class HTableManager implements HBaseClient {
 		
 		Get tableRow = prepareGet(row, columnFamilies, timeStamp, null)
 					   .setMaxVersions(maxVersions);
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -125,7 +292,7 @@ public class HTableManager implements HBaseClient {
 	public Result get(final byte[] row, final byte[][] columnFamilies, final long[] timeRange) throws IOException {
 		
 		Get tableRow = prepareGet(row, columnFamilies, 0, timeRange);
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}	
 	
 	
@@ -133,7 +300,7 @@ public class HTableManager implements HBaseClient {
 	public Result get(final byte[] row, final byte[][] columnFamilies, final long timeStamp) throws IOException {
 		
 		Get tableRow = prepareGet(row, columnFamilies, timeStamp, null);		
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -142,7 +309,7 @@ public class HTableManager implements HBaseClient {
 		
 		Get tableRow = prepareGet(row, columnFamilies, 0, timeRange)
 					   .setMaxVersions();
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -151,7 +318,7 @@ public class HTableManager implements HBaseClient {
 		
 		Get tableRow = prepareGet(row, columnFamilies, timeStamp, null)
 				       .setMaxVersions();
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -159,7 +326,7 @@ public class HTableManager implements HBaseClient {
 	public Result getHistory(final byte[] row, final byte[][] columnFamilies) throws IOException {
 		
 		Get tableRow = prepareGetHistory(row, columnFamilies);
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	
@@ -172,7 +339,7 @@ public class HTableManager implements HBaseClient {
 			tableRow = prepareGet(row, columnFamilies, 0, timeRange);
 			gets.add(tableRow);
 		}
-		return this.table.get(gets);
+		return this.fetch(gets);
 	}
 	
 	
@@ -185,7 +352,7 @@ public class HTableManager implements HBaseClient {
 			tableRow = prepareGet(row, columnFamilies, timeStamp, null);
 			gets.add(tableRow);
 		}
-		return this.table.get(gets);
+		return this.fetch(gets);
 	}
 	
 	
@@ -234,7 +401,12 @@ public class HTableManager implements HBaseClient {
 		
 		Delete tableRow = new Delete(row)
 					      .deleteColumns(colfam, col, ts);
-		this.table.delete(tableRow);		
+		HTableInterface handle = this.table();
+		try {
+			handle.delete(tableRow);
+		} finally {
+			this.release(handle);
+		}
 	}
 	
 	
@@ -242,7 +414,12 @@ public class HTableManager implements HBaseClient {
 	public void delete(final byte[] row) throws IOException {
 
 		Delete tableRow = new Delete(row);
-		this.table.delete(tableRow);		
+		HTableInterface handle = this.table();
+		try {
+			handle.delete(tableRow);
+		} finally {
+			this.release(handle);
+		}
 	}
 	
 	
@@ -257,7 +434,12 @@ public class HTableManager implements HBaseClient {
 			                  .deleteColumns(colfams[i], cols[i], tss[i]);
 			deleteRows.add(deleteRow);
 		}
-		this.table.delete(deleteRows);
+		HTableInterface handle = this.table();
+		try {
+			handle.delete(deleteRows);
+		} finally {
+			this.release(handle);
+		}
 	}
 
 
@@ -266,7 +448,7 @@ public class HTableManager implements HBaseClient {
 							final byte[] upperQualifier) throws IOException {
 		
 		byte[][] allowedValues = new byte[0][];
-		return this.scan(lowerRow, upperRow, lowerQualifier, upperQualifier, allowedValues);
+		return this.read(this.rangeScan(lowerRow, upperRow, lowerQualifier, upperQualifier, allowedValues));
 	}
 	
 	
@@ -274,6 +456,38 @@ public class HTableManager implements HBaseClient {
 	public Result[] scan(final byte[] lowerRow, final byte[] upperRow, final byte[] lowerQualifier,
 							final byte[] upperQualifier, final byte[][] allowedValues) throws IOException {
 		
+		return this.read(this.rangeScan(lowerRow, upperRow, lowerQualifier, upperQualifier, allowedValues));
+	}
+	
+	
+	@Override
+	public ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow, final byte[] lowerQualifier,
+							final byte[] upperQualifier) throws IOException {
+		
+		byte[][] allowedValues = new byte[0][];
+		return this.openScanner(lowerRow, upperRow, lowerQualifier, upperQualifier, allowedValues);
+	}
+	
+	
+	@Override
+	public ResultScanner openScanner(final byte[] lowerRow, final byte[] upperRow, final byte[] lowerQualifier,
+							final byte[] upperQualifier, final byte[][] allowedValues) throws IOException {
+		
+		return this.getScanner(this.rangeScan(lowerRow, upperRow, lowerQualifier, upperQualifier, allowedValues));
+	}
+	
+	
+	/** 
+	 * Prepares the scan over the row range and the qualifier range
+	 * @return the scan to be executed
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param lowerQualifier the smallest qualifier to look for (included)
+	 * @param upperQualifier the biggest qualifier to look for (included)
+	 * @param allowedValues the values to look for, none to look for all of them */
+	private Scan rangeScan(final byte[] lowerRow, final byte[] upperRow, final byte[] lowerQualifier,
+							final byte[] upperQualifier, final byte[][] allowedValues) {
+		
 		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
 		
 		Filter qualifierFilter1 = new QualifierFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
@@ -285,30 +499,14 @@ public class HTableManager implements HBaseClient {
 		fList.addFilter(qualifierFilter2);
 		
 		if(allowedValues.length>0){
-			FilterList valueList = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-	
-			for(byte[] value : allowedValues) {
-				Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.EQUAL,
-						new BinaryComparator(value));
-				valueList.addFilter(valueFilter);
-			}
-			fList.addFilter(valueList);
+			fList.addFilter(new ValueSetFilter(allowedValues));
 		}
 		
 		Scan scan = new Scan(lowerRow,upperRow)
 					.setFilter(fList);
 		
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
-		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
-		}
-		scanner.close();
-		
-		Result[] finalResult = new Result[results.size()];
-		return results.toArray(finalResult);
+		this.profile.apply(scan);
+		return scan;
 	}
 	
 	
@@ -328,37 +526,104 @@ public class HTableManager implements HBaseClient {
 		Get tableRow = new Get(row)
 					   .setFilter(fList);
 		
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	@Override
 	public Result get(final byte[] row, final byte[][] qualifiers) throws IOException {
 				
-		Get tableRow = new Get(row);
-		for(HColumnDescriptor cf: this.table.getTableDescriptor().getColumnFamilies()) {
-			for(byte[] q : qualifiers) {
-				tableRow.addColumn(cf.getName(), q);
-			}
-		}
-				
-		return this.table.get(tableRow);
+		Get tableRow = this.prepareQualifiedGet(row, this.families(), qualifiers, null);
+		return this.fetch(tableRow);
 	}
 	
 	@Override
 	public Result get(final byte[] row, final byte[][] qualifiers, final byte[] min) throws IOException {
 		
+		Get tableRow = this.prepareQualifiedGet(row, this.families(), qualifiers, min);
+		return this.fetch(tableRow);
+	}
+	
+	@Override
+	public Result[] get(final byte[][] rows) throws IOException {
+		
+		return this.get(rows, new byte[0][]);
+	}
+	
+	@Override
+	public Result[] get(final byte[][] rows, final byte[] min) throws IOException {
+		
+		return this.get(rows, new byte[0][], min);
+	}
+	
+	@Override
+	public Result[] get(final byte[][] rows, final byte[][] qualifiers) throws IOException {
+		
+		return this.get(rows, qualifiers, (byte[]) null);
+	}
+	
+	@Override
+	public Result[] get(final byte[][] rows, final byte[][] qualifiers, final byte[] min) throws IOException {
+		
+		HColumnDescriptor[] families = this.families();
+		List<Get> gets = new ArrayList<Get>(rows.length);
+		for(byte[] row : rows) {
+			gets.add(this.prepareQualifiedGet(row, families, qualifiers, min));
+		}
+		return this.fetch(gets);
+	}
+	
+	/**
+	 * Prepares a get of the given qualifiers, in all the column families
+	 * @return the get
+	 * @param row the row key
+	 * @param families the column families of the table
+	 * @param qualifiers the qualifiers to look for, none to look for all of them
+	 * @param min the minimum allowed value, null for no minimum
+	 */
+	private Get prepareQualifiedGet(final byte[] row, final HColumnDescriptor[] families,
+							final byte[][] qualifiers, final byte[] min) {
+		
 		Get tableRow = new Get(row);
-		for(HColumnDescriptor cf: this.table.getTableDescriptor().getColumnFamilies()) {
-			for(byte[] q : qualifiers) {
-				tableRow.addColumn(cf.getName(), q);
+		if(qualifiers.length <= SEEKTHRESHOLD) {
+			for(HColumnDescriptor cf: families) {
+				for(byte[] q : qualifiers) {
+					tableRow.addColumn(cf.getName(), q);
+				}
 			}
 		}
 		
+		Filter filter = qualifiedFilter(qualifiers, min);
+		if(filter != null)
+			tableRow.setFilter(filter);
+		return tableRow;
+	}
+	
+	
+	/**
+	 * Prepares the filter reading the given qualifiers with a value not smaller than the minimum:
+	 * beyond SEEKTHRESHOLD qualifiers, they are looked for by seeking from one to the next
+	 * rather than as explicit columns, which make the scanner visit every column of a wide row
+	 * @return the filter, null if none is needed
+	 * @param qualifiers the qualifiers to look for, none to look for all of them
+	 * @param min the minimum allowed value, null for no minimum
+	 */
+	private static Filter qualifiedFilter(final byte[][] qualifiers, final byte[] min) {
+		
+		Filter seekFilter = null;
+		if(qualifiers.length > SEEKTHRESHOLD)
+			seekFilter = new QualifierSeekFilter(qualifiers);
+		if(min == null)
+			return seekFilter;
+		
 		Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
 				new BinaryComparator(min));
-		tableRow.setFilter(valueFilter);
+		if(seekFilter == null)
+			return valueFilter;
 		
-		return this.table.get(tableRow);
+		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
+		fList.addFilter(seekFilter);
+		fList.addFilter(valueFilter);
+		return fList;
 	}
 
 
@@ -371,26 +636,7 @@ public class HTableManager implements HBaseClient {
 			results[0] = this.get(upperRow, qualifiers);
 			return results;
 		}
-		
-		Scan scan = new Scan(lowerRow,upperRow);
-		
-		for(HColumnDescriptor cf: this.table.getTableDescriptor().getColumnFamilies()) {
-			for(byte[] q : qualifiers) {
-				scan.addColumn(cf.getName(), q);
-			}
-		}
-		
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
-		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
-		}
-		scanner.close();
-		
-		Result[] finalResult = new Result[results.size()];
-		return results.toArray(finalResult);
+		return this.read(this.qualifiedScan(lowerRow, upperRow, qualifiers, null));
 	}
 
 
@@ -403,29 +649,7 @@ public class HTableManager implements HBaseClient {
 			results[0] = this.get(upperRow, qualifiers,min);
 			return results;
 		}
-		
-		Scan scan = new Scan(lowerRow,upperRow);
-		
-		for(HColumnDescriptor cf: this.table.getTableDescriptor().getColumnFamilies()) {
-			for(byte[] q : qualifiers) {
-				scan.addColumn(cf.getName(), q);
-			}
-		}
-		
-		Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
-				new BinaryComparator(min));
-		scan.setFilter(valueFilter);
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
-		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
-		}
-		scanner.close();
-		
-		Result[] finalResult = new Result[results.size()];
-		return results.toArray(finalResult);
+		return this.read(this.qualifiedScan(lowerRow, upperRow, qualifiers, min));
 	}
 
 
@@ -433,129 +657,338 @@ public class HTableManager implements HBaseClient {
 	public Result[] scanPrefix(byte[] lowerRow, byte[] upperRow,
 			byte[][] qualifiersPrefix, byte[] min) throws IOException {
 		
-		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
-		
-		if(qualifiersPrefix.length > 0) {
-			FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
+		return this.read(this.prefixScan(lowerRow, upperRow, qualifiersPrefix, min));
+	}
 	
-			for(byte[] prefix : qualifiersPrefix) {
-				Filter prefixFilter = new ColumnPrefixFilter(prefix);
-				qualifierFilters.addFilter(prefixFilter);
-			}
-			fList.addFilter(qualifierFilters);
-		}
+	@Override
+	public Result[] scanPrefix(byte[] rowPrefix, byte[][] qualifiersPrefix, byte[] min) throws IOException {
 		
-		Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
-				new BinaryComparator(min));
-		fList.addFilter(valueFilter);
+		return this.read(this.prefixScan(rowPrefix, AuthorAggregatorEndpoint.prefixStop(rowPrefix), qualifiersPrefix, min));
+	}
+	
+	@Override
+	public Result[] scanPrefix(byte[] lowerRow, byte[] upperRow, byte[][] qualifiersPrefix) throws IOException {
 		
-		Scan scan = new Scan(lowerRow,upperRow)
-					.setFilter(fList);
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
-		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
-		}
-		scanner.close();
+		return this.read(this.prefixScan(lowerRow, upperRow, qualifiersPrefix, null));
+	}
+
+	@Override
+	public Result[] scanPrefix(byte[] rowPrefix, byte[][] qualifiersPrefix) throws IOException {
 		
-		Result[] finalResult = new Result[results.size()];
-		return results.toArray(finalResult);
+		return this.read(this.prefixScan(rowPrefix, AuthorAggregatorEndpoint.prefixStop(rowPrefix), qualifiersPrefix, null));
 	}
 	
+	
 	@Override
-	public Result[] scanPrefix(byte[] rowPrefix, byte[][] qualifiersPrefix, byte[] min) throws IOException {
-				
-		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
-		Filter rPref = new PrefixFilter(rowPrefix);
-		fList.addFilter(rPref);
+	public ResultScanner openScanner(byte[] lowerRow, byte[] upperRow, byte[][] qualifiers)
+			throws IOException {
 		
-		if(qualifiersPrefix.length > 0) {
-			FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
+		return this.getScanner(this.qualifiedScan(lowerRow, upperRow, qualifiers, null));
+	}
+
+
+	@Override
+	public ResultScanner openScanner(byte[] lowerRow, byte[] upperRow, byte[][] qualifiers,
+			byte[] min) throws IOException {
+		
+		return this.getScanner(this.qualifiedScan(lowerRow, upperRow, qualifiers, min));
+	}
+	
 	
-			for(byte[] prefix : qualifiersPrefix) {
-				Filter prefixFilter = new ColumnPrefixFilter(prefix);
-				qualifierFilters.addFilter(prefixFilter);
+	/** 
+	 * Prepares the scan over the given qualifiers in the row range
+	 * @return the scan to be executed
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded)
+	 * @param qualifiers the qualifiers to look for, none to look for all of them
+	 * @param min the minimum allowed value, null for no minimum */
+	private Scan qualifiedScan(final byte[] lowerRow, final byte[] upperRow, final byte[][] qualifiers,
+			final byte[] min) throws IOException {
+		
+		Scan scan = prepareScan(lowerRow, upperRow);
+		
+		if(qualifiers.length <= SEEKTHRESHOLD) {
+			for(HColumnDescriptor cf: this.families()) {
+				for(byte[] q : qualifiers) {
+					scan.addColumn(cf.getName(), q);
+				}
 			}
-			fList.addFilter(qualifierFilters);
 		}
 		
-		Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
-				new BinaryComparator(min));
-		fList.addFilter(valueFilter);
+		Filter filter = qualifiedFilter(qualifiers, min);
+		if(filter != null)
+			scan.setFilter(filter);
+		this.profile.apply(scan);
+		return scan;
+	}
+
+
+	@Override
+	public ResultScanner openPrefixScanner(byte[] lowerRow, byte[] upperRow,
+			byte[][] qualifiersPrefix, byte[] min) throws IOException {
 		
-		Scan scan = new Scan()
-					.setFilter(fList);
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
-		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
-		}
-		scanner.close();
+		return this.getScanner(this.prefixScan(lowerRow, upperRow, qualifiersPrefix, min));
+	}
+	
+	@Override
+	public ResultScanner openPrefixScanner(byte[] rowPrefix, byte[][] qualifiersPrefix, byte[] min) throws IOException {
 		
-		Result[] finalResult = new Result[results.size()];
-		return results.toArray(finalResult);
+		return this.getScanner(this.prefixScan(rowPrefix, AuthorAggregatorEndpoint.prefixStop(rowPrefix), qualifiersPrefix, min));
 	}
 	
 	@Override
-	public Result[] scanPrefix(byte[] lowerRow, byte[] upperRow, byte[][] qualifiersPrefix) throws IOException {
+	public ResultScanner openPrefixScanner(byte[] lowerRow, byte[] upperRow, byte[][] qualifiersPrefix) throws IOException {
 		
-		Scan scan = new Scan(lowerRow,upperRow);
+		return this.getScanner(this.prefixScan(lowerRow, upperRow, qualifiersPrefix, null));
+	}
+
+	@Override
+	public ResultScanner openPrefixScanner(byte[] rowPrefix, byte[][] qualifiersPrefix) throws IOException {
+		
+		return this.getScanner(this.prefixScan(rowPrefix, AuthorAggregatorEndpoint.prefixStop(rowPrefix), qualifiersPrefix, null));
+	}
+	
+	
+	/** 
+	 * Prepares the scan over the qualifiers with the given prefixes in the row range.
+	 * The scans over a row prefix are turned into row ranges too, so they only visit the regions holding the prefix.
+	 * @return the scan to be executed
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded), empty for the end of the table
+	 * @param qualifiersPrefix the prefixes of the qualifiers to look for, none to look for all of them
+	 * @param min the minimum allowed value, null for no minimum */
+	private Scan prefixScan(final byte[] lowerRow, final byte[] upperRow, final byte[][] qualifiersPrefix, final byte[] min) {
+		
+		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
 		
 		if(qualifiersPrefix.length > 0) {
-			FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ONE);
+			fList.addFilter(new QualifierPrefixSetFilter(qualifiersPrefix));
+		}
+		
+		if(min != null) {
+			Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
+					new BinaryComparator(min));
+			fList.addFilter(valueFilter);
+		}
+		
+		Scan scan = new Scan(lowerRow,upperRow);
+		if(!fList.getFilters().isEmpty())
+			scan.setFilter(fList);
+		this.profile.apply(scan);
+		return scan;
+	}
 	
-			for(byte[] prefix : qualifiersPrefix) {
-				Filter prefixFilter = new ColumnPrefixFilter(prefix);
-				fList.addFilter(prefixFilter);
-			}
+	
+	/** 
+	 * Prepares the scan over the row range, turning it into a single row scan when the extremes coincide
+	 * @return the scan to be executed
+	 * @param lowerRow the smallest row key to look for (included)
+	 * @param upperRow the biggest row key to look for (excluded) */
+	private static Scan prepareScan(final byte[] lowerRow, final byte[] upperRow) {
+		
+		if(Bytes.equals(lowerRow,upperRow))
+			return new Scan(new Get(lowerRow));
+		return new Scan(lowerRow,upperRow);
+	}
+	
+	
+	/** 
+	 * Opens a scanner, fetching at most the max result size of the scan profile per RPC if it sets one.
+	 * The scanners of an HTable only use its connection, so the handle is released as soon as the scanner is open.
+	 * @return the scanner
+	 * @param scan the scan to execute */
+	@SuppressWarnings("deprecation")
+	private ResultScanner getScanner(final Scan scan) throws IOException {
+		
+		HTableInterface handle = this.table();
+		try {
+			Configuration conf = this.scanConf;
+			if(conf == null || !(handle instanceof HTable))
+				return handle.getScanner(scan);
 			
-			scan.setFilter(fList);
+			HTable htable = (HTable) handle;
+			if(scan.getCaching() <= 0)
+				scan.setCaching(htable.getScannerCaching());
+			return new ClientScanner(conf, scan, htable.getTableName(), htable.getConnection());
+		} finally {
+			this.release(handle);
 		}
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
+	}
+	
+	
+	/** 
+	 * Reads all the rows a scanner can return and closes it
+	 * @return the results read by the scanner
+	 * @param scanner the scanner to drain */
+	private static Result[] drain(final ResultScanner scanner) throws IOException {
+		
 		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
+		try {
+			for (Result res : scanner) {
+				results.add(res);
+			}
+		} finally {
+			scanner.close();
 		}
-		scanner.close();
 		Result[] finalResult = new Result[results.size()];
 		return results.toArray(finalResult);
 	}
-
-	@Override
-	public Result[] scanPrefix(byte[] rowPrefix, byte[][] qualifiersPrefix) throws IOException {
-				
-		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
-		
-		Filter rPref = new PrefixFilter(rowPrefix);
-		fList.addFilter(rPref);
-		
-		if(qualifiersPrefix.length > 0) {
-			FilterList qualifierFilters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-			for(byte[] prefix : qualifiersPrefix) {
-				Filter prefixFilter = new ColumnPrefixFilter(prefix);
-				qualifierFilters.addFilter(prefixFilter);
+	
+	
+	/** 
+	 * Reads all the rows of the scan, concurrently over the regions it spans if the parallel scans are enabled
+	 * @return the results of the scan
+	 * @param scan the scan to execute */
+	private Result[] read(final Scan scan) throws IOException {
+		
+		if(this.scanPool == null || this.scanParallelism < 2 || scan.isGetScan())
+			return drain(this.getScanner(scan));
+		List<Scan> pieces = this.split(scan);
+		if(pieces.size() < 2)
+			return drain(this.getScanner(scan));
+		return this.readConcurrently(pieces);
+	}
+	
+	
+	/** 
+	 * Reads the pieces of a scan on the scan pool and in the calling thread, at most scanParallelism at a time
+	 * @return the results of the pieces, in the order of the pieces if the scans are ordered
+	 * @param pieces the scans over disjoint row ranges, in ascending order */
+	private Result[] readConcurrently(final List<Scan> pieces) throws IOException {
+		
+		final Result[][] parts = new Result[pieces.size()][];
+		final List<Result> completed = Collections.synchronizedList(new ArrayList<Result>());
+		final boolean ordered = this.scanOrdered;
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch done = new CountDownLatch(pieces.size());
+		
+		Runnable reader = new Runnable() {
+			@Override
+			public void run() {
+				int i;
+				while((i = next.getAndIncrement()) < pieces.size()) {
+					try {
+						if(failure.get() != null)
+							continue;
+						Result[] part = drain(getScanner(pieces.get(i)));
+						if(ordered)
+							parts[i] = part;
+						else
+							completed.addAll(Arrays.asList(part));
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					} finally {
+						done.countDown();
+					}
+				}
 			}
-			fList.addFilter(qualifierFilters);
+		};
+		
+		List<Future<?>> helpers = new ArrayList<Future<?>>();
+		try {
+			for(int i = 1; i < Math.min(this.scanParallelism, pieces.size()); i++)
+				helpers.add(this.scanPool.submit(reader));
+		} catch (RejectedExecutionException e) {
+			// the calling thread reads the pieces left
+		}
+		reader.run();
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while scanning " + Bytes.toString(this.table.getTableName()));
+		} finally {
+			for(Future<?> helper : helpers)
+				helper.cancel(false);
 		}
 		
-		Scan scan = new Scan()
-					.setFilter(fList);
-		scan.setBatch(batching);
-				
-		ResultScanner scanner = this.table.getScanner(scan);
+		Throwable t = failure.get();
+		if(t instanceof IOException)
+			throw (IOException) t;
+		if(t != null)
+			throw new IOException(t);
+		if(!ordered)
+			return completed.toArray(new Result[completed.size()]);
+		
 		List<Result> results = new ArrayList<Result>();
-		for (Result res : scanner) {
-			results.add(res);
+		for(Result[] part : parts)
+			results.addAll(Arrays.asList(part));
+		return results.toArray(new Result[results.size()]);
+	}
+	
+	
+	/** 
+	 * Splits a scan on the boundaries of the regions its row range spans
+	 * @return the scans over the part of the row range in each region, in ascending order
+	 * @param scan the scan to split */
+	private List<Scan> split(final Scan scan) throws IOException {
+		
+		byte[] start = scan.getStartRow();
+		byte[] stop = scan.getStopRow();
+		byte[][] starts = this.regionStarts();
+		
+		List<Scan> pieces = new ArrayList<Scan>();
+		for(int i = 0; i < starts.length; i++) {
+			byte[] regionStart = starts[i];
+			byte[] regionEnd = i + 1 < starts.length ? starts[i + 1] : HConstants.EMPTY_END_ROW;
+			if(regionEnd.length > 0 && Bytes.compareTo(regionEnd, start) <= 0)
+				continue;
+			if(stop.length > 0 && Bytes.compareTo(regionStart, stop) >= 0)
+				break;
+			byte[] pieceStart = Bytes.compareTo(regionStart, start) > 0 ? regionStart : start;
+			byte[] pieceStop = stop;
+			if(regionEnd.length > 0 && (stop.length == 0 || Bytes.compareTo(regionEnd, stop) < 0))
+				pieceStop = regionEnd;
+			Scan piece = copy(scan);
+			piece.setStartRow(pieceStart);
+			piece.setStopRow(pieceStop);
+			pieces.add(piece);
 		}
-		scanner.close();
-		Result[] finalResult = new Result[results.size()];
-		return results.toArray(finalResult);
+		return pieces;
+	}
+	
+	
+	/** 
+	 * Retrieves the first row keys of the regions of the table, looked up again every REGIONSREFRESH milliseconds.
+	 * Stale boundaries only make the pieces of a scan match the regions less closely, the pieces still cover the whole range.
+	 * @return the first row keys of the regions, in ascending order */
+	private byte[][] regionStarts() throws IOException {
+		
+		byte[][] starts = this.regionStarts;
+		long now = System.currentTimeMillis();
+		if(starts == null || now - this.regionStartsTime > REGIONSREFRESH) {
+			HTableInterface handle = this.table();
+			try {
+				if(handle instanceof HTable)
+					starts = ((HTable) handle).getStartKeys();
+				else if(handle instanceof InMemoryHTable)
+					starts = ((InMemoryHTable) handle).getStartKeys();
+				else
+					starts = new byte[][] {HConstants.EMPTY_START_ROW};
+			} finally {
+				this.release(handle);
+			}
+			this.regionStarts = starts;
+			this.regionStartsTime = now;
+		}
+		return starts;
+	}
+	
+	
+	/** 
+	 * Copies a scan through its serialization, so that the copy has filters of its own
+	 * @return the copy of the scan
+	 * @param scan the scan to copy */
+	private static Scan copy(final Scan scan) throws IOException {
+		
+		DataOutputBuffer out = new DataOutputBuffer();
+		scan.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		Scan copy = new Scan();
+		copy.readFields(in);
+		return copy;
 	}
 
 
@@ -565,12 +998,7 @@ public class HTableManager implements HBaseClient {
 		FilterList fList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
 
 		if(qualifiersPrefix.length > 0) {
-			FilterList qualifierFilter = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-			for(byte[] prefix : qualifiersPrefix) {
-				Filter prefixFilter = new ColumnPrefixFilter(prefix);
-				qualifierFilter.addFilter(prefixFilter);
-			}
-			fList.addFilter(qualifierFilter);
+			fList.addFilter(new QualifierPrefixSetFilter(qualifiersPrefix));
 		}
 		
 		Filter valueFilter = new ValueFilter(CompareFilter.CompareOp.GREATER_OR_EQUAL,
@@ -580,7 +1008,7 @@ public class HTableManager implements HBaseClient {
 		Get tableRow = new Get(row)
 					   .setFilter(fList);
 		
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 	
 	@Override
@@ -589,17 +1017,10 @@ public class HTableManager implements HBaseClient {
 		Get tableRow = new Get(row);
 		
 		if(qualifiersPrefix.length > 0) {
-			FilterList qualifierFilter = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-	
-			for(byte[] prefix : qualifiersPrefix) {
-				Filter prefixFilter = new ColumnPrefixFilter(prefix);
-				qualifierFilter.addFilter(prefixFilter);
-			}
-	
-			tableRow.setFilter(qualifierFilter);
+			tableRow.setFilter(new QualifierPrefixSetFilter(qualifiersPrefix));
 		}
 		
-		return this.table.get(tableRow);
+		return this.fetch(tableRow);
 	}
 
 
@@ -609,9 +1030,20 @@ public class HTableManager implements HBaseClient {
 		return this.scan(lowerRow, upperRow, qualifiers);
 	}
 	
+	@Override
+	public ResultScanner openScanner(byte[] lowerRow, byte[] upperRow) throws IOException {
+		byte[][] qualifiers = new byte[0][];
+		return this.openScanner(lowerRow, upperRow, qualifiers);
+	}
+	
 	@Override
 	public <T extends CoprocessorProtocol,R> Map<byte[],R> coprocessorExec(Class<T> protocol,
 					byte[] startKey, byte[] endKey, Batch.Call<T,R> callable) throws IOException, Throwable {
-		return this.table.coprocessorExec(protocol, startKey, endKey, callable);
+		HTableInterface handle = this.table();
+		try {
+			return handle.coprocessorExec(protocol, startKey, endKey, callable);
+		} finally {
+			this.release(handle);
+		}
 	}
 }
@@ -0,0 +1,523 @@
+package hbase.impls;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Append;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.client.RowMutations;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.AuthorAggregatorEndpoint;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Implementation of HTableInterface keeping the cells in memory, sorted as HBase does and split into simulated regions.
+ * Gets and scans honor row ranges, columns, filters, versions and time ranges, and the AuthorAggregatorEndpoint
+ * runs on each simulated region, so that the query engine can be load-tested without a cluster.
+ * Puts and deletes are applied immediately; the table is thread-safe.
+ * @author Daniele Morgantini
+ * */
+public class InMemoryHTable implements HTableInterface {
+
+	private static ExecutorService regionPool;
+
+	private HTableDescriptor descriptor;
+
+	private Configuration configuration;
+
+	private NavigableSet<KeyValue> cells;
+
+	private List<byte[]> regionStarts;
+
+
+	/**
+	 * Creates an empty instance of InMemoryHTable
+	 * @return an instance of InMemoryHTable
+	 * @param table the table name
+	 * @param splitKeys the first row keys of the simulated regions but the first one, none for a single region
+	 * @param colfams the names of the column families
+	 */
+	public InMemoryHTable(final String table, final byte[][] splitKeys, final String... colfams) {
+
+		this.descriptor = new HTableDescriptor(table);
+		for(String cf : colfams)
+			this.descriptor.addFamily(new HColumnDescriptor(cf));
+		this.configuration = HBaseConfiguration.create();
+		this.cells = new ConcurrentSkipListSet<KeyValue>(KeyValue.COMPARATOR);
+
+		byte[][] splits = splitKeys.clone();
+		Arrays.sort(splits, Bytes.BYTES_COMPARATOR);
+		this.regionStarts = new ArrayList<byte[]>();
+		this.regionStarts.add(HConstants.EMPTY_START_ROW);
+		for(byte[] split : splits)
+			this.regionStarts.add(split);
+	}
+
+	/**
+	 * Computes split keys spreading the regions over row keys starting with a decimal id
+	 * @return the split keys of the regions
+	 * @param regions the number of regions
+	 */
+	public static byte[][] decimalSplits(final int regions) {
+		byte[][] splits = new byte[Math.max(regions - 1, 0)][];
+		for(int i = 1; i < regions; i++)
+			splits[i - 1] = Bytes.toBytes(String.valueOf(1000 + 9000L * i / regions));
+		return splits;
+	}
+
+	/**
+	 * Retrieves the number of simulated regions
+	 * @return the number of regions
+	 */
+	public int getRegionCount() {
+		return this.regionStarts.size();
+	}
+
+	/**
+	 * Retrieves the first row keys of the simulated regions, as HTable.getStartKeys does for the real ones
+	 * @return the first row keys of the regions, the first one being empty
+	 */
+	public byte[][] getStartKeys() {
+		return this.regionStarts.toArray(new byte[this.regionStarts.size()][]);
+	}
+
+	@Override
+	public byte[] getTableName() {
+		return this.descriptor.getName();
+	}
+
+	@Override
+	public Configuration getConfiguration() {
+		return this.configuration;
+	}
+
+	@Override
+	public HTableDescriptor getTableDescriptor() {
+		return this.descriptor;
+	}
+
+	@Override
+	public boolean exists(final Get get) throws IOException {
+		return !this.get(get).isEmpty();
+	}
+
+	@Override
+	public void batch(final List<? extends Row> actions, final Object[] results) throws IOException {
+		for(int i = 0; i < actions.size(); i++) {
+			Row action = actions.get(i);
+			if(action instanceof Get) {
+				results[i] = this.get((Get) action);
+			}
+			else if(action instanceof Put) {
+				this.put((Put) action);
+				results[i] = new Result();
+			}
+			else if(action instanceof Delete) {
+				this.delete((Delete) action);
+				results[i] = new Result();
+			}
+			else {
+				throw new UnsupportedOperationException(action.getClass().getSimpleName() + " isn't supported in memory");
+			}
+		}
+	}
+
+	@Override
+	public Object[] batch(final List<? extends Row> actions) throws IOException {
+		Object[] results = new Object[actions.size()];
+		this.batch(actions, results);
+		return results;
+	}
+
+	@Override
+	public Result get(final Get get) throws IOException {
+		InternalScanner scanner = new InMemoryRegionScanner(this.cells, new Scan(get),
+				HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW);
+		List<KeyValue> kvs = new ArrayList<KeyValue>();
+		scanner.next(kvs);
+		scanner.close();
+		return new Result(kvs);
+	}
+
+	@Override
+	public Result[] get(final List<Get> gets) throws IOException {
+		Result[] results = new Result[gets.size()];
+		for(int i = 0; i < results.length; i++)
+			results[i] = this.get(gets.get(i));
+		return results;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public Result getRowOrBefore(final byte[] row, final byte[] family) {
+		throw new UnsupportedOperationException("getRowOrBefore isn't supported in memory");
+	}
+
+	@Override
+	public ResultScanner getScanner(final Scan scan) {
+		return new InMemoryResultScanner(new InMemoryRegionScanner(this.cells, scan,
+				HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW));
+	}
+
+	@Override
+	public ResultScanner getScanner(final byte[] family) {
+		return this.getScanner(new Scan().addFamily(family));
+	}
+
+	@Override
+	public ResultScanner getScanner(final byte[] family, final byte[] qualifier) {
+		return this.getScanner(new Scan().addColumn(family, qualifier));
+	}
+
+	@Override
+	public void put(final Put put) {
+		byte[] now = Bytes.toBytes(System.currentTimeMillis());
+		for(List<KeyValue> kvs : put.getFamilyMap().values()) {
+			for(KeyValue kv : kvs) {
+				kv.updateLatestStamp(now);
+				this.cells.remove(kv);
+				this.cells.add(kv);
+			}
+		}
+	}
+
+	@Override
+	public void put(final List<Put> puts) {
+		for(Put put : puts)
+			this.put(put);
+	}
+
+	@Override
+	public boolean checkAndPut(final byte[] row, final byte[] family, final byte[] qualifier,
+							final byte[] value, final Put put) {
+		throw new UnsupportedOperationException("checkAndPut isn't supported in memory");
+	}
+
+	@Override
+	public void delete(final Delete delete) {
+
+		byte[] row = delete.getRow();
+		if(delete.isEmpty()) {
+			for(KeyValue kv : this.rowCells(row)) {
+				if(kv.getTimestamp() <= delete.getTimeStamp())
+					this.cells.remove(kv);
+			}
+			return;
+		}
+		for(List<KeyValue> kvs : delete.getFamilyMap().values()) {
+			for(KeyValue d : kvs) {
+				boolean latest = d.isLatestTimestamp();
+				for(KeyValue kv : this.rowCells(row)) {
+					if(!Bytes.equals(kv.getFamily(), d.getFamily()))
+						continue;
+					if(d.isDeleteFamily()) {
+						if(kv.getTimestamp() <= d.getTimestamp())
+							this.cells.remove(kv);
+					}
+					else if(kv.matchingColumn(d.getFamily(), d.getQualifier())) {
+						if(d.isDeleteType()) {
+							if(latest || kv.getTimestamp() == d.getTimestamp()) {
+								this.cells.remove(kv);
+								break;
+							}
+						}
+						else if(kv.getTimestamp() <= d.getTimestamp()) {
+							this.cells.remove(kv);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void delete(final List<Delete> deletes) {
+		for(Delete delete : deletes)
+			this.delete(delete);
+	}
+
+	@Override
+	public boolean checkAndDelete(final byte[] row, final byte[] family, final byte[] qualifier,
+							final byte[] value, final Delete delete) {
+		throw new UnsupportedOperationException("checkAndDelete isn't supported in memory");
+	}
+
+	@Override
+	public void mutateRow(final RowMutations rm) {
+		throw new UnsupportedOperationException("mutateRow isn't supported in memory");
+	}
+
+	@Override
+	public Result append(final Append append) {
+		throw new UnsupportedOperationException("append isn't supported in memory");
+	}
+
+	@Override
+	public Result increment(final Increment increment) {
+		throw new UnsupportedOperationException("increment isn't supported in memory");
+	}
+
+	@Override
+	public long incrementColumnValue(final byte[] row, final byte[] family, final byte[] qualifier, final long amount) {
+		throw new UnsupportedOperationException("incrementColumnValue isn't supported in memory");
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public long incrementColumnValue(final byte[] row, final byte[] family, final byte[] qualifier,
+							final long amount, final boolean writeToWAL) {
+		throw new UnsupportedOperationException("incrementColumnValue isn't supported in memory");
+	}
+
+	@Override
+	public boolean isAutoFlush() {
+		return true;
+	}
+
+	@Override
+	public void flushCommits() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public org.apache.hadoop.hbase.client.RowLock lockRow(final byte[] row) {
+		throw new UnsupportedOperationException("lockRow isn't supported in memory");
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void unlockRow(final org.apache.hadoop.hbase.client.RowLock rl) {
+		throw new UnsupportedOperationException("unlockRow isn't supported in memory");
+	}
+
+	@Override
+	public <T extends CoprocessorProtocol> T coprocessorProxy(final Class<T> protocol, final byte[] row) {
+		return protocol.cast(this.endpoint(protocol, this.regionIndex(row)));
+	}
+
+	/**
+	 * Runs the callable on the endpoint of every simulated region holding rows in the range, in parallel
+	 * @return the results of the regions, by region name
+	 * @param protocol the protocol of the endpoint
+	 * @param startKey the first row key of the range
+	 * @param endKey the last row key of the range, empty for the end of the table
+	 * @param callable the unit of work to execute
+	 */
+	@Override
+	public <T extends CoprocessorProtocol,R> Map<byte[],R> coprocessorExec(final Class<T> protocol, final byte[] startKey,
+							final byte[] endKey, final Batch.Call<T,R> callable) throws IOException, Throwable {
+
+		int first = this.regionIndex(startKey == null ? HConstants.EMPTY_START_ROW : startKey);
+		int last = (endKey == null || endKey.length == 0) ? this.regionStarts.size() - 1 : this.regionIndex(endKey);
+
+		List<byte[]> names = new ArrayList<byte[]>();
+		List<Future<R>> calls = new ArrayList<Future<R>>();
+		for(int i = first; i <= last; i++) {
+			final T instance = protocol.cast(this.endpoint(protocol, i));
+			names.add(HRegionInfo.createRegionName(this.getTableName(), this.regionStarts.get(i), String.valueOf(i), true));
+			calls.add(regionPool().submit(new Callable<R>() {
+				@Override
+				public R call() throws IOException {
+					return callable.call(instance);
+				}
+			}));
+		}
+
+		Map<byte[],R> results = new TreeMap<byte[],R>(Bytes.BYTES_COMPARATOR);
+		for(int i = 0; i < calls.size(); i++) {
+			try {
+				results.put(names.get(i), calls.get(i).get());
+			} catch (ExecutionException e) {
+				throw e.getCause();
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public <T extends CoprocessorProtocol,R> void coprocessorExec(final Class<T> protocol, final byte[] startKey,
+							final byte[] endKey, final Batch.Call<T,R> callable, final Batch.Callback<R> callback) throws IOException, Throwable {
+		for(Map.Entry<byte[],R> e : this.coprocessorExec(protocol, startKey, endKey, callable).entrySet())
+			callback.update(e.getKey(), startKey, e.getValue());
+	}
+
+	@Override
+	public void setAutoFlush(final boolean autoFlush) {
+	}
+
+	@Override
+	public void setAutoFlush(final boolean autoFlush, final boolean clearBufferOnFail) {
+	}
+
+	@Override
+	public long getWriteBufferSize() {
+		return 0;
+	}
+
+	@Override
+	public void setWriteBufferSize(final long writeBufferSize) {
+	}
+
+	private NavigableSet<KeyValue> rowCells(final byte[] row) {
+		return this.cells.subSet(KeyValue.createFirstOnRow(row), true,
+				KeyValue.createFirstOnRow(Bytes.add(row, new byte[1])), false);
+	}
+
+	private int regionIndex(final byte[] row) {
+		int i = this.regionStarts.size() - 1;
+		while(i > 0 && Bytes.compareTo(row, this.regionStarts.get(i)) < 0)
+			i--;
+		return i;
+	}
+
+	/**
+	 * Creates the endpoint of a simulated region, reading only the rows of that region
+	 * @return the endpoint of the region
+	 * @param protocol the protocol of the endpoint
+	 * @param region the index of the region
+	 */
+	private CoprocessorProtocol endpoint(final Class<? extends CoprocessorProtocol> protocol, final int region) {
+
+		if(!protocol.isAssignableFrom(AuthorAggregatorEndpoint.class))
+			throw new UnsupportedOperationException("No in-memory endpoint for " + protocol.getName());
+
+		final byte[] start = this.regionStarts.get(region);
+		final byte[] end = region + 1 < this.regionStarts.size() ? this.regionStarts.get(region + 1) : HConstants.EMPTY_END_ROW;
+		return new AuthorAggregatorEndpoint() {
+
+			@Override
+			protected InternalScanner getScanner(final Scan scan) {
+				return new InMemoryRegionScanner(cells, scan, start, end);
+			}
+
+			@Override
+			protected byte[] getStartKey() {
+				return start;
+			}
+
+			@Override
+			protected byte[] getEndKey() {
+				return end;
+			}
+		};
+	}
+
+	private static synchronized ExecutorService regionPool() {
+		if(regionPool == null)
+			regionPool = Executors.newCachedThreadPool(
+						new ThreadFactoryBuilder().setDaemon(true).setNameFormat("in-memory-region-%d").build());
+		return regionPool;
+	}
+
+
+	/**
+	 * Client-side view of a scanner over the table
+	 */
+	private static class InMemoryResultScanner implements ResultScanner {
+
+		private InternalScanner scanner;
+
+		private boolean more;
+
+		InMemoryResultScanner(final InternalScanner scanner) {
+			this.scanner = scanner;
+			this.more = true;
+		}
+
+		@Override
+		public Result next() throws IOException {
+			List<KeyValue> kvs = new ArrayList<KeyValue>();
+			while(kvs.isEmpty() && this.more)
+				this.more = this.scanner.next(kvs);
+			return kvs.isEmpty() ? null : new Result(kvs);
+		}
+
+		@Override
+		public Result[] next(final int nbRows) throws IOException {
+			List<Result> results = new ArrayList<Result>(nbRows);
+			for(int i = 0; i < nbRows; i++) {
+				Result r = this.next();
+				if(r == null)
+					break;
+				results.add(r);
+			}
+			return results.toArray(new Result[results.size()]);
+		}
+
+		@Override
+		public void close() {
+			this.more = false;
+		}
+
+		@Override
+		public Iterator<Result> iterator() {
+			return new Iterator<Result>() {
+
+				private Result next;
+
+				@Override
+				public boolean hasNext() {
+					if(this.next == null) {
+						try {
+							this.next = InMemoryResultScanner.this.next();
+						} catch (IOException e) {
+							throw new RuntimeException(e);
+						}
+					}
+					return this.next != null;
+				}
+
+				@Override
+				public Result next() {
+					if(!this.hasNext())
+						throw new NoSuchElementException();
+					Result r = this.next;
+					this.next = null;
+					return r;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,225 @@
+package hbase.impls;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.io.TimeRange;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Scanner over the cells of an InMemoryHTable lying in a row range, as a region scanner would return them:
+ * the requested columns and time range are read first, then the filter is applied and the versions are counted.
+ * @author Daniele Morgantini
+ */
+class InMemoryRegionScanner implements InternalScanner {
+
+	private NavigableSet<KeyValue> cells;
+
+	private byte[] cursor;
+
+	private byte[] stopRow;
+
+	private Filter filter;
+
+	private TimeRange timeRange;
+
+	private int maxVersions;
+
+	private int batch;
+
+	private Map<byte[],NavigableSet<byte[]>> families;
+
+	private List<KeyValue> pending;
+
+	private boolean done;
+
+
+	/**
+	 * Creates an instance of InMemoryRegionScanner
+	 * @return an instance of InMemoryRegionScanner
+	 * @param cells the cells of the table, sorted as HBase does
+	 * @param scan the rows and cells to read
+	 * @param regionStart the first row key of the region, empty for the first region
+	 * @param regionEnd the row key following the region, empty for the last region
+	 */
+	InMemoryRegionScanner(final NavigableSet<KeyValue> cells, final Scan scan, final byte[] regionStart, final byte[] regionEnd) {
+
+		this.cells = cells;
+		this.cursor = max(scan.getStartRow(), regionStart);
+		byte[] scanStop = scan.isGetScan() ? Bytes.add(scan.getStartRow(), new byte[1]) : scan.getStopRow();
+		this.stopRow = min(scanStop, regionEnd);
+		this.filter = scan.getFilter();
+		this.timeRange = scan.getTimeRange();
+		this.maxVersions = scan.getMaxVersions();
+		this.batch = scan.getBatch();
+		this.families = scan.getFamilyMap();
+		this.pending = new ArrayList<KeyValue>();
+		this.done = false;
+	}
+
+	@Override
+	public boolean next(final List<KeyValue> results) throws IOException {
+
+		while(this.pending.isEmpty() && !this.done) {
+			KeyValue first = this.cells.ceiling(KeyValue.createFirstOnRow(this.cursor));
+			if(first == null || !this.beforeStop(first.getRow())) {
+				this.done = true;
+				break;
+			}
+			byte[] row = first.getRow();
+			this.cursor = Bytes.add(row, new byte[1]);
+			this.pending.addAll(this.readRow(row));
+		}
+
+		int n = this.batch > 0 ? Math.min(this.batch, this.pending.size()) : this.pending.size();
+		List<KeyValue> chunk = this.pending.subList(0, n);
+		results.addAll(chunk);
+		chunk.clear();
+		return !this.pending.isEmpty() || this.hasMoreRows();
+	}
+
+	@Override
+	public boolean next(final List<KeyValue> results, final String metric) throws IOException {
+		return this.next(results);
+	}
+
+	@Override
+	public boolean next(final List<KeyValue> results, final int limit) throws IOException {
+		return this.next(results);
+	}
+
+	@Override
+	public boolean next(final List<KeyValue> results, final int limit, final String metric) throws IOException {
+		return this.next(results);
+	}
+
+	@Override
+	public void close() {
+		this.pending.clear();
+		this.done = true;
+	}
+
+	private boolean hasMoreRows() {
+		if(this.done)
+			return false;
+		KeyValue next = this.cells.ceiling(KeyValue.createFirstOnRow(this.cursor));
+		return next != null && this.beforeStop(next.getRow());
+	}
+
+	private boolean beforeStop(final byte[] row) {
+		return this.stopRow.length == 0 || Bytes.compareTo(row, this.stopRow) < 0;
+	}
+
+	/**
+	 * Reads the cells of a row that the scan asks for
+	 * @return the cells of the row, empty if the row is filtered out
+	 * @param row the row key
+	 */
+	private List<KeyValue> readRow(final byte[] row) {
+
+		List<KeyValue> kept = new ArrayList<KeyValue>();
+		if(this.filter != null) {
+			this.filter.reset();
+			if(this.filter.filterAllRemaining()) {
+				this.done = true;
+				return kept;
+			}
+			if(this.filter.filterRowKey(row, 0, row.length))
+				return kept;
+		}
+
+		NavigableSet<KeyValue> rowCells = this.cells.subSet(KeyValue.createFirstOnRow(row), true,
+				KeyValue.createFirstOnRow(Bytes.add(row, new byte[1])), false);
+
+		KeyValue column = null;
+		KeyValue seekTo = null;
+		boolean skipColumn = false;
+		int versions = 0;
+
+		for(KeyValue kv : rowCells) {
+			if(seekTo != null) {
+				if(KeyValue.COMPARATOR.compare(kv, seekTo) < 0)
+					continue;
+				seekTo = null;
+			}
+			if(column == null || !kv.matchingColumn(column.getFamily(), column.getQualifier())) {
+				column = kv;
+				skipColumn = false;
+				versions = 0;
+			}
+			if(skipColumn)
+				continue;
+			if(!this.isRequested(kv)) {
+				skipColumn = true;
+				continue;
+			}
+			if(!this.timeRange.withinTimeRange(kv.getTimestamp()))
+				continue;
+
+			boolean nextColumn = false;
+			if(this.filter != null) {
+				Filter.ReturnCode code = this.filter.filterKeyValue(kv);
+				if(code == Filter.ReturnCode.SKIP)
+					continue;
+				if(code == Filter.ReturnCode.NEXT_COL) {
+					skipColumn = true;
+					continue;
+				}
+				if(code == Filter.ReturnCode.NEXT_ROW)
+					break;
+				if(code == Filter.ReturnCode.SEEK_NEXT_USING_HINT) {
+					seekTo = this.filter.getNextKeyHint(kv);
+					if(seekTo == null)
+						break;
+					continue;
+				}
+				nextColumn = code == Filter.ReturnCode.INCLUDE_AND_NEXT_COL;
+			}
+
+			if(versions >= this.maxVersions) {
+				skipColumn = true;
+				continue;
+			}
+			versions++;
+			kept.add(this.filter == null ? kv : this.filter.transform(kv));
+			skipColumn = nextColumn;
+		}
+
+		if(this.filter != null) {
+			if(this.filter.hasFilterRow())
+				this.filter.filterRow(kept);
+			if(this.filter.filterRow())
+				kept.clear();
+		}
+		return kept;
+	}
+
+	private boolean isRequested(final KeyValue kv) {
+		if(this.families.isEmpty())
+			return true;
+		if(!this.families.containsKey(kv.getFamily()))
+			return false;
+		NavigableSet<byte[]> qualifiers = this.families.get(kv.getFamily());
+		return qualifiers == null || qualifiers.isEmpty() || qualifiers.contains(kv.getQualifier());
+	}
+
+	private static byte[] max(final byte[] start, final byte[] regionStart) {
+		return Bytes.compareTo(start, regionStart) >= 0 ? start : regionStart;
+	}
+
+	private static byte[] min(final byte[] stop, final byte[] regionEnd) {
+		if(stop.length == 0)
+			return regionEnd;
+		if(regionEnd.length == 0)
+			return stop;
+		return Bytes.compareTo(stop, regionEnd) <= 0 ? stop : regionEnd;
+	}
+
+}
@@ -0,0 +1,107 @@
+package hbase.impls;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Scan;
+
+/**
+ * Immutable settings of the scans over a table: the rows fetched per RPC (caching), the columns per result (batch),
+ * the bytes fetched per RPC (max result size) and whether the read blocks are kept in the block cache.
+ * A non positive value leaves the corresponding setting to the client configuration.
+ * @author Daniele Morgantini
+ */
+public class ScanProfile {
+
+	/** Prefix of the configuration properties of the scan profiles, followed by the table name and the setting */
+	public static final String PREFIX = "echidna.scan.";
+
+	private final int caching;
+
+	private final int batch;
+
+	private final long maxResultSize;
+
+	private final boolean cacheBlocks;
+
+
+	/**
+	 * Creates an instance of ScanProfile
+	 * @return an instance of ScanProfile
+	 * @param caching the rows fetched per RPC
+	 * @param batch the maximum number of columns per result
+	 * @param maxResultSize the maximum bytes fetched per RPC
+	 * @param cacheBlocks true to keep the read blocks in the block cache, false for the one-off scans
+	 */
+	public ScanProfile(final int caching, final int batch, final long maxResultSize, final boolean cacheBlocks) {
+		this.caching = caching;
+		this.batch = batch;
+		this.maxResultSize = maxResultSize;
+		this.cacheBlocks = cacheBlocks;
+	}
+
+	/**
+	 * Reads the profile of a table from the configuration, i.e. the properties
+	 * echidna.scan.&lt;table&gt;.caching, .batch, .maxResultSize and .cacheBlocks
+	 * @return the profile of the table
+	 * @param conf the configuration
+	 * @param table the name of the table
+	 * @param defaults the settings missing from the configuration
+	 */
+	public static ScanProfile fromConfiguration(final Configuration conf, final String table, final ScanProfile defaults) {
+		String prefix = PREFIX + table + ".";
+		return new ScanProfile(conf.getInt(prefix + "caching", defaults.caching),
+								conf.getInt(prefix + "batch", defaults.batch),
+								conf.getLong(prefix + "maxResultSize", defaults.maxResultSize),
+								conf.getBoolean(prefix + "cacheBlocks", defaults.cacheBlocks));
+	}
+
+	/**
+	 * Sets the caching, the batch and the block cache policy of the scan
+	 * @param scan the scan
+	 */
+	public void apply(final Scan scan) {
+		if(this.caching > 0)
+			scan.setCaching(this.caching);
+		if(this.batch > 0)
+			scan.setBatch(this.batch);
+		scan.setCacheBlocks(this.cacheBlocks);
+	}
+
+	/**
+	 * Retrieves the rows fetched per RPC
+	 * @return the rows fetched per RPC
+	 */
+	public int getCaching() {
+		return this.caching;
+	}
+
+	/**
+	 * Retrieves the maximum number of columns per result
+	 * @return the maximum number of columns per result
+	 */
+	public int getBatch() {
+		return this.batch;
+	}
+
+	/**
+	 * Retrieves the maximum bytes fetched per RPC
+	 * @return the maximum bytes fetched per RPC
+	 */
+	public long getMaxResultSize() {
+		return this.maxResultSize;
+	}
+
+	/**
+	 * Retrieves the block cache policy
+	 * @return true if the read blocks are kept in the block cache
+	 */
+	public boolean isCacheBlocks() {
+		return this.cacheBlocks;
+	}
+
+	@Override
+	public String toString() {
+		return "caching=" + this.caching + ",batch=" + this.batch
+				+ ",maxResultSize=" + this.maxResultSize + ",cacheBlocks=" + this.cacheBlocks;
+	}
+
+}
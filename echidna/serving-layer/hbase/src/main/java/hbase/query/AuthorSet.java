@@ -0,0 +1,286 @@
+package hbase.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.util.LongIntCounter;
+
+/**
+ * Immutable set of authors with their hits, held as sorted IDs and parallel hits, so that the subqueries
+ * can pass their results to each other without creating an object per author.
+ * The encodings of the IDs as qualifiers and as row keys are computed once, the first time they are needed.
+ * @author Daniele Morgantini
+ */
+public class AuthorSet {
+
+	/** Ratio between the sizes of two sets above which the intersection searches the smaller one's IDs in the larger one */
+	private static final int GALLOPRATIO = 32;
+
+	private static final AuthorSet EMPTY = new AuthorSet(new long[0], new int[0]);
+
+	private final long[] ids;
+
+	private final int[] hits;
+
+	private byte[][] qualifiers;
+
+	private byte[][] rows;
+
+
+	/**
+	 * Creates an instance of AuthorSet, without copying the arrays
+	 * @param ids the IDs, sorted in ascending order without duplicates
+	 * @param hits the hits of each ID
+	 */
+	private AuthorSet(final long[] ids, final int[] hits) {
+		this.ids = ids;
+		this.hits = hits;
+	}
+
+	/**
+	 * Retrieves the empty set
+	 * @return the empty set
+	 */
+	public static AuthorSet empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Creates the set of the counted IDs reaching the threshold, each with its count as hits
+	 * @return the set of the counted IDs reaching the threshold
+	 * @param counter the counts of the IDs
+	 * @param minHits the minimum count to keep an ID
+	 */
+	public static AuthorSet fromCounter(final LongIntCounter counter, final int minHits) {
+
+		long[] ids = new long[counter.size()];
+		int n = 0;
+		LongIntCounter.Cursor e = counter.cursor();
+		while(e.next()) {
+			if(e.value() >= minHits)
+				ids[n++] = e.key();
+		}
+		ids = Arrays.copyOf(ids, n);
+		Arrays.sort(ids);
+		int[] hits = new int[n];
+		for(int i = 0; i < n; i++)
+			hits[i] = counter.get(ids[i]);
+		return new AuthorSet(ids, hits);
+	}
+
+	/**
+	 * Creates the set of the authors, the hits of an author appearing more than once being the ones it appears with first
+	 * @return the set of the authors
+	 * @param authors the authors
+	 */
+	public static AuthorSet fromAuthors(final List<Author> authors) {
+
+		LongIntCounter counter = new LongIntCounter(authors.size());
+		for(Author a : authors) {
+			if(!counter.contains(a.getId()))
+				counter.add(a.getId(), a.getHits());
+		}
+		return fromCounter(counter, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Retrieves the number of authors
+	 * @return the number of authors
+	 */
+	public int size() {
+		return this.ids.length;
+	}
+
+	/**
+	 * Checks if the set is empty
+	 * @return true if the set is empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return this.ids.length == 0;
+	}
+
+	/**
+	 * Retrieves the ID of the i-th author, in ascending order of ID
+	 * @return the ID of the i-th author
+	 * @param i the position of the author
+	 */
+	public long getId(final int i) {
+		return this.ids[i];
+	}
+
+	/**
+	 * Retrieves the hits of the i-th author, in ascending order of ID
+	 * @return the hits of the i-th author
+	 * @param i the position of the author
+	 */
+	public int getHits(final int i) {
+		return this.hits[i];
+	}
+
+	/**
+	 * Selects the first authors of a ranking of the set
+	 * @return at most k authors, in ranking order, the ones ranking the same in ascending order of ID
+	 * @param k the number of authors to select
+	 * @param byHits true to rank by hits, false by ID
+	 * @param asc the order: ascendent puts the smallest IDs first, but the authors with most hits first
+	 */
+	public List<Author> top(final int k, final boolean byHits, final boolean asc) {
+		if(byHits)
+			return TopK.select(this.ids, this.hits, k, true, asc);
+
+		int n = Math.max(0, Math.min(k, this.ids.length));
+		List<Author> authors = new ArrayList<Author>(n);
+		for(int i = 0; i < n; i++) {
+			int j = asc ? i : this.ids.length - 1 - i;
+			authors.add(new Author(this.ids[j], this.hits[j]));
+		}
+		return authors;
+	}
+
+	/**
+	 * Tells whether the author belongs to the set
+	 * @return true if the author belongs to the set, false otherwise
+	 * @param id the ID of the author
+	 */
+	public boolean contains(final long id) {
+		return Arrays.binarySearch(this.ids, id) >= 0;
+	}
+
+	/**
+	 * Computes the authors of this set that also belong to the other one
+	 * @return the authors belonging to both sets, with their hits in this set
+	 * @param other the other set
+	 */
+	public AuthorSet intersect(final AuthorSet other) {
+
+		int capacity = Math.min(this.ids.length, other.ids.length);
+		long[] ids = new long[capacity];
+		int[] hits = new int[capacity];
+		int n = 0;
+
+		if((long) this.ids.length * GALLOPRATIO < other.ids.length) {
+			for(int i = 0; i < this.ids.length; i++) {
+				if(Arrays.binarySearch(other.ids, this.ids[i]) >= 0) {
+					ids[n] = this.ids[i];
+					hits[n++] = this.hits[i];
+				}
+			}
+		} else if((long) other.ids.length * GALLOPRATIO < this.ids.length) {
+			for(int j = 0; j < other.ids.length; j++) {
+				int i = Arrays.binarySearch(this.ids, other.ids[j]);
+				if(i >= 0) {
+					ids[n] = this.ids[i];
+					hits[n++] = this.hits[i];
+				}
+			}
+		} else {
+			int i = 0;
+			int j = 0;
+			while(i < this.ids.length && j < other.ids.length) {
+				long a = this.ids[i];
+				long b = other.ids[j];
+				if(a < b)
+					i++;
+				else if(a > b)
+					j++;
+				else {
+					ids[n] = a;
+					hits[n++] = this.hits[i];
+					i++;
+					j++;
+				}
+			}
+		}
+		return n == capacity ? new AuthorSet(ids, hits) : new AuthorSet(Arrays.copyOf(ids, n), Arrays.copyOf(hits, n));
+	}
+
+	/**
+	 * Computes the authors belonging to either set
+	 * @return the authors belonging to either set, with the sum of their hits in the two sets
+	 * @param other the other set
+	 */
+	public AuthorSet union(final AuthorSet other) {
+
+		long[] ids = new long[this.ids.length + other.ids.length];
+		int[] hits = new int[ids.length];
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		while(i < this.ids.length || j < other.ids.length) {
+			if(j == other.ids.length || (i < this.ids.length && this.ids[i] < other.ids[j])) {
+				ids[n] = this.ids[i];
+				hits[n++] = this.hits[i++];
+			} else if(i == this.ids.length || other.ids[j] < this.ids[i]) {
+				ids[n] = other.ids[j];
+				hits[n++] = other.hits[j++];
+			} else {
+				ids[n] = this.ids[i];
+				hits[n++] = this.hits[i++] + other.hits[j++];
+			}
+		}
+		return n == ids.length ? new AuthorSet(ids, hits) : new AuthorSet(Arrays.copyOf(ids, n), Arrays.copyOf(hits, n));
+	}
+
+	/**
+	 * Keeps the authors with enough hits
+	 * @return the authors with no less than the given hits
+	 * @param minHits the minimum hits
+	 */
+	public AuthorSet threshold(final int minHits) {
+
+		long[] ids = new long[this.ids.length];
+		int[] hits = new int[this.ids.length];
+		int n = 0;
+		for(int i = 0; i < this.ids.length; i++) {
+			if(this.hits[i] >= minHits) {
+				ids[n] = this.ids[i];
+				hits[n++] = this.hits[i];
+			}
+		}
+		if(n == this.ids.length)
+			return this;
+		return new AuthorSet(Arrays.copyOf(ids, n), Arrays.copyOf(hits, n));
+	}
+
+	/**
+	 * Retrieves the IDs encoded as the qualifiers of the tables store them, i.e. as strings
+	 * @return the qualifiers of the authors, in ascending order of ID; not to be modified
+	 */
+	public synchronized byte[][] qualifiers() {
+		if(this.qualifiers == null) {
+			byte[][] qualifiers = new byte[this.ids.length][];
+			for(int i = 0; i < this.ids.length; i++)
+				qualifiers[i] = Bytes.toBytes(String.valueOf(this.ids[i]));
+			this.qualifiers = qualifiers;
+		}
+		return this.qualifiers;
+	}
+
+	/**
+	 * Retrieves the IDs encoded as the row keys of the tables store them, i.e. as longs
+	 * @return the row keys of the authors, in ascending order of ID; not to be modified
+	 */
+	public synchronized byte[][] rows() {
+		if(this.rows == null) {
+			byte[][] rows = new byte[this.ids.length][];
+			for(int i = 0; i < this.ids.length; i++)
+				rows[i] = Bytes.toBytes(this.ids[i]);
+			this.rows = rows;
+		}
+		return this.rows;
+	}
+
+	/**
+	 * Creates an author for each ID
+	 * @return the authors, in ascending order of ID
+	 */
+	public List<Author> toList() {
+		List<Author> authors = new ArrayList<Author>(this.ids.length);
+		for(int i = 0; i < this.ids.length; i++)
+			authors.add(new Author(this.ids[i], this.hits[i]));
+		return authors;
+	}
+
+}
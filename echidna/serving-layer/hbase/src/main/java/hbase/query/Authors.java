@@ -28,6 +28,8 @@ public class Authors {
 	private HQuery query;
 	
 	private List<Author> authors;
+	
+	private AuthorSet set;
 
 	
 	/**
@@ -45,7 +47,7 @@ public class Authors {
 	 * @return true if the authors list is empty, false otherwise
 	 * */
 	public boolean isEmpty() {
-		return this.authors.isEmpty();
+		return this.authors == null ? this.set.isEmpty() : this.authors.isEmpty();
 	}
 	
 	
@@ -54,7 +56,7 @@ public class Authors {
 	 * @return the number of authors
 	 * */
 	public int size() {
-		return this.authors.size();
+		return this.authors == null ? this.set.size() : this.authors.size();
 	}
 	
 	/**
@@ -248,11 +250,36 @@ public class Authors {
     }
 	
 	/**
-	 * Retrieves the authors list
+	 * Selects the first authors of a ranking, without sorting all of them
+	 * @return at most the given number of authors, in ranking order, the ones ranking the same in their current order
+	 * @param amount the number of authors to select
+	 * @param byHits true to rank by hits, false by ID
+	 * @param asc the order: ascendent puts the smallest IDs first, but the authors with most hits first
+	 */
+	public List<Author> top(final int amount, final boolean byHits, final boolean asc) {
+		if(this.authors == null)
+			return this.set.top(amount, byHits, asc);
+
+		long[] ids = new long[this.authors.size()];
+		int[] hits = new int[ids.length];
+		int i = 0;
+		for(Author a : this.authors) {
+			ids[i] = a.getId();
+			hits[i++] = a.getHits();
+		}
+		return TopK.select(ids, hits, amount, byHits, asc);
+	}
+	
+	/**
+	 * Retrieves the authors list, creating it out of the set if the authors are held as a set.
+	 * The list can be modified, so the set is discarded
 	 * @return the authors list
 	 */
 	public List<Author> getAuthors() {
-		return authors;
+		if(this.authors == null)
+			this.authors = this.set.toList();
+		this.set = null;
+		return this.authors;
 	}
 	
 	/**
@@ -261,6 +288,26 @@ public class Authors {
 	 */
 	public void setAuthors(final List<Author> authors) {
 		this.authors = authors;
+		this.set = null;
+	}
+	
+	/**
+	 * Retrieves the authors as a set, to be preferred by the subqueries that don't care about their order
+	 * @return the set of the authors, not to be kept once the list is asked for
+	 */
+	public AuthorSet getAuthorSet() {
+		if(this.set == null)
+			this.set = AuthorSet.fromAuthors(this.authors);
+		return this.set;
+	}
+	
+	/**
+	 * Sets the authors as a set, leaving the list to be created only if asked for
+	 * @param set the set of the authors
+	 */
+	public void setAuthorSet(final AuthorSet set) {
+		this.set = set;
+		this.authors = null;
 	}
 
 	
@@ -270,7 +317,7 @@ public class Authors {
 	 */
 	public String toString() {
 		String result = "[ ";
-		for(Author a : this.authors){
+		for(Author a : this.getAuthors()){
 			result += a.getId() + " ";
 		}
 		result += "]";
@@ -1,7 +1,7 @@
 package hbase.query;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import hbase.query.subquery.HSubQuery;
@@ -38,7 +38,15 @@ public class HQuery {
 	 * @param authors the list of authors to set
 	 */
 	public void updateUsers(final List<Author> authors) {
-		this.users.setAuthors(authors);;
+		this.users.setAuthors(authors);
+	}
+	
+	/**
+	 * Updates the authors associated to the query
+	 * @param authors the set of authors to set
+	 */
+	public void updateUsers(final AuthorSet authors) {
+		this.users.setAuthorSet(authors);
 	}
 	
 	
@@ -47,7 +55,7 @@ public class HQuery {
 	 * @return the list of subqueries the query is composed of
 	 */
 	public List<HSubQuery> getSubqueries() {
-		return this.subqueries;
+		return Collections.unmodifiableList(this.subqueries);
 	}
 	
 	
@@ -60,19 +68,41 @@ public class HQuery {
 	}
 	
 	
+	/**
+	 * Retrieves the canonical form of the query, made of the ones of its subqueries
+	 * @return the canonical form of the query, null if its result mustn't be reused
+	 */
+	public String getKey() {
+		
+		StringBuilder key = new StringBuilder();
+		for(HSubQuery s : this.subqueries) {
+			String subKey = s.getKey();
+			if(subKey == null)
+				return null;
+			key.append(subKey).append('|');
+		}
+		return key.toString();
+	}
+	
+	/**
+	 * Retrieves for how long the result of the query can be reused
+	 * @return the milliseconds the result of the query stays valid
+	 */
+	public long getTimeToLive() {
+		
+		long ttl = Long.MAX_VALUE;
+		for(HSubQuery s : this.subqueries)
+			ttl = Math.min(ttl, s.getTimeToLive());
+		return ttl;
+	}
+	
+	
 	/**
 	 * Answers the query
 	 * @return the authors that match the query
 	 * */
 	public Authors answer() {
-		
-		for(HSubQuery s : this.subqueries)
-			try {
-				s.execute(this.users);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		return this.users;
+		return HQueryExecutor.getInstance().answer(this);
 	}
 
 }
@@ -0,0 +1,58 @@
+package hbase.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set of queries answered together: the queries starting with an aggregation of the mentions in the same
+ * fixed time window share a single coprocessor invocation, over all the mentioned authors they ask for
+ * @author Daniele Morgantini
+ */
+public class HQueryBatch {
+
+	private List<HQuery> queries;
+
+	/**
+	 * No argument constructor
+	 * @return an HQueryBatch instance
+	 */
+	public HQueryBatch() {
+		this.queries = new ArrayList<HQuery>();
+	}
+
+	/**
+	 * Adds a query to the batch
+	 * @return the batch
+	 * @param query the query to add, built for this batch only
+	 */
+	public HQueryBatch add(final HQuery query) {
+		this.queries.add(query);
+		return this;
+	}
+
+	/**
+	 * Retrieves the queries of the batch
+	 * @return the queries of the batch, in the order they were added
+	 */
+	public List<HQuery> getQueries() {
+		return Collections.unmodifiableList(this.queries);
+	}
+
+	/**
+	 * Retrieves the number of queries of the batch
+	 * @return the number of queries of the batch
+	 */
+	public int size() {
+		return this.queries.size();
+	}
+
+	/**
+	 * Answers the queries of the batch
+	 * @return the authors that match each query, in the order the queries were added
+	 */
+	public List<Authors> answer() {
+		return HQueryExecutor.getInstance().answer(this);
+	}
+
+}
@@ -0,0 +1,120 @@
+package hbase.query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process cache of query results, keyed by the canonical form of the queries.
+ * The least recently used results are evicted when the cache is full,
+ * and all of them should be invalidated when the batch views are reloaded.
+ * @author Daniele Morgantini
+ */
+public class HQueryCache {
+
+	public static final int DEFAULTCAPACITY = 1000;
+
+	public static final long DEFAULTTTL = 24 * 60 * 60 * 1000L;
+
+	private static HQueryCache instance;
+
+	private long maxTimeToLive;
+
+	private Map<String,Entry> entries;
+
+
+	/**
+	 * Creates an instance of HQueryCache
+	 * @return an instance of HQueryCache
+	 * @param capacity the maximum number of results to keep
+	 * @param maxTimeToLive the maximum number of milliseconds a result can be reused for
+	 */
+	public HQueryCache(final int capacity, final long maxTimeToLive) {
+		this.maxTimeToLive = maxTimeToLive;
+		this.entries = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String,Entry> eldest) {
+				return this.size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Retrieves the shared instance of HQueryCache
+	 * @return the shared instance of HQueryCache
+	 */
+	public static synchronized HQueryCache getInstance() {
+		if(instance == null)
+			instance = new HQueryCache(DEFAULTCAPACITY, DEFAULTTTL);
+		return instance;
+	}
+
+	/**
+	 * Retrieves the result of the query, if it is still valid
+	 * @return a copy of the authors that matched the query, null if missing or expired
+	 * @param key the canonical form of the query
+	 */
+	public synchronized List<Author> get(final String key) {
+		Entry e = this.entries.get(key);
+		if(e == null)
+			return null;
+		if(e.expiration < System.currentTimeMillis()) {
+			this.entries.remove(key);
+			return null;
+		}
+		return copy(e.authors);
+	}
+
+	/**
+	 * Stores the result of the query
+	 * @param key the canonical form of the query
+	 * @param authors the authors that matched the query
+	 * @param timeToLive the milliseconds the result stays valid
+	 */
+	public synchronized void put(final String key, final List<Author> authors, final long timeToLive) {
+		long ttl = Math.min(timeToLive, this.maxTimeToLive);
+		if(ttl <= 0)
+			return;
+		this.entries.put(key, new Entry(copy(authors), System.currentTimeMillis() + ttl));
+	}
+
+	/**
+	 * Discards all the results, to be called when the batch views are reloaded
+	 */
+	public synchronized void invalidateAll() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Retrieves the number of stored results
+	 * @return the number of stored results, expired ones included
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	private static List<Author> copy(final List<Author> authors) {
+		List<Author> copy = new ArrayList<Author>(authors.size());
+		for(Author a : authors)
+			copy.add(new Author(a.getId(), a.getHits()));
+		return copy;
+	}
+
+
+	private static class Entry {
+
+		private final List<Author> authors;
+
+		private final long expiration;
+
+		Entry(final List<Author> authors, final long expiration) {
+			this.authors = authors;
+			this.expiration = expiration;
+		}
+	}
+
+}
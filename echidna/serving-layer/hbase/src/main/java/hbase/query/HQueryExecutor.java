@@ -0,0 +1,231 @@
+package hbase.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.coprocessors.MentionCounts;
+
+import hbase.query.subquery.AuthorsRankedByHits;
+import hbase.query.subquery.AuthorsTake;
+import hbase.query.subquery.AuthorsThatMentioned;
+import hbase.query.subquery.FixedTimeMentions;
+import hbase.query.subquery.HSubQuery;
+import hbase.query.subquery.MentionBuckets;
+import hbase.query.time.FixedTime;
+import hbase.query.time.TimeWindows;
+
+/**
+ * Query execution engine. Every subquery filters on the authors produced by the previous one,
+ * so the dependency graph of a query is a chain and the subqueries are executed in the order they were declared,
+ * except for consecutive filters, which the planner reorders from the most to the least selective: they keep the same
+ * authors whatever their order, and the hits of the filter declared last are restored once all of them are executed.
+ * A ranking followed by a take is executed as a single top-k selection.
+ * A query stops as soon as a subquery keeps no author, since the following ones would read all of them;
+ * the independent reads inside a subquery (one per mention or per followed author) are issued at once
+ * through the asynchronous clients, and their results are merged in declaration order.
+ * @author Daniele Morgantini
+ */
+public class HQueryExecutor {
+
+	private static HQueryExecutor instance;
+
+	private HQueryCache cache;
+
+	private HQueryPlanner planner;
+
+
+	/**
+	 * Creates an instance of HQueryExecutor
+	 * @return an instance of HQueryExecutor
+	 * @param cache the cache of the results, null not to reuse them
+	 */
+	public HQueryExecutor(final HQueryCache cache) {
+		this(cache, new HQueryPlanner(HQueryPlanner.DEFAULTCAPACITY));
+	}
+
+	/**
+	 * Creates an instance of HQueryExecutor
+	 * @return an instance of HQueryExecutor
+	 * @param cache the cache of the results, null not to reuse them
+	 * @param planner the planner of the order of the filters
+	 */
+	public HQueryExecutor(final HQueryCache cache, final HQueryPlanner planner) {
+		this.cache = cache;
+		this.planner = planner;
+	}
+
+	/**
+	 * Retrieves the shared instance of HQueryExecutor
+	 * @return the shared instance of HQueryExecutor
+	 */
+	public static synchronized HQueryExecutor getInstance() {
+		if(instance == null)
+			instance = new HQueryExecutor(HQueryCache.getInstance());
+		return instance;
+	}
+
+	/**
+	 * Answers the query
+	 * @return the authors that match the query
+	 * @param query the query to answer
+	 */
+	public Authors answer(final HQuery query) {
+
+		String key = this.cache == null ? null : query.getKey();
+		if(key != null) {
+			List<Author> cached = this.cache.get(key);
+			if(cached != null) {
+				query.updateUsers(cached);
+				return query.users();
+			}
+		}
+
+		pushDownTopK(query.getSubqueries());
+		List<HSubQuery> subqueries = this.planner.fuse(query.getSubqueries());
+		boolean failed = false;
+		int i = 0;
+		while(i < subqueries.size()) {
+			int end = i + 1;
+			if(subqueries.get(i).isFilter())
+				while(end < subqueries.size() && subqueries.get(end).isFilter())
+					end++;
+			try {
+				if(end - i > 1)
+					this.executeFilters(query, subqueries.subList(i, end));
+				else
+					this.execute(query, subqueries.get(i));
+			} catch (IOException e) {
+				failed = true;
+				e.printStackTrace();
+			}
+			if(query.users().isEmpty())
+				break;
+			i = end;
+		}
+		if(key != null && !failed)
+			this.cache.put(key, query.users().getAuthors(), query.getTimeToLive());
+		return query.users();
+	}
+
+	/**
+	 * Executes consecutive filters from the most to the least selective, then gives the authors they kept
+	 * the hits of the filter declared last
+	 * @param query the query the filters belong to
+	 * @param filters the filters, in the order they were declared
+	 */
+	private void executeFilters(final HQuery query, final List<HSubQuery> filters) throws IOException {
+
+		HSubQuery declaredLast = filters.get(filters.size() - 1);
+		AuthorSet hits = null;
+		for(HSubQuery s : this.planner.order(filters)) {
+			this.execute(query, s);
+			if(query.users().isEmpty())
+				return;
+			if(s == declaredLast)
+				hits = query.users().getAuthorSet();
+		}
+		query.updateUsers(hits.intersect(query.users().getAuthorSet()));
+	}
+
+	/**
+	 * Executes the subquery, and lets the planner know the size of a filter given no author
+	 * @param query the query the subquery belongs to
+	 * @param s the subquery
+	 */
+	private void execute(final HQuery query, final HSubQuery s) throws IOException {
+		boolean unfiltered = query.users().isEmpty();
+		s.execute(query.users());
+		if(unfiltered && s.isFilter())
+			this.planner.record(s, query.users().size());
+	}
+
+	/**
+	 * Answers the queries of the batch. The queries that aren't cached and start with an aggregation of the mentions
+	 * in a fixed time window are grouped by window, and the counts of each group are read with a single coprocessor invocation
+	 * over all the mentioned authors of the group; each query then filters, ranks and takes its own authors out of them
+	 * @return the authors that match each query, in the order the queries were added
+	 * @param batch the queries to answer
+	 */
+	public List<Authors> answer(final HQueryBatch batch) {
+
+		Map<String,List<FixedTimeMentions>> groups = new LinkedHashMap<String,List<FixedTimeMentions>>();
+		for(HQuery q : batch.getQueries()) {
+			if(q.getSubqueries().isEmpty() || !(q.getSubqueries().get(0) instanceof FixedTimeMentions))
+				continue;
+			String key = this.cache == null ? null : q.getKey();
+			if(key != null && this.cache.get(key) != null)
+				continue;
+			FixedTimeMentions first = (FixedTimeMentions) q.getSubqueries().get(0);
+			String window = TimeWindows.key(first.getTimeRange());
+			List<FixedTimeMentions> group = groups.get(window);
+			if(group == null) {
+				group = new ArrayList<FixedTimeMentions>();
+				groups.put(window, group);
+			}
+			group.add(first);
+		}
+		for(List<FixedTimeMentions> group : groups.values())
+			shareCounts(group);
+
+		List<Authors> answers = new ArrayList<Authors>(batch.size());
+		for(HQuery q : batch.getQueries())
+			answers.add(this.answer(q));
+		return answers;
+	}
+
+	/**
+	 * Reads at once the counts of the mentioned authors of the subqueries, all in the same time window;
+	 * if the read fails, each subquery is left to read its own counts
+	 * @param group the subqueries, first of their queries so that they don't filter on any author
+	 */
+	private static void shareCounts(final List<FixedTimeMentions> group) {
+
+		FixedTime timeRange = group.get(0).getTimeRange();
+		SortedSet<Long> ids = new TreeSet<Long>();
+		for(FixedTimeMentions s : group)
+			for(Mention m : s.getMentions())
+				ids.add(m.getMentioned().getId());
+		if(ids.isEmpty())
+			return;
+
+		try {
+			MentionCounts counts = new MentionBuckets(timeRange, ids).count(AuthorSet.empty());
+			for(FixedTimeMentions s : group)
+				s.setCounts(counts);
+		} catch (Throwable e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Lets an aggregation followed by a ranking by most hits and a take discard,
+	 * already on the region servers, the authors that won't be taken
+	 * @param subqueries the subqueries of the query
+	 */
+	private static void pushDownTopK(final List<HSubQuery> subqueries) {
+
+		for(int i = 0; i + 2 < subqueries.size(); i++) {
+			HSubQuery aggregation = subqueries.get(i);
+			HSubQuery ranking = subqueries.get(i + 1);
+			HSubQuery take = subqueries.get(i + 2);
+			if(aggregation instanceof AuthorsThatMentioned && ranking instanceof AuthorsRankedByHits
+					&& ((AuthorsRankedByHits) ranking).isAsc() && take instanceof AuthorsTake) {
+				((AuthorsThatMentioned) aggregation).setTopK(((AuthorsTake) take).getAmount());
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the cache of the results
+	 * @return the cache of the results, null if they aren't reused
+	 */
+	public HQueryCache getCache() {
+		return this.cache;
+	}
+
+}
@@ -1,22 +1,105 @@
 package hbase.query;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import hbase.query.Authors;
 import hbase.query.HQuery;
+import hbase.query.HQueryBatch;
 
 /**
- * Query executor. As far as the system has been developed, it doesn't do much,
- * but it could be improved as new needs arise.
+ * Query executor. Queries can be answered on the calling thread, or submitted to a bounded pool of workers
+ * shared by the whole JVM, so that the number of queries running at once doesn't grow with the callers.
+ * Each query must be built for a single request: it holds the state of its own execution.
  * @author Daniele Morgantini
  * */
 public class HQueryManager {
-	
+
+	public static final int DEFAULTWORKERS = 32;
+
+	public static final int DEFAULTQUEUE = 256;
+
+	private static HQueryManager instance;
+
+	private HQueryExecutor executor;
+
+	private ListeningExecutorService workers;
+
 	public HQueryManager() {
+		this(HQueryExecutor.getInstance());
+	}
+
+	public HQueryManager(final HQueryExecutor executor) {
+		this(executor, DEFAULTWORKERS, DEFAULTQUEUE);
 	}
-	
+
+	/**
+	 * Creates an instance of HQueryManager
+	 * @return an instance of HQueryManager
+	 * @param executor the engine answering the queries
+	 * @param workers the maximum number of queries running at once
+	 * @param queue the maximum number of submitted queries waiting for a worker
+	 */
+	public HQueryManager(final HQueryExecutor executor, final int workers, final int queue) {
+		this.executor = executor;
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queue),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hquery-%d").build());
+		pool.allowCoreThreadTimeOut(true);
+		this.workers = MoreExecutors.listeningDecorator(pool);
+	}
+
+	/**
+	 * Retrieves the shared instance of HQueryManager
+	 * @return the shared instance of HQueryManager
+	 */
+	public static synchronized HQueryManager getInstance() {
+		if(instance == null)
+			instance = new HQueryManager();
+		return instance;
+	}
+
 	public Authors answer(final HQuery q) throws IOException {
-		return q.answer();
+		return this.executor.answer(q);
+	}
+
+	/**
+	 * Submits the query to the workers
+	 * @return the future of the authors that match the query
+	 * @param q the query, not to be modified nor submitted again
+	 * @throws java.util.concurrent.RejectedExecutionException if all the workers are busy and the queue is full
+	 */
+	public ListenableFuture<Authors> submit(final HQuery q) {
+		return this.workers.submit(new Callable<Authors>() {
+			@Override
+			public Authors call() {
+				return executor.answer(q);
+			}
+		});
+	}
+
+	/**
+	 * Submits the batch of queries to the workers, as a single task
+	 * @return the future of the authors that match each query, in the order the queries were added
+	 * @param batch the queries, not to be modified nor submitted again
+	 * @throws java.util.concurrent.RejectedExecutionException if all the workers are busy and the queue is full
+	 */
+	public ListenableFuture<List<Authors>> submit(final HQueryBatch batch) {
+		return this.workers.submit(new Callable<List<Authors>>() {
+			@Override
+			public List<Authors> call() {
+				return executor.answer(batch);
+			}
+		});
 	}
 
 }
@@ -0,0 +1,128 @@
+package hbase.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hbase.query.subquery.AuthorsTake;
+import hbase.query.subquery.AuthorsThatMentioned;
+import hbase.query.subquery.AuthorsTopK;
+import hbase.query.subquery.HSubQuery;
+
+/**
+ * Planner of the execution order of consecutive filters: the most selective one is executed first,
+ * so that the following ones read only the columns of the few authors it kept. A ranking followed by a take
+ * is fused into a single top-k selection.
+ * The size of a filter is the one it had the last time it was executed on no author, if known,
+ * its estimate otherwise; the least recently used sizes are forgotten when too many are known.
+ * @author Daniele Morgantini
+ */
+public class HQueryPlanner {
+
+	public static final int DEFAULTCAPACITY = 10000;
+
+	private Map<String,Long> sizes;
+
+
+	/**
+	 * Creates an instance of HQueryPlanner
+	 * @return an instance of HQueryPlanner
+	 * @param capacity the maximum number of sizes to remember
+	 */
+	public HQueryPlanner(final int capacity) {
+		this.sizes = new LinkedHashMap<String,Long>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String,Long> eldest) {
+				return this.size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Orders consecutive filters from the most to the least selective. A filter whose aggregation discards
+	 * the authors that won't be taken is kept last, since it relies on being given all the candidates
+	 * @return the filters in the order they should be executed
+	 * @param filters the filters, in the order they were declared
+	 */
+	public List<HSubQuery> order(final List<HSubQuery> filters) {
+
+		List<HSubQuery> ordered = new ArrayList<HSubQuery>(filters);
+		HSubQuery last = ordered.get(ordered.size() - 1);
+		boolean pinned = last instanceof AuthorsThatMentioned && ((AuthorsThatMentioned) last).getTopK() > 0;
+		List<HSubQuery> movable = pinned ? ordered.subList(0, ordered.size() - 1) : ordered;
+
+		final Map<HSubQuery,Long> estimates = new IdentityHashMap<HSubQuery,Long>();
+		for(HSubQuery s : movable)
+			estimates.put(s, this.estimate(s));
+		Collections.sort(movable, new Comparator<HSubQuery>() {
+			@Override
+			public int compare(final HSubQuery x, final HSubQuery y) {
+				long a = estimates.get(x);
+				long b = estimates.get(y);
+				return a < b ? -1 : (a == b ? 0 : 1);
+			}
+		});
+		return ordered;
+	}
+
+	/**
+	 * Fuses each ranking followed by a take into a single subquery selecting the authors to take out of a bounded heap;
+	 * a ranking followed by no take still sorts all the authors
+	 * @return the subqueries to execute
+	 * @param subqueries the subqueries, in the order they were declared
+	 */
+	public List<HSubQuery> fuse(final List<HSubQuery> subqueries) {
+
+		List<HSubQuery> fused = new ArrayList<HSubQuery>(subqueries.size());
+		for(int i = 0; i < subqueries.size(); i++) {
+			HSubQuery s = subqueries.get(i);
+			if(i + 1 < subqueries.size() && AuthorsTopK.canFuse(s, subqueries.get(i + 1))) {
+				fused.add(new AuthorsTopK(s, (AuthorsTake) subqueries.get(++i)));
+			} else
+				fused.add(s);
+		}
+		return fused;
+	}
+
+	/**
+	 * Estimates how many authors the filter keeps when it is given none
+	 * @return the size of the filter the last time it was executed on no author, its estimate if unknown
+	 * @param filter the filter
+	 */
+	public long estimate(final HSubQuery filter) {
+		String key = filter.getKey();
+		if(key != null) {
+			Long size = this.get(key);
+			if(size != null)
+				return size;
+		}
+		return filter.estimateSize();
+	}
+
+	/**
+	 * Remembers how many authors the filter kept when it was given none
+	 * @param filter the filter
+	 * @param size the number of authors the filter kept
+	 */
+	public void record(final HSubQuery filter, final int size) {
+		String key = filter.getKey();
+		if(key != null)
+			this.put(key, (long) size);
+	}
+
+	private synchronized Long get(final String key) {
+		return this.sizes.get(key);
+	}
+
+	private synchronized void put(final String key, final Long size) {
+		this.sizes.put(key, size);
+	}
+
+}
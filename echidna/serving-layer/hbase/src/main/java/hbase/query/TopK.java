@@ -0,0 +1,117 @@
+package hbase.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selection of the first authors of a ranking without sorting all of them: a bounded heap of positions keeps the best
+ * k seen so far, in O(n log k) over the primitive arrays. The authors ranking the same keep their given order,
+ * as a stable sort followed by a take would.
+ * @author Daniele Morgantini
+ */
+public class TopK {
+
+	private final long[] ids;
+
+	private final int[] hits;
+
+	private final boolean byHits;
+
+	private final boolean asc;
+
+	private TopK(final long[] ids, final int[] hits, final boolean byHits, final boolean asc) {
+		this.ids = ids;
+		this.hits = hits;
+		this.byHits = byHits;
+		this.asc = asc;
+	}
+
+	/**
+	 * Selects the first authors of the ranking
+	 * @return at most k authors, in ranking order
+	 * @param ids the IDs of the authors, in their given order
+	 * @param hits the hits of each author
+	 * @param k the number of authors to select
+	 * @param byHits true to rank by hits, false by ID
+	 * @param asc the order: ascendent puts the smallest IDs first, but the authors with most hits first
+	 */
+	public static List<Author> select(final long[] ids, final int[] hits, final int k, final boolean byHits, final boolean asc) {
+		return new TopK(ids, hits, byHits, asc).select(Math.max(0, Math.min(k, ids.length)));
+	}
+
+	private List<Author> select(final int k) {
+
+		/* heap of the positions kept so far, the worst ranking one at the root */
+		int[] heap = new int[k];
+		int size = 0;
+		for(int i = 0; i < this.ids.length && k > 0; i++) {
+			if(size < k) {
+				heap[size] = i;
+				this.siftUp(heap, size++);
+			} else if(this.before(i, heap[0])) {
+				heap[0] = i;
+				this.siftDown(heap, size);
+			}
+		}
+
+		Author[] best = new Author[size];
+		while(size > 0) {
+			int worst = heap[0];
+			best[--size] = new Author(this.ids[worst], this.hits[worst]);
+			heap[0] = heap[size];
+			this.siftDown(heap, size);
+		}
+		List<Author> authors = new ArrayList<Author>(best.length);
+		for(Author a : best)
+			authors.add(a);
+		return authors;
+	}
+
+	/**
+	 * Tells whether the author at a position ranks before the one at another position
+	 */
+	private boolean before(final int i, final int j) {
+		if(this.byHits) {
+			if(this.hits[i] != this.hits[j])
+				return this.asc == (this.hits[i] > this.hits[j]);
+		} else {
+			if(this.ids[i] != this.ids[j])
+				return this.asc == (this.ids[i] < this.ids[j]);
+		}
+		return i < j;
+	}
+
+	private void siftUp(final int[] heap, final int from) {
+		int child = from;
+		while(child > 0) {
+			int parent = (child - 1) >>> 1;
+			if(!this.before(heap[parent], heap[child]))
+				break;
+			swap(heap, parent, child);
+			child = parent;
+		}
+	}
+
+	private void siftDown(final int[] heap, final int size) {
+		int parent = 0;
+		while(true) {
+			int worst = parent;
+			int left = 2 * parent + 1;
+			if(left < size && this.before(heap[worst], heap[left]))
+				worst = left;
+			if(left + 1 < size && this.before(heap[worst], heap[left + 1]))
+				worst = left + 1;
+			if(worst == parent)
+				return;
+			swap(heap, parent, worst);
+			parent = worst;
+		}
+	}
+
+	private static void swap(final int[] heap, final int i, final int j) {
+		int t = heap[i];
+		heap[i] = heap[j];
+		heap[j] = t;
+	}
+
+}
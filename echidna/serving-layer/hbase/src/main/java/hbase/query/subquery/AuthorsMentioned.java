@@ -63,5 +63,15 @@ public abstract class AuthorsMentioned extends HSubQuery {
 	public void setMentions(List<Mention> mentions) {
 		this.mentions = mentions;
 	}
+	
+	/**
+	 * Computes the canonical form of the subquery
+	 * @return the canonical form of the subquery
+	 * @param name the name of the request
+	 * @param window the canonical form of the time window
+	 */
+	protected String getKey(final String name, final String window) {
+		return name + "(" + window + ",times=" + this.times.getTimes() + ",mentioned=" + sortedMentionIds(this.mentions) + ")";
+	}
 
 }
@@ -18,6 +18,7 @@ import hbase.query.Authors;
 import hbase.query.HQuery;
 import hbase.query.Mention;
 import hbase.query.time.TimeRange;
+import hbase.speed.SpeedLayer;
 
 /**
  * Subquery to represent the very specific and precise authors-mentioned request
@@ -53,12 +54,7 @@ public class AuthorsMentionedBackwards extends AuthorsMentioned {
 		final long upperBound = this.timeRange.getEnd();
 		final int minTimes = this.getAtLeastTimes().getTimes();
 		
-		byte[][] auths = new byte[authors.size()][];
-		int i = 0;
-		for(Author a : authors.getAuthors()) {
-			auths[i] = Bytes.toBytes(a.getId());
-			i++;
-		}
+		byte[][] auths = authors.getAuthorSet().rows();
 		
 		long min = Long.MAX_VALUE;
 		long max = 0;
@@ -95,9 +91,14 @@ public class AuthorsMentionedBackwards extends AuthorsMentioned {
 			e1.printStackTrace();
 		}
 		
+		List<Map<String,Integer>> parts = new ArrayList<Map<String,Integer>>(results.values());
+		SpeedLayer speed = SpeedLayer.getInstance();
+		if(speed.hasMentions(toPass.keySet(), lowerBound, upperBound + 1))
+			parts.add(speed.aggregateMentions(toPass.keySet(), lowerBound, upperBound + 1, authors.getAuthorSet()));
+		
 		Map<String,Integer> aggregation = new HashMap<String,Integer>();
-		for (Map.Entry<byte[], Map<String,Integer>> entry : results.entrySet()) {
-			for(Map.Entry<String,Integer> res : entry.getValue().entrySet()) {
+		for (Map<String,Integer> part : parts) {
+			for(Map.Entry<String,Integer> res : part.entrySet()) {
 				String mentioned = res.getKey();
 				int count = res.getValue();
 				if(aggregation.containsKey(mentioned)){
@@ -6,33 +6,26 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.hadoop.hbase.client.coprocessor.Batch;
-import org.apache.hadoop.hbase.util.Bytes;
-import org.coprocessors.AuthorAggregatorProtocol;
+import org.coprocessors.MentionCounts;
 
-import hbase.HBaseClient;
-import hbase.impls.HBaseClientFactory;
 import hbase.query.AtLeastTimes;
 import hbase.query.Author;
 import hbase.query.Authors;
 import hbase.query.HQuery;
 import hbase.query.Mention;
 import hbase.query.time.FixedTime;
-import hbase.query.time.LastMonth;
-import hbase.query.time.LastYear;
-import hbase.query.time.MonthsAgo;
-import hbase.query.time.ThisYear;
+import hbase.query.time.TimeWindows;
 
 /**
  * Subquery to represent the authors-mentioned request in a fixed time window
  * @author Daniele Morgantini
  */
-public class AuthorsMentionedFixedTime extends AuthorsMentioned {
-	
-	private HBaseClient client;
+public class AuthorsMentionedFixedTime extends AuthorsMentioned implements FixedTimeMentions {
 	
 	private FixedTime timeRange;
 	
+	private MentionCounts counts;
+	
 	/**
 	 * Creates an instance of AuthorsMentionedFixedTime subquery
 	 * @return an instance of AuthorsMentionedFixedTime subquery
@@ -45,78 +38,20 @@ public class AuthorsMentionedFixedTime extends AuthorsMentioned {
 						final AtLeastTimes times, final Mention...mentions) {
 		super(query, times, mentions);
 		this.timeRange = timeRange;
-		this.setClient();
-	}
-	
-	private void setClient() {
-		if(this.timeRange instanceof LastMonth || this.timeRange instanceof MonthsAgo ||
-				this.timeRange instanceof LastYear || this.timeRange instanceof ThisYear)
-			this.client = HBaseClientFactory.getInstance().getMentionedByMonth();
-		else
-			this.client = HBaseClientFactory.getInstance().getMentionedByDay();
 	}
 	
 	@Override
 	public void execute(final Authors authors) throws IOException {
 		
 		final int minTimes = this.getAtLeastTimes().getTimes();
-		byte[][] auths = new byte[authors.size()][];
-		int i = 0;
-		long min = Long.MAX_VALUE;
-		long max = 0;
-		for(Author a : authors.getAuthors()) {
-			auths[i] = Bytes.toBytes(String.valueOf(a.getId()));
-			i++;
-		}
-		
-		Map<Long,List<String>> toPass = new HashMap<Long,List<String>>();
-		for(Mention m : this.getMentions()) {
-			List<String> lista = new ArrayList<String>();
-			long id = m.getMentioned().getId();
-			lista.add(this.timeRange.generateFirstRowKey(id));
-			lista.add(this.timeRange.generateLastRowKey(id));
-			toPass.put(id, lista);
-			if(id < min)
-				min = id;
-			if(id > max)
-				max = id;
-		}
-		
-		String minRowKey = this.timeRange.generateFirstRowKey(min);
-		String maxRowKey = this.timeRange.generateLastRowKey(max);
-		
-		Batch.Call<AuthorAggregatorProtocol, Map<String,Integer>> call = null;
-		try {
-			if(this.timeRange instanceof ThisYear) {
-				call = Batch.forMethod(AuthorAggregatorProtocol.class,
-										"aggregateMentionsThisYear", auths, toPass);
-			} else {
-				call = Batch.forMethod(AuthorAggregatorProtocol.class,
-						"aggregateMentions", auths, toPass);
-			}
-		} catch (NoSuchMethodException e1) {
-			e1.printStackTrace();
-		}
-		
-		Map<byte[],Map<String,Integer>> results = null;
-		try {
-			results = this.client.coprocessorExec(AuthorAggregatorProtocol.class,
-					Bytes.toBytes(minRowKey), Bytes.toBytes(maxRowKey), call);
-		} catch (Throwable e1) {
-			e1.printStackTrace();
-		}
-		
-		Map<String,Integer> aggregation = new HashMap<String,Integer>();
-		for (Map.Entry<byte[], Map<String,Integer>> entry : results.entrySet()) {
-			for(Map.Entry<String,Integer> res : entry.getValue().entrySet()) {
-				String mentioned = res.getKey();
-				int count = res.getValue();
-				if(aggregation.containsKey(mentioned)){
-					count += aggregation.get(mentioned);
-				}
-				aggregation.put(mentioned, count);
-			}
+		if(this.counts != null && authors.isEmpty()) {
+			this.getQuery().updateUsers(this.fromCounts(minTimes));
+			return;
 		}
+		List<Long> ids = new ArrayList<Long>();
+		for(Mention m : this.getMentions())
+			ids.add(m.getMentioned().getId());
+		Map<String,Integer> aggregation = new MentionBuckets(this.timeRange, ids).aggregate(authors.getAuthorSet());
 				
 		List<Author> list = new ArrayList<Author>();
 		for(Map.Entry<String, Integer> el : aggregation.entrySet()) {
@@ -127,4 +62,54 @@ public class AuthorsMentionedFixedTime extends AuthorsMentioned {
 		}
 		this.getQuery().updateUsers(list);
 	}
+	
+	/**
+	 * Sums the mentions received by each mentioned author from the counts read in advance
+	 * @return the mentioned authors mentioned no less than the given times
+	 * @param minTimes the minimum number of mentions per mentioned author
+	 */
+	private List<Author> fromCounts(final int minTimes) {
+		
+		Map<Long,Integer> totals = new HashMap<Long,Integer>();
+		for(Mention m : this.getMentions())
+			totals.put(m.getMentioned().getId(), 0);
+		for(int j = 0; j < this.counts.size(); j++) {
+			long mentioned = this.counts.getMentioned(j);
+			if(!totals.containsKey(mentioned))
+				continue;
+			int total = totals.get(mentioned);
+			for(int times : this.counts.getCounts(j))
+				total += times;
+			totals.put(mentioned, total);
+		}
+		
+		List<Author> list = new ArrayList<Author>();
+		for(Map.Entry<Long,Integer> el : totals.entrySet()) {
+			if(el.getValue() >= minTimes) {
+				list.add(new Author(el.getKey(),el.getValue()));
+			}
+		}
+		return list;
+	}
+	
+	@Override
+	public FixedTime getTimeRange() {
+		return this.timeRange;
+	}
+	
+	@Override
+	public void setCounts(final MentionCounts counts) {
+		this.counts = counts;
+	}
+	
+	@Override
+	public String getKey() {
+		return this.getKey("mentioned", TimeWindows.key(this.timeRange));
+	}
+	
+	@Override
+	public long getTimeToLive() {
+		return TimeWindows.timeToLive(this.timeRange);
+	}
+
 }
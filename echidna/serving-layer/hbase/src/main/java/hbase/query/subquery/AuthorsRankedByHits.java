@@ -38,6 +38,14 @@ public class AuthorsRankedByHits extends HSubQuery {
 		this.getQuery().updateUsers(authors.getAuthors());
 
 	}
+	
+	/**
+	 * Retrieves the requested order. Note that ascendent puts the authors with most hits first
+	 * @return the requested order (ascendent=true, descendent=false)
+	 */
+	public boolean isAsc() {
+		return this.asc;
+	}
 
 	
 	/**
@@ -75,4 +83,10 @@ public class AuthorsRankedByHits extends HSubQuery {
 		         : 0;
 		  }
 	}
+	
+	@Override
+	public String getKey() {
+		return "rankedByHits(" + this.asc + ")";
+	}
+
 }
@@ -38,6 +38,14 @@ public class AuthorsRankedById extends HSubQuery {
 		this.getQuery().updateUsers(authors.getAuthors());
 
 	}
+	
+	/**
+	 * Retrieves the requested order
+	 * @return the requested order (ascendent=true, descendent=false)
+	 */
+	public boolean isAsc() {
+		return this.asc;
+	}
 
 	
 	/**
@@ -75,4 +83,10 @@ public class AuthorsRankedById extends HSubQuery {
 		         : 0;
 		  }
 	}
+	
+	@Override
+	public String getKey() {
+		return "rankedById(" + this.asc + ")";
+	}
+
 }
@@ -42,5 +42,18 @@ public class AuthorsTake extends HSubQuery {
 		}
 		this.getQuery().updateUsers(result);
 	}
+	
+	/**
+	 * Retrieves the number of authors to retrieve
+	 * @return the number of authors to retrieve
+	 */
+	public int getAmount() {
+		return this.amount;
+	}
+	
+	@Override
+	public String getKey() {
+		return "take(" + this.amount + ")";
+	}
 
 }
@@ -20,6 +20,8 @@ public abstract class AuthorsThatMentioned extends HSubQuery {
 	
 	private List<Mention> mentions;
 	
+	private int topK;
+	
 	/**
 	 * Creates an instance of AuthorsThatMentioned subquery
 	 * @return an instance of AuthorsThatMentioned subquery
@@ -86,4 +88,41 @@ public abstract class AuthorsThatMentioned extends HSubQuery {
 		this.mentions = mentions;
 	}
 
+	/**
+	 * Retrieves the top-k hint
+	 * @return the number of authors with most hits needed by the following subqueries, 0 if all of them are needed
+	 */
+	public int getTopK() {
+		return topK;
+	}
+
+	/**
+	 * Sets the top-k hint, to let the aggregation discard the authors that won't be taken
+	 * @param topK the number of authors with most hits needed by the following subqueries, 0 if all of them are needed
+	 */
+	public void setTopK(int topK) {
+		this.topK = topK;
+	}
+	
+	@Override
+	public boolean isFilter() {
+		return true;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return this.mentions.size() * MENTIONERS / Math.max(this.atLeast.getLowerBound(), 1);
+	}
+	
+	/**
+	 * Computes the canonical form of the subquery, the top-k hint aside since it doesn't change the result
+	 * @return the canonical form of the subquery
+	 * @param name the name of the request
+	 * @param window the canonical form of the time window
+	 */
+	protected String getKey(final String name, final String window) {
+		return name + "(" + window + ",atLeast=" + this.atLeast.getLowerBound() + ",times=" + this.times.getTimes() +
+				",mentioned=" + sortedMentionIds(this.mentions) + ")";
+	}
+
 }
@@ -9,16 +9,20 @@ import java.util.Map;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.coprocessors.AuthorAggregatorProtocol;
+import org.coprocessors.MentionCounts;
+import org.coprocessors.util.LongIntCounter;
 
 import hbase.HBaseClient;
 import hbase.impls.HBaseClientFactory;
 import hbase.query.AtLeast;
 import hbase.query.AtLeastTimes;
 import hbase.query.Author;
+import hbase.query.AuthorSet;
 import hbase.query.Authors;
 import hbase.query.HQuery;
 import hbase.query.Mention;
 import hbase.query.time.TimeRange;
+import hbase.speed.SpeedLayer;
 
 /**
  * Subquery to represent the very specific and precise authors-that-mentioned request
@@ -135,12 +139,7 @@ public class AuthorsThatMentionedBackwards extends AuthorsThatMentioned {
 		final int minMentionedAuthors = this.getAtLeast().getLowerBound();
 		final int minTimes = this.getAtLeastTimes().getTimes();
 		
-		byte[][] auths = new byte[authors.size()][];
-		int i = 0;
-		for(Author a : authors.getAuthors()) {
-			auths[i] = Bytes.toBytes(a.getId());
-			i++;
-		}
+		byte[][] auths = authors.getAuthorSet().rows();
 		
 		long min = Long.MAX_VALUE;
 		long max = 0;
@@ -161,15 +160,20 @@ public class AuthorsThatMentionedBackwards extends AuthorsThatMentioned {
 		String minRowKey = this.timeRange.generateFirstRowKey(min);
 		String maxRowKey = this.timeRange.generateLastRowKey(max);
 		
-		Batch.Call<AuthorAggregatorProtocol, Map<String,Map<String,Integer>>> call = null;
+		/* the mentions after the last batch export add to the counts, which can't be pruned on the region servers then */
+		SpeedLayer speed = SpeedLayer.getInstance();
+		boolean recent = speed.hasMentions(toPass.keySet(), lowerBound, upperBound + 1);
+		
+		Batch.Call<AuthorAggregatorProtocol, MentionCounts> call = null;
 		try {
 			call = Batch.forMethod(AuthorAggregatorProtocol.class,
-						"aggregateMentionsByMMBackwards", auths, lowerBound, upperBound, toPass);
+						"pruneMentionsByMMBackwards", auths, lowerBound, upperBound, toPass,
+						recent ? 1 : minTimes, recent ? 1 : minMentionedAuthors, recent ? 0 : this.getTopK());
 		} catch (NoSuchMethodException e1) {
 			e1.printStackTrace();
 		}
 		
-		Map<byte[], Map<String, Map<String, Integer>>> results = null;
+		Map<byte[], MentionCounts> results = null;
 		try {
 			results = this.client.coprocessorExec(AuthorAggregatorProtocol.class,
 					Bytes.toBytes(minRowKey), Bytes.toBytes(maxRowKey), call);
@@ -177,51 +181,22 @@ public class AuthorsThatMentionedBackwards extends AuthorsThatMentioned {
 			e1.printStackTrace();
 		}
 		
-		Map<String,Map<String,Integer>> firstAggregation = new HashMap<String,Map<String,Integer>> ();
-		for (Map.Entry<byte[], Map<String,Map<String,Integer>>> entry : results.entrySet()) {
-			for(Map.Entry<String,Map<String,Integer>> res : entry.getValue().entrySet()) {
-				String mentioned = res.getKey();
-				Map<String,Integer> subMap;
-				if(firstAggregation.containsKey(mentioned)){
-					subMap = firstAggregation.get(mentioned);
-				}
-				else {
-					subMap = new HashMap<String,Integer>();
-				}
-				for(Map.Entry<String,Integer> singleCount : res.getValue().entrySet()){
-					int value = singleCount.getValue();
-					String mentioner = singleCount.getKey();
-					if(subMap.containsKey(mentioner)){
-						value += subMap.get(mentioner);
-					}
-					subMap.put(mentioner, value);
-				}
-				firstAggregation.put(mentioned, subMap);
-			}
-		}
+		List<MentionCounts> parts = new ArrayList<MentionCounts>(results.values());
+		if(recent)
+			parts.add(speed.countMentions(toPass.keySet(), lowerBound, upperBound + 1, authors.getAuthorSet()));
+		MentionCounts aggregation = MentionCounts.merge(parts);
 		
-		/* firstAggregation contains the global data, now get the one with value >= minTimes */
-		Map<String,Integer> mentionerMap = new HashMap<String,Integer>();
-		for(Map.Entry<String, Map<String,Integer>> e : firstAggregation.entrySet()) {
-			for(Map.Entry<String,Integer> f : e.getValue().entrySet()) {
-				if(f.getValue() >= minTimes) {
-					String mentioner = f.getKey();
-					int value = 1;
-					if(mentionerMap.containsKey(mentioner)) {
-						value += mentionerMap.get(mentioner);
-					}
-					mentionerMap.put(mentioner, value);
-				}
+		/* aggregation contains the global data, now get the one with value >= minTimes */
+		LongIntCounter mentionerCounter = new LongIntCounter();
+		for(int j = 0; j < aggregation.size(); j++) {
+			long[] mentioners = aggregation.getMentioners(j);
+			int[] times = aggregation.getCounts(j);
+			for(int k = 0; k < mentioners.length; k++) {
+				if(times[k] >= minTimes)
+					mentionerCounter.increment(mentioners[k]);
 			}
 		}
 				
-		List<Author> list = new ArrayList<Author>();
-		for(Map.Entry<String, Integer> el : mentionerMap.entrySet()) {
-			int counter = el.getValue();
-			if(counter >= minMentionedAuthors) {
-				list.add(new Author(Long.parseLong(el.getKey()),counter));
-			}
-		}
-		this.getQuery().updateUsers(list);
+		this.getQuery().updateUsers(AuthorSet.fromCounter(mentionerCounter, minMentionedAuthors));
 	}
 }
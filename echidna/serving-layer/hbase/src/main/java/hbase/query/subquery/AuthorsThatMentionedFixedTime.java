@@ -2,38 +2,33 @@ package hbase.query.subquery;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
-import org.apache.hadoop.hbase.client.coprocessor.Batch;
-import org.apache.hadoop.hbase.util.Bytes;
-import org.coprocessors.AuthorAggregatorProtocol;
+import org.coprocessors.MentionCounts;
+import org.coprocessors.util.LongIntCounter;
 
-import hbase.HBaseClient;
-import hbase.impls.HBaseClientFactory;
 import hbase.query.AtLeast;
 import hbase.query.AtLeastTimes;
 import hbase.query.Author;
+import hbase.query.AuthorSet;
 import hbase.query.Authors;
 import hbase.query.HQuery;
 import hbase.query.Mention;
 import hbase.query.time.FixedTime;
-import hbase.query.time.LastMonth;
-import hbase.query.time.LastYear;
-import hbase.query.time.MonthsAgo;
-import hbase.query.time.ThisYear;
+import hbase.query.time.TimeWindows;
 
 /**
  * Subquery to represent the authors-that-mentioned request in a fixed time window
  * @author Daniele Morgantini
  */
-public class AuthorsThatMentionedFixedTime extends AuthorsThatMentioned {
-	
-	private HBaseClient client;
+public class AuthorsThatMentionedFixedTime extends AuthorsThatMentioned implements FixedTimeMentions {
 	
 	private FixedTime timeRange;
 	
+	private MentionCounts counts;
+	
 	/**
 	 * Creates an instance of AuthorsThatMentionedFixedTime subquery
 	 * @return an instance of AuthorsThatMentionedFixedTime subquery
@@ -47,15 +42,6 @@ public class AuthorsThatMentionedFixedTime extends AuthorsThatMentioned {
 						final AtLeast atLeast, final AtLeastTimes times, final Mention...mentions) {
 		super(query, atLeast, times, mentions);
 		this.timeRange = timeRange;
-		this.setClient();
-	}
-	
-	private void setClient() {
-		if(this.timeRange instanceof LastMonth || this.timeRange instanceof MonthsAgo ||
-				this.timeRange instanceof LastYear || this.timeRange instanceof ThisYear)
-			this.client = HBaseClientFactory.getInstance().getMentionedByMonth();
-		else
-			this.client = HBaseClientFactory.getInstance().getMentionedByDay();
 	}
 	
 	/*
@@ -123,98 +109,55 @@ public class AuthorsThatMentionedFixedTime extends AuthorsThatMentioned {
 		
 		final int minMentionedAuthors = this.getAtLeast().getLowerBound();
 		final int minTimes = this.getAtLeastTimes().getTimes();
-		byte[][] auths = new byte[authors.size()][];
-		int i = 0;
-		long min = Long.MAX_VALUE;
-		long max = 0;
-		for(Author a : authors.getAuthors()) {
-			auths[i] = Bytes.toBytes(String.valueOf(a.getId()));
-			i++;
-		}
-		
-		
-		Map<Long,List<String>> toPass = new HashMap<Long,List<String>>();
-		for(Mention m : this.getMentions()) {
-			List<String> lista = new ArrayList<String>();
-			long id = m.getMentioned().getId();
-			lista.add(this.timeRange.generateFirstRowKey(id));
-			lista.add(this.timeRange.generateLastRowKey(id));
-			toPass.put(id, lista);
-			if(id < min)
-				min = id;
-			if(id > max)
-				max = id;
-		}
+		MentionCounts aggregation = this.counts != null && authors.isEmpty() ? this.counts : this.countMentions(authors, minTimes, minMentionedAuthors);
+		Set<Long> mentioned = new HashSet<Long>();
+		for(Mention m : this.getMentions())
+			mentioned.add(m.getMentioned().getId());
 		
-		String minRowKey = this.timeRange.generateFirstRowKey(min);
-		String maxRowKey = this.timeRange.generateLastRowKey(max);
-		
-		Batch.Call<AuthorAggregatorProtocol, Map<String, Map<String, Integer>>> call = null;
-		try {
-			if(this.timeRange instanceof ThisYear) {
-				call = Batch.forMethod(AuthorAggregatorProtocol.class,
-										"aggregateMentionsByMMThisYear", auths, toPass);
-			} else {
-				call = Batch.forMethod(AuthorAggregatorProtocol.class,
-						"aggregateMentionsByMM", auths, toPass);
+		/* aggregation contains the global data, now get the one with value >= minTimes */
+		LongIntCounter mentionerCounter = new LongIntCounter();
+		for(int j = 0; j < aggregation.size(); j++) {
+			if(!mentioned.contains(aggregation.getMentioned(j)))
+				continue;
+			long[] mentioners = aggregation.getMentioners(j);
+			int[] times = aggregation.getCounts(j);
+			for(int k = 0; k < mentioners.length; k++) {
+				if(times[k] >= minTimes)
+					mentionerCounter.increment(mentioners[k]);
 			}
-		} catch (NoSuchMethodException e1) {
-			e1.printStackTrace();
 		}
+				
+		this.getQuery().updateUsers(AuthorSet.fromCounter(mentionerCounter, minMentionedAuthors));
+	}
+	
+	private MentionCounts countMentions(final Authors authors, final int minTimes, final int minMentionedAuthors) throws IOException {
 		
-		Map<byte[], Map<String, Map<String, Integer>>> results = null;
-		try {
-			results = this.client.coprocessorExec(AuthorAggregatorProtocol.class,
-					Bytes.toBytes(minRowKey), Bytes.toBytes(maxRowKey), call);
-		} catch (Throwable e1) {
-			e1.printStackTrace();
-		}
+		List<Long> ids = new ArrayList<Long>();
+		for(Mention m : this.getMentions())
+			ids.add(m.getMentioned().getId());
 		
-		Map<String,Map<String,Integer>> firstAggregation = new HashMap<String,Map<String,Integer>> ();
-		for (Map.Entry<byte[], Map<String,Map<String,Integer>>> entry : results.entrySet()) {
-			for(Map.Entry<String,Map<String,Integer>> res : entry.getValue().entrySet()) {
-				String mentioned = res.getKey();
-				Map<String,Integer> subMap;
-				if(firstAggregation.containsKey(mentioned)){
-					subMap = firstAggregation.get(mentioned);
-				}
-				else {
-					subMap = new HashMap<String,Integer>();
-				}
-				for(Map.Entry<String,Integer> singleCount : res.getValue().entrySet()){
-					int value = singleCount.getValue();
-					String mentioner = singleCount.getKey();
-					if(subMap.containsKey(mentioner)){
-						value += subMap.get(mentioner);
-					}
-					subMap.put(mentioner, value);
-				}
-				firstAggregation.put(mentioned, subMap);
-			}
-		}
-		
-		/* firstAggregation contains the global data, now get the one with value >= minTimes */
-		Map<String,Integer> mentionerMap = new HashMap<String,Integer>();
-		for(Map.Entry<String, Map<String,Integer>> e : firstAggregation.entrySet()) {
-			for(Map.Entry<String,Integer> f : e.getValue().entrySet()) {
-				if(f.getValue() >= minTimes) {
-					String mentioner = f.getKey();
-					int value = 1;
-					if(mentionerMap.containsKey(mentioner)) {
-						value += mentionerMap.get(mentioner);
-					}
-					mentionerMap.put(mentioner, value);
-				}
-			}
-		}
-				
-		List<Author> list = new ArrayList<Author>();
-		for(Map.Entry<String, Integer> el : mentionerMap.entrySet()) {
-			int counter = el.getValue();
-			if(counter >= minMentionedAuthors) {
-				list.add(new Author(Long.parseLong(el.getKey()),counter));
-			}
-		}
-		this.getQuery().updateUsers(list);
+		return new MentionBuckets(this.timeRange, ids).prune(authors.getAuthorSet(),
+															minTimes, minMentionedAuthors, this.getTopK());
 	}
+	
+	@Override
+	public FixedTime getTimeRange() {
+		return this.timeRange;
+	}
+	
+	@Override
+	public void setCounts(final MentionCounts counts) {
+		this.counts = counts;
+	}
+	
+	@Override
+	public String getKey() {
+		return this.getKey("thatMentioned", TimeWindows.key(this.timeRange));
+	}
+	
+	@Override
+	public long getTimeToLive() {
+		return TimeWindows.timeToLive(this.timeRange);
+	}
+
 }
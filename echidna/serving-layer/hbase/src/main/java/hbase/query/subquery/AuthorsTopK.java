@@ -0,0 +1,56 @@
+package hbase.query.subquery;
+
+import hbase.query.Authors;
+import hbase.query.HQuery;
+
+/**
+ * Subquery fusing a ranking with the take following it: only the authors that will be taken are ordered,
+ * out of a bounded heap, instead of sorting all of them first. The authors ranking the same keep their order,
+ * as with the ranking followed by the take
+ * @author Daniele Morgantini
+ */
+public class AuthorsTopK extends HSubQuery {
+
+	private final boolean byHits;
+
+	private final boolean asc;
+
+	private final int amount;
+
+	private final String key;
+
+	/**
+	 * Creates an instance of AuthorsTopK subquery
+	 * @return an instance of AuthorsTopK subquery
+	 * @param ranking the ranking, by hits or by id
+	 * @param take the take following the ranking
+	 */
+	public AuthorsTopK(final HSubQuery ranking, final AuthorsTake take) {
+		this.setQuery(ranking.getQuery());
+		this.byHits = ranking instanceof AuthorsRankedByHits;
+		this.asc = this.byHits ? ((AuthorsRankedByHits) ranking).isAsc() : ((AuthorsRankedById) ranking).isAsc();
+		this.amount = take.getAmount();
+		this.key = ranking.getKey() + "|" + take.getKey();
+	}
+
+	/**
+	 * Tells whether the subquery can fuse the given ranking and take
+	 * @return true if the first subquery ranks the authors and the second one takes them
+	 * @param ranking the first subquery
+	 * @param take the subquery following it
+	 */
+	public static boolean canFuse(final HSubQuery ranking, final HSubQuery take) {
+		return (ranking instanceof AuthorsRankedByHits || ranking instanceof AuthorsRankedById) && take instanceof AuthorsTake;
+	}
+
+	@Override
+	public void execute(final Authors authors) {
+		this.getQuery().updateUsers(authors.top(this.amount, this.byHits, this.asc));
+	}
+
+	@Override
+	public String getKey() {
+		return this.key;
+	}
+
+}
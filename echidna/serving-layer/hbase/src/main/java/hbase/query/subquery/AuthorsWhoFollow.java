@@ -2,20 +2,26 @@ package hbase.query.subquery;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.util.LongIntCounter;
 
-import hbase.HBaseClient;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hbase.AsyncHBaseClient;
 import hbase.impls.HBaseClientFactory;
 import hbase.query.AtLeast;
 import hbase.query.Author;
+import hbase.query.AuthorSet;
 import hbase.query.Authors;
 import hbase.query.HQuery;
+import hbase.speed.SpeedLayer;
 
 /**
  * Subquery to represent the authors-who-follow request
@@ -23,7 +29,7 @@ import hbase.query.HQuery;
  */
 public class AuthorsWhoFollow extends HSubQuery {
 
-	private HBaseClient client;
+	private AsyncHBaseClient client;
 	
 	private AtLeast atLeast;
 	
@@ -39,7 +45,8 @@ public class AuthorsWhoFollow extends HSubQuery {
 	 */
 	public AuthorsWhoFollow(final HQuery query,	final AtLeast atLeast, final Author... authors) {
 		super(query);
-		this.client = HBaseClientFactory.getInstance().getFollowedBy();
+		HBaseClientFactory factory = HBaseClientFactory.getInstance();
+		this.client = factory.getAsync(factory.getFollowedBy());
 		this.atLeast = atLeast;
 		this.followed = new ArrayList<Author>();
 		for(Author a : authors)
@@ -49,45 +56,59 @@ public class AuthorsWhoFollow extends HSubQuery {
 	@Override
 	public void execute(final Authors authors) throws IOException {
 		
-		byte[][] columns = new byte[authors.getAuthors().size()][];
+		byte[][] columns = authors.getAuthorSet().qualifiers();
 		
-		int i = 0;
-		for(Author a : authors.getAuthors()) {
-			columns[i] = Bytes.toBytes(String.valueOf(a.getId()));
-			i++;
-		}
+		byte[][] rows = distinctRows(this.followed);
+		ListenableFuture<Result[]> read;
+		if(authors.isEmpty())
+			read = this.client.get(rows, new byte[0][]);
+		else
+			read = this.client.get(rows, columns);
 		
-		Map<Long,Integer> map = new HashMap<Long,Integer>();
+		Set<Long> ids = new LinkedHashSet<Long>();
+		for(Author a : this.followed)
+			ids.add(a.getId());
+		/* the followers gained after the last batch export, unless the batch views already hold them */
+		Map<Long,Set<Long>> recent = SpeedLayer.getInstance().followers(ids, authors.getAuthorSet());
 		
-		for(Author a : this.followed) {
-			byte[] aID = Bytes.toBytes(a.getId());
-			Result result = null;
-			if(authors.isEmpty()) {
-				result = this.client.get(aID);
-			}
-			else {
-				result = this.client.get(aID, columns);
-			}
-			
+		LongIntCounter counter = new LongIntCounter();
+		
+		for(Result result : get(read)) {
+			if(result == null || result.isEmpty())
+				continue;
+			Set<Long> gained = recent.get(Bytes.toLong(result.getRow()));
 			for(KeyValue kv : result.raw()) {
-				long id = Long.valueOf(Bytes.toString(kv.getQualifier()));
-				int value = 1;
-				if(map.containsKey(id))
-					value += map.get(id);
-				map.put(id, value);
+				long follower = LongIntCounter.parseLong(kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength());
+				counter.increment(follower);
+				if(gained != null)
+					gained.remove(follower);
 			}
 		}
+		for(Set<Long> gained : recent.values())
+			for(long follower : gained)
+				counter.increment(follower);
 		
-		List<Author> result = new ArrayList<Author>();
-		int followMin = this.atLeast.getLowerBound();
-		
-		for(Map.Entry<Long, Integer> e : map.entrySet()) {
-			int value = e.getValue();
-			if(value >= followMin)
-				result.add(new Author(e.getKey(), value));
-		}
-		
-		this.getQuery().updateUsers(result);
+		this.getQuery().updateUsers(AuthorSet.fromCounter(counter, this.atLeast.getLowerBound()));
+	}
+	
+	@Override
+	public boolean isFilter() {
+		return true;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return this.followed.size() * FOLLOWERS / Math.max(this.atLeast.getLowerBound(), 1);
+	}
+	
+	@Override
+	public long getTimeToLive() {
+		return SpeedLayer.getInstance().isEmpty() ? super.getTimeToLive() : SpeedLayer.SPEEDTTL;
+	}
+	
+	@Override
+	public String getKey() {
+		return "whoFollow(atLeast=" + this.atLeast.getLowerBound() + ",followed=" + sortedIds(this.followed) + ")";
 	}
 
 }
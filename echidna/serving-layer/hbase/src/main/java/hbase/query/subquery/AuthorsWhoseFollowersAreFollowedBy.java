@@ -2,19 +2,21 @@ package hbase.query.subquery;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.util.LongIntCounter;
 
-import hbase.HBaseClient;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hbase.AsyncHBaseClient;
 import hbase.impls.HBaseClientFactory;
 import hbase.query.AtLeast;
 import hbase.query.AtLeastFollowers;
 import hbase.query.Author;
+import hbase.query.AuthorSet;
 import hbase.query.Authors;
 import hbase.query.HQuery;
 
@@ -25,7 +27,7 @@ import hbase.query.HQuery;
  */
 public class AuthorsWhoseFollowersAreFollowedBy extends HSubQuery {
 
-	private HBaseClient client;
+	private AsyncHBaseClient client;
 		
 	private List<Author> followers;
 	
@@ -45,7 +47,8 @@ public class AuthorsWhoseFollowersAreFollowedBy extends HSubQuery {
 	public AuthorsWhoseFollowersAreFollowedBy(final HQuery query, final AtLeast atLeast,
 										final AtLeastFollowers minFollowers, final Author... authors) {
 		super(query);
-		this.client = HBaseClientFactory.getInstance().getWhoseFollowersAreFollowedBy();
+		HBaseClientFactory factory = HBaseClientFactory.getInstance();
+		this.client = factory.getAsync(factory.getWhoseFollowersAreFollowedBy());
 		this.followers = new ArrayList<Author>();
 		for(Author a : authors)
 			this.followers.add(a);
@@ -56,45 +59,43 @@ public class AuthorsWhoseFollowersAreFollowedBy extends HSubQuery {
 	@Override
 	public void execute(final Authors authors) throws IOException {
 		
-		byte[][] columns = new byte[authors.getAuthors().size()][];
-		int minFollwrs = this.minFollowers.getMinFollowers();
+		byte[][] columns = authors.getAuthorSet().qualifiers();
+		byte[] minFollwrs = Bytes.toBytes(this.minFollowers.getMinFollowers());
 		
-		int i = 0;
-		for(Author a : authors.getAuthors()) {
-			columns[i] = Bytes.toBytes(String.valueOf(a.getId()));
-			i++;
-		}
+		byte[][] rows = distinctRows(this.followers);
+		ListenableFuture<Result[]> read;
+		if(authors.isEmpty())
+			read = this.client.get(rows, new byte[0][], minFollwrs);
+		else
+			read = this.client.get(rows, columns, minFollwrs);
 		
-		Map<Long,Integer> map = new HashMap<Long,Integer>();
+		LongIntCounter counter = new LongIntCounter();
 		
-		for(Author a : this.followers) {
-			byte[] aID = Bytes.toBytes(a.getId());
-			Result result = null;
-			if(authors.isEmpty()) {
-				result = this.client.get(aID, Bytes.toBytes(minFollwrs));
-			}
-			else {
-				result = this.client.get(aID, columns, Bytes.toBytes(minFollwrs));
-			}
-			
+		for(Result result : get(read)) {
+			if(result == null || result.isEmpty())
+				continue;
 			for(KeyValue kv : result.raw()) {
-				long id = Long.valueOf(Bytes.toString(kv.getQualifier()));
-				int value = 1;
-				if(map.containsKey(id))
-					value += map.get(id);
-				map.put(id, value);
+				counter.increment(LongIntCounter.parseLong(kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength()));
 			}
 		}
 		
-		List<Author> list = new ArrayList<Author>();
-		for(Map.Entry<Long, Integer> e : map.entrySet()) {
-			int value = e.getValue();
-			if(value >= this.atLeast.getLowerBound()){
-				list.add(new Author(e.getKey(), value));
-			}
-		}
-		
-		this.getQuery().updateUsers(list);
+		this.getQuery().updateUsers(AuthorSet.fromCounter(counter, this.atLeast.getLowerBound()));
+	}
+	
+	@Override
+	public boolean isFilter() {
+		return true;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return this.followers.size() * FOLLOWED * FOLLOWERS / Math.max(this.atLeast.getLowerBound(), 1);
+	}
+	
+	@Override
+	public String getKey() {
+		return "whoseFollowersAreFollowedBy(atLeast=" + this.atLeast.getLowerBound() + ",minFollowers=" + this.minFollowers.getMinFollowers() +
+				",followers=" + sortedIds(this.followers) + ")";
 	}
 
 }
@@ -10,13 +10,19 @@ import java.util.Set;
 
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hbase.AsyncHBaseClient;
+import hbase.AsyncHBaseClient.HBaseCall;
 import hbase.HBaseClient;
 import hbase.impls.HBaseClientFactory;
 import hbase.query.AtLeast;
 import hbase.query.AtLeastTimes;
 import hbase.query.Author;
+import hbase.query.AuthorSet;
 import hbase.query.Authors;
 import hbase.query.HQuery;
 import hbase.query.Mention;
@@ -25,6 +31,7 @@ import hbase.query.time.LastMonth;
 import hbase.query.time.LastYear;
 import hbase.query.time.MonthsAgo;
 import hbase.query.time.ThisYear;
+import hbase.query.time.TimeWindows;
 
 /**
  * Subquery to represent the authors-whose-followers-mentioned request in a fixed time window
@@ -32,7 +39,7 @@ import hbase.query.time.ThisYear;
  */
 public class AuthorsWhoseFollowersMentionedFixedTime extends AuthorsThatMentioned {
 	
-	private HBaseClient client;
+	private AsyncHBaseClient client;
 	
 	private FixedTime timeRange;
 				
@@ -50,78 +57,36 @@ public class AuthorsWhoseFollowersMentionedFixedTime extends AuthorsThatMentione
 							final AtLeast atLeast, final AtLeastTimes times, final Mention...mentions) {
 		super(query, atLeast, times, mentions);
 		this.timeRange = timeRange;
+		HBaseClientFactory factory = HBaseClientFactory.getInstance();
 		if(timeRange instanceof LastMonth || timeRange instanceof MonthsAgo ||
 				timeRange instanceof LastYear || timeRange instanceof ThisYear)
-			this.client = HBaseClientFactory.getInstance().getWhoseFollowersMentionedMonth();
+			this.client = factory.getAsync(factory.getWhoseFollowersMentionedMonth());
 		else
-			this.client = HBaseClientFactory.getInstance().getWhoseFollowersMentionedDay();
+			this.client = factory.getAsync(factory.getWhoseFollowersMentionedDay());
 
 	}
 	
 	@Override
 	public void execute(final Authors authors) throws IOException {
 		
-		List<Set<String>> sets = new ArrayList<Set<String>>(this.getMentions().size());
 		int mentionMin = this.getAtLeast().getLowerBound();
-		int minMentionsPerAuth = this.getAtLeastTimes().getTimes();
+		final int minMentionsPerAuth = this.getAtLeastTimes().getTimes();
 		
-		byte[][] auths = new byte[authors.size()][];
-		int i = 0;
-		for(Author a : authors.getAuthors()) {
-			auths[i] = Bytes.toBytes(String.valueOf(a.getId()) + "_");
-			i++;
-		}
+		AuthorSet candidates = authors.getAuthorSet();
+		final byte[][] auths = new byte[candidates.size()][];
+		for(int i = 0; i < auths.length; i++)
+			auths[i] = Bytes.toBytes(String.valueOf(candidates.getId(i)) + "_");
 		
-		for(Mention m : this.getMentions()){
-			Set<String> set = new HashSet<String>(); // instantiate set for that mentioned
-			
-			String firstRow = this.timeRange.generateFirstRowKey(m.getMentioned().getId());
-			String lastRow = this.timeRange.generateLastRowKey(m.getMentioned().getId());
-			
-			if(firstRow.equalsIgnoreCase(lastRow) && !(this.timeRange instanceof ThisYear)) {
-				Result result;
-				if(auths.length==0) {
-					result = this.client.get(Bytes.toBytes(lastRow),Bytes.toBytes(minMentionsPerAuth));
-				}
-				else {
-					result = this.client.getPrefix(Bytes.toBytes(lastRow), auths, Bytes.toBytes(minMentionsPerAuth));
-				}
-				for(KeyValue kv : result.raw()) {
-						set.add(Bytes.toString(kv.getQualifier())); // if it's a get, the aggregation has already been made
-				}
-			}
-			
-			else {
-				Result[] results;
-				if(this.timeRange instanceof ThisYear) {
-					results = this.client.scanPrefix(Bytes.toBytes(firstRow), auths);
-				}
-				else {
-					if(auths.length==0){
-						results = this.client.scan(Bytes.toBytes(firstRow), Bytes.toBytes(lastRow));
-					}
-					else {
-						results = this.client.scanPrefix(Bytes.toBytes(firstRow), Bytes.toBytes(lastRow), auths);
-					}
-				}
-				Map<String,Integer> map = new HashMap<String,Integer>();
-							
-				for(Result result : results) {
-					for(KeyValue kv : result.raw()) {
-						int value = Bytes.toInt(kv.getValue());
-						String mentioner = Bytes.toString(kv.getQualifier());
-						if(map.containsKey(mentioner)) {
-							value += map.get(mentioner);
-						}
-						if(value>=minMentionsPerAuth) {
-							set.add(mentioner);
-						}
-						map.put(mentioner, value);
-					}
+		List<ListenableFuture<Set<String>>> reads = new ArrayList<ListenableFuture<Set<String>>>(this.getMentions().size());
+		for(final Mention m : this.getMentions()){
+			reads.add(this.client.submit(new HBaseCall<Set<String>>() {
+				@Override
+				public Set<String> call(final HBaseClient client) throws IOException {
+					return mentioners(client, m, auths, minMentionsPerAuth);
 				}
-			}
-			sets.add(set);
+			}));
 		}
+		List<Set<String>> sets = getAll(reads);
 		
 		
 		Map<String,Integer> result = new HashMap<String,Integer>();
@@ -156,4 +121,83 @@ public class AuthorsWhoseFollowersMentionedFixedTime extends AuthorsThatMentione
 		this.getQuery().updateUsers(list);
 	}
 	
+	/**
+	 * Retrieves the followers who mentioned the author of the mention, among the given ones
+	 * @return the set of the follower_followed pairs satisfying the minimum number of mentions
+	 * @param client the blocking client of the table
+	 * @param m the mention
+	 * @param auths the prefixes of the followed authors to consider, or none to consider all of them
+	 * @param minMentionsPerAuth the minimum number of mentions per author
+	 */
+	private Set<String> mentioners(final HBaseClient client, final Mention m, final byte[][] auths, final int minMentionsPerAuth) throws IOException {
+		
+		Set<String> set = new HashSet<String>(); // instantiate set for that mentioned
+		
+		String firstRow = this.timeRange.generateFirstRowKey(m.getMentioned().getId());
+		String lastRow = this.timeRange.generateLastRowKey(m.getMentioned().getId());
+		
+		if(firstRow.equalsIgnoreCase(lastRow) && !(this.timeRange instanceof ThisYear)) {
+			Result result;
+			if(auths.length==0) {
+				result = client.get(Bytes.toBytes(lastRow),Bytes.toBytes(minMentionsPerAuth));
+			}
+			else {
+				result = client.getPrefix(Bytes.toBytes(lastRow), auths, Bytes.toBytes(minMentionsPerAuth));
+			}
+			for(KeyValue kv : result.raw()) {
+					set.add(Bytes.toString(kv.getQualifier())); // if it's a get, the aggregation has already been made
+			}
+		}
+		
+		else {
+			ResultScanner scanner;
+			if(this.timeRange instanceof ThisYear) {
+				scanner = client.openPrefixScanner(Bytes.toBytes(firstRow), auths);
+			}
+			else {
+				if(auths.length==0){
+					scanner = client.openScanner(Bytes.toBytes(firstRow), Bytes.toBytes(lastRow));
+				}
+				else {
+					scanner = client.openPrefixScanner(Bytes.toBytes(firstRow), Bytes.toBytes(lastRow), auths);
+				}
+			}
+			Map<String,Integer> map = new HashMap<String,Integer>();
+			
+			try {
+				for(Result result : scanner) { // rows are pulled lazily, one batch at a time
+					for(KeyValue kv : result.raw()) {
+						int value = Bytes.toInt(kv.getValue());
+						String mentioner = Bytes.toString(kv.getQualifier());
+						if(map.containsKey(mentioner)) {
+							value += map.get(mentioner);
+						}
+						if(value>=minMentionsPerAuth) {
+							set.add(mentioner);
+						}
+						map.put(mentioner, value);
+					}
+				}
+			} finally {
+				scanner.close();
+			}
+		}
+		return set;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return this.getMentions().size() * MENTIONERS * FOLLOWED / Math.max(this.getAtLeast().getLowerBound(), 1);
+	}
+	
+	@Override
+	public String getKey() {
+		return this.getKey("whoseFollowersMentioned", TimeWindows.key(this.timeRange));
+	}
+	
+	@Override
+	public long getTimeToLive() {
+		return TimeWindows.timeToLive(this.timeRange);
+	}
+
 }
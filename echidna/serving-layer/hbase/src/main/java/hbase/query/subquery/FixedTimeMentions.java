@@ -0,0 +1,35 @@
+package hbase.query.subquery;
+
+import java.util.List;
+
+import org.coprocessors.MentionCounts;
+
+import hbase.query.Mention;
+import hbase.query.time.FixedTime;
+
+/**
+ * Subquery aggregating the mentions received by some authors in a fixed time window: the counts it needs
+ * can be read together with the ones of other subqueries on the same window, with a single coprocessor invocation
+ * @author Daniele Morgantini
+ */
+public interface FixedTimeMentions {
+
+	/**
+	 * Retrieves the time window
+	 * @return the time window
+	 */
+	FixedTime getTimeRange();
+
+	/**
+	 * Retrieves the mentions
+	 * @return the mentions
+	 */
+	List<Mention> getMentions();
+
+	/**
+	 * Sets the counts read in advance, so that the subquery doesn't invoke the coprocessor on its own when it is given no author
+	 * @param counts the mentioners of each mentioned author of the subquery (and possibly of others), unfiltered
+	 */
+	void setCounts(MentionCounts counts);
+
+}
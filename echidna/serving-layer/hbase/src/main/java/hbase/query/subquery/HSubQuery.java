@@ -1,9 +1,24 @@
 package hbase.query.subquery;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hbase.query.Author;
 import hbase.query.Authors;
 import hbase.query.HQuery;
+import hbase.query.Mention;
+
+import org.apache.hadoop.hbase.util.Bytes;
 
 /**
  * Simple abstract class to represent a subquery
@@ -11,6 +26,15 @@ import hbase.query.HQuery;
  */
 public abstract class HSubQuery {
 	
+	/** Average number of followers of an author, to estimate the size of the subqueries */
+	protected static final long FOLLOWERS = 1000L;
+	
+	/** Average number of authors followed by an author, to estimate the size of the subqueries */
+	protected static final long FOLLOWED = 500L;
+	
+	/** Average number of authors mentioning an author in a time window, to estimate the size of the subqueries */
+	protected static final long MENTIONERS = 100L;
+	
 	private HQuery query;
 	
 	
@@ -23,6 +47,13 @@ public abstract class HSubQuery {
 		this.query = query;
 		this.query.addSubquery(this);
 	}
+	
+	/**
+	 * Creates an instance of HSubQuery not attached to any HQuery, for the subqueries the planner derives from the declared ones
+	 * @return a HSubQuery instance
+	 */
+	protected HSubQuery() {
+	}
 
 	/**
 	 * Retrieves the belonging query
@@ -45,5 +76,115 @@ public abstract class HSubQuery {
 	 * @param authors the authors against who execute the query
 	 */
 	public abstract void execute(final Authors authors) throws IOException;
+	
+	/**
+	 * Waits for the reads to complete
+	 * @return the results of the reads, in the same order as the reads
+	 * @param reads the pending reads
+	 */
+	protected static <T> List<T> getAll(final List<ListenableFuture<T>> reads) throws IOException {
+		
+		ListenableFuture<List<T>> all = Futures.allAsList(reads);
+		try {
+			return all.get();
+		} catch (InterruptedException e) {
+			all.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		} catch (ExecutionException e) {
+			throw toIOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Waits for the read to complete
+	 * @return the result of the read
+	 * @param read the pending read
+	 */
+	protected static <T> T get(final ListenableFuture<T> read) throws IOException {
+		return getAll(Collections.singletonList(read)).get(0);
+	}
+	
+	/**
+	 * Builds the row keys of the authors, skipping the repeated ones, so they can be read with a single multi-get
+	 * @return the distinct row keys of the authors, in order of first appearance
+	 * @param authors the authors
+	 */
+	protected static byte[][] distinctRows(final List<Author> authors) {
+		Set<Long> seen = new HashSet<Long>();
+		List<byte[]> rows = new ArrayList<byte[]>(authors.size());
+		for(Author a : authors) {
+			if(seen.add(a.getId()))
+				rows.add(Bytes.toBytes(a.getId()));
+		}
+		return rows.toArray(new byte[rows.size()][]);
+	}
+	
+	/**
+	 * Tells whether the subquery only keeps some of the authors it is given, each with hits that don't depend on the others:
+	 * consecutive filters give the same authors whatever order they are executed in
+	 * @return true if the subquery is a filter, false otherwise
+	 */
+	public boolean isFilter() {
+		return false;
+	}
+	
+	/**
+	 * Estimates how many authors the subquery produces when it is given none, from the number of rows it reads
+	 * @return the estimated number of authors, Long.MAX_VALUE if unknown
+	 */
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Retrieves the canonical form of the subquery: subqueries with the same key give the same result on the same data
+	 * @return the canonical form of the subquery, null if its result mustn't be reused
+	 */
+	public String getKey() {
+		return null;
+	}
+	
+	/**
+	 * Retrieves for how long the result of the subquery can be reused, as long as the batch views aren't reloaded
+	 * @return the milliseconds the result of the subquery stays valid
+	 */
+	public long getTimeToLive() {
+		return Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Lists the IDs of the authors in ascending order, since their order doesn't affect the result
+	 * @return the sorted IDs of the authors
+	 * @param authors the authors
+	 */
+	protected static String sortedIds(final List<Author> authors) {
+		long[] ids = new long[authors.size()];
+		int i = 0;
+		for(Author a : authors)
+			ids[i++] = a.getId();
+		Arrays.sort(ids);
+		return Arrays.toString(ids);
+	}
+	
+	/**
+	 * Lists the IDs of the mentioned authors in ascending order, since their order doesn't affect the result
+	 * @return the sorted IDs of the mentioned authors
+	 * @param mentions the mentions
+	 */
+	protected static String sortedMentionIds(final List<Mention> mentions) {
+		List<Author> authors = new ArrayList<Author>(mentions.size());
+		for(Mention m : mentions)
+			authors.add(m.getMentioned());
+		return sortedIds(authors);
+	}
+	
+	private static IOException toIOException(final Throwable t) {
+		if(t instanceof IOException)
+			return (IOException) t;
+		if(t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		return new IOException(t);
+	}
 
 }
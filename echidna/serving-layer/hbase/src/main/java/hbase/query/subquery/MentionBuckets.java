@@ -0,0 +1,213 @@
+package hbase.query.subquery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.AuthorAggregatorProtocol;
+import org.coprocessors.MentionCounts;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hbase.AsyncHBaseClient;
+import hbase.HBaseClient;
+import hbase.impls.HBaseClientFactory;
+import hbase.query.AuthorSet;
+import hbase.query.time.AbsoluteTime;
+import hbase.query.time.FixedTime;
+import hbase.query.time.Rollup;
+import hbase.query.time.TimeBuckets;
+import hbase.query.time.TimeRange;
+import hbase.query.time.TimeWindows;
+import hbase.speed.SpeedLayer;
+
+/**
+ * The rows holding the mentions received by some authors in a fixed time window, covered with the fewest pre-aggregated buckets:
+ * each granularity used is read from its own table with a single coprocessor invocation, and the partial counts are summed.
+ * The parts of a day at the edges of an absolute window are read from the mentionedBy table, filtering the timestamps.
+ * All the invocations are issued at once and run concurrently, and the mentions arrived after the last batch export are added
+ * from the speed layer
+ * @author Daniele Morgantini
+ */
+public class MentionBuckets {
+
+	private final List<AsyncHBaseClient> clients = new ArrayList<AsyncHBaseClient>();
+
+	private final List<Map<Long,List<String>>> rows = new ArrayList<Map<Long,List<String>>>();
+
+	private final List<String[]> bounds = new ArrayList<String[]>();
+
+	/** the time range of each edge read from the mentionedBy table, null for the buckets */
+	private final List<TimeRange> edges = new ArrayList<TimeRange>();
+
+	private final Collection<Long> ids;
+
+	/** the instants the time window reads, the end excluded */
+	private final long[] span;
+
+	/**
+	 * Creates an instance of MentionBuckets
+	 * @return an instance of MentionBuckets
+	 * @param timeRange the fixed time window
+	 * @param ids the ids of the mentioned authors
+	 */
+	public MentionBuckets(final FixedTime timeRange, final Collection<Long> ids) {
+		this.ids = ids;
+		this.span = TimeWindows.span(timeRange);
+		HBaseClientFactory factory = HBaseClientFactory.getInstance();
+		for(Map.Entry<Rollup,List<String>> e : TimeBuckets.decompose(timeRange, factory.getRollups()).entrySet()) {
+			List<String> suffixes = e.getValue();
+			Map<Long,List<String>> toPass = new HashMap<Long,List<String>>();
+			for(long id : ids) {
+				List<String> lista = new ArrayList<String>(suffixes.size());
+				for(String suffix : suffixes)
+					lista.add(id + "_" + suffix);
+				toPass.put(id, lista);
+			}
+			this.add(factory, factory.getMentionedBy(e.getKey()), toPass, null);
+		}
+		if(timeRange instanceof AbsoluteTime) {
+			for(AbsoluteTime.Edge edge : ((AbsoluteTime) timeRange).getEdges()) {
+				Map<Long,List<String>> toPass = new HashMap<Long,List<String>>();
+				for(long id : ids) {
+					List<String> lista = new ArrayList<String>(2);
+					lista.add(edge.generateFirstRowKey(id));
+					lista.add(edge.generateLastRowKey(id));
+					toPass.put(id, lista);
+				}
+				this.add(factory, factory.getMentionedBy(), toPass, edge);
+			}
+		}
+	}
+
+	private void add(final HBaseClientFactory factory, final HBaseClient client,
+					final Map<Long,List<String>> toPass, final TimeRange edge) {
+		if(toPass.isEmpty())
+			return;
+		String minRowKey = null;
+		String maxRowKey = null;
+		for(List<String> lista : toPass.values()) {
+			if(minRowKey == null || lista.get(0).compareTo(minRowKey) < 0)
+				minRowKey = lista.get(0);
+			if(maxRowKey == null || lista.get(lista.size() - 1).compareTo(maxRowKey) > 0)
+				maxRowKey = lista.get(lista.size() - 1);
+		}
+		this.clients.add(factory.getAsync(client));
+		this.rows.add(toPass);
+		this.bounds.add(new String[]{minRowKey, maxRowKey});
+		this.edges.add(edge);
+	}
+
+	/**
+	 * Tells whether the buckets are all read from the same table, so that the counts of each region are final
+	 * as soon as the region holds all the rows of a mentioned author
+	 * @return true if a single table is read
+	 */
+	public boolean isSingleTable() {
+		return this.clients.size() <= 1;
+	}
+
+	/**
+	 * Reads the mentioners of each mentioned author
+	 * @return the mentioners of each mentioned author and their times, summed over the buckets
+	 * @param authors the mentioners to read, all of them if empty
+	 */
+	public MentionCounts count(final AuthorSet authors) throws IOException {
+		return this.prune(authors, 1, 1, 0);
+	}
+
+	/**
+	 * Reads the mentioners of each mentioned author, letting the region servers drop the ones that can't qualify
+	 * when the buckets are all read from the same table and the speed layer has nothing to add
+	 * @return the mentioners of each mentioned author and their times, summed over the buckets
+	 * @param authors the mentioners to read, all of them if empty
+	 * @param minTimes the minimum number of mentions per mentioned author
+	 * @param minMentioned the minimum number of mentioned authors
+	 * @param topK the number of authors with most mentioned authors to keep, 0 to keep them all
+	 */
+	public MentionCounts prune(final AuthorSet authors, final int minTimes, final int minMentioned, final int topK) throws IOException {
+		SpeedLayer speed = SpeedLayer.getInstance();
+		boolean recent = speed.hasMentions(this.ids, this.span[0], this.span[1]);
+		boolean pruning = this.isSingleTable() && !recent && (minTimes > 1 || minMentioned > 1 || topK > 0);
+		byte[][] auths = authors.qualifiers();
+		List<ListenableFuture<Map<byte[],MentionCounts>>> reads = new ArrayList<ListenableFuture<Map<byte[],MentionCounts>>>();
+		for(int i = 0; i < this.clients.size(); i++) {
+			TimeRange edge = this.edges.get(i);
+			Batch.Call<AuthorAggregatorProtocol, MentionCounts> call;
+			try {
+				if(edge != null && pruning)
+					call = Batch.forMethod(AuthorAggregatorProtocol.class, "pruneMentionsByMMBackwards", authors.rows(),
+											edge.getStart(), edge.getEnd(), this.rows.get(i), minTimes, minMentioned, topK);
+				else if(edge != null)
+					call = Batch.forMethod(AuthorAggregatorProtocol.class, "countMentionsByMMBackwards", authors.rows(),
+											edge.getStart(), edge.getEnd(), this.rows.get(i));
+				else if(pruning)
+					call = Batch.forMethod(AuthorAggregatorProtocol.class, "pruneMentionsByMM", auths, this.rows.get(i),
+											minTimes, minMentioned, topK);
+				else
+					call = Batch.forMethod(AuthorAggregatorProtocol.class, "countMentionsByMM", auths, this.rows.get(i));
+			} catch (NoSuchMethodException e) {
+				throw new IOException(e);
+			}
+			reads.add(this.exec(i, call));
+		}
+		List<MentionCounts> parts = new ArrayList<MentionCounts>();
+		for(Map<byte[],MentionCounts> results : HSubQuery.getAll(reads))
+			parts.addAll(results.values());
+		if(recent)
+			parts.add(speed.countMentions(this.ids, this.span[0], this.span[1], authors));
+		return MentionCounts.merge(parts);
+	}
+
+	/**
+	 * Reads the mentions received by each mentioned author
+	 * @return the times each mentioned author was mentioned, summed over the buckets
+	 * @param authors the mentioners to take into account, all of them if empty
+	 */
+	public Map<String,Integer> aggregate(final AuthorSet authors) throws IOException {
+		byte[][] auths = authors.qualifiers();
+		List<ListenableFuture<Map<byte[],Map<String,Integer>>>> reads = new ArrayList<ListenableFuture<Map<byte[],Map<String,Integer>>>>();
+		for(int i = 0; i < this.clients.size(); i++) {
+			TimeRange edge = this.edges.get(i);
+			Batch.Call<AuthorAggregatorProtocol, Map<String,Integer>> call;
+			try {
+				if(edge != null)
+					call = Batch.forMethod(AuthorAggregatorProtocol.class, "aggregateMentionsBackwards", authors.rows(),
+											edge.getStart(), edge.getEnd(), this.rows.get(i));
+				else
+					call = Batch.forMethod(AuthorAggregatorProtocol.class, "aggregateMentions", auths, this.rows.get(i));
+			} catch (NoSuchMethodException e) {
+				throw new IOException(e);
+			}
+			reads.add(this.exec(i, call));
+		}
+		List<Map<String,Integer>> parts = new ArrayList<Map<String,Integer>>();
+		for(Map<byte[],Map<String,Integer>> results : HSubQuery.getAll(reads))
+			parts.addAll(results.values());
+		SpeedLayer speed = SpeedLayer.getInstance();
+		if(speed.hasMentions(this.ids, this.span[0], this.span[1]))
+			parts.add(speed.aggregateMentions(this.ids, this.span[0], this.span[1], authors));
+		Map<String,Integer> aggregation = new HashMap<String,Integer>();
+		for(Map<String,Integer> part : parts) {
+			for(Map.Entry<String,Integer> res : part.entrySet()) {
+				String mentioned = res.getKey();
+				int count = res.getValue();
+				if(aggregation.containsKey(mentioned))
+					count += aggregation.get(mentioned);
+				aggregation.put(mentioned, count);
+			}
+		}
+		return aggregation;
+	}
+
+	private <R> ListenableFuture<Map<byte[],R>> exec(final int i, final Batch.Call<AuthorAggregatorProtocol,R> call) {
+		return this.clients.get(i).coprocessorExec(AuthorAggregatorProtocol.class,
+				Bytes.toBytes(this.bounds.get(i)[0]), Bytes.toBytes(this.bounds.get(i)[1]), call);
+	}
+
+}
@@ -0,0 +1,188 @@
+package hbase.query.time;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Simple class to represent an arbitrary time window [from, to), e.g. from 2014-03-05 to 2014-04-20.
+ * The whole days inside the window are read from the pre-aggregated views, covered with the coarsest buckets they contain
+ * (see TimeBuckets); the parts of a day left at the edges are read from the mentionedBy table, whose qualifiers are the timestamps.
+ * The row keys it generates span the whole days only, so the views with no timestamps ignore the edges
+ * @author Daniele Morgantini
+ */
+public class AbsoluteTime implements FixedTime {
+
+	private static final String[] PATTERNS = {"yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-dd'T'HH:mm", "yyyy-MM-dd"};
+
+	private final long from;
+
+	private final long to;
+
+	/** midnight of the first whole day */
+	private final long firstDay;
+
+	/** midnight of the day following the last whole day */
+	private final long endDay;
+
+	private final char[] first;
+
+	private final char[] last;
+
+	private final List<Edge> edges;
+
+	/**
+	 * Creates an AbsoluteTime instance
+	 * @return an AbsoluteTime instance
+	 * @param from the first millisecond of the time window
+	 * @param to the millisecond following the time window
+	 */
+	public AbsoluteTime(final long from, final long to) {
+		if(to < from)
+			throw new IllegalArgumentException("The time window ends before it starts: " + from + " > " + to);
+		this.from = from;
+		this.to = to;
+		long midnight = midnight(from);
+		this.firstDay = midnight == from ? from : nextDay(midnight);
+		this.endDay = midnight(to);
+		this.first = RowKeys.suffix(RowKeys.date(this.firstDay, RowKeys.DAY));
+		this.last = RowKeys.suffix(RowKeys.date(Math.max(this.firstDay, this.endDay), RowKeys.DAY));
+
+		List<Edge> edges = new ArrayList<Edge>(2);
+		if(this.firstDay > this.endDay) {
+			/* the window lies inside a single day */
+			addEdge(edges, from, to);
+		} else {
+			addEdge(edges, from, this.firstDay);
+			addEdge(edges, this.endDay, to);
+		}
+		this.edges = Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Creates an AbsoluteTime instance from the dates of its extremes, in the default time zone
+	 * @return an AbsoluteTime instance
+	 * @param from the start of the time window, as yyyy-MM-dd, yyyy-MM-ddTHH:mm or yyyy-MM-ddTHH:mm:ss
+	 * @param to the end of the time window, excluded, in the same formats
+	 * @throws IllegalArgumentException if a date can't be parsed or the window ends before it starts
+	 */
+	public static AbsoluteTime parse(final String from, final String to) {
+		return new AbsoluteTime(parseDate(from), parseDate(to));
+	}
+
+	/**
+	 * Retrieves the start of the time window
+	 * @return the first millisecond of the time window
+	 */
+	public long getStart() {
+		return this.from;
+	}
+
+	/**
+	 * Retrieves the end of the time window
+	 * @return the millisecond following the time window
+	 */
+	public long getEnd() {
+		return this.to;
+	}
+
+	/**
+	 * Computes the whole days inside the time window
+	 * @return the first whole day and the day following the last one, at midnight: the same day if there are none
+	 */
+	public Calendar[] getDays() {
+		Calendar from = Calendar.getInstance();
+		from.setTimeInMillis(this.firstDay);
+		Calendar to = Calendar.getInstance();
+		to.setTimeInMillis(Math.max(this.firstDay, this.endDay));
+		return new Calendar[]{from, to};
+	}
+
+	/**
+	 * Retrieves the parts of a day left at the edges of the time window, outside its whole days
+	 * @return at most two edges, each inside a single day
+	 */
+	public List<Edge> getEdges() {
+		return this.edges;
+	}
+
+	@Override
+	public String generateFirstRowKey(final long id) {
+		return RowKeys.rowKey(id, this.first);
+	}
+
+	@Override
+	public String generateLastRowKey(final long id) {
+		return RowKeys.rowKey(id, this.last);
+	}
+
+	private static void addEdge(final List<Edge> edges, final long start, final long end) {
+		if(start < end)
+			edges.add(new Edge(start, end - 1));
+	}
+
+	private static long midnight(final long millis) {
+		Calendar c = Calendar.getInstance();
+		c.setTimeInMillis(millis);
+		c.set(Calendar.HOUR_OF_DAY, 0);
+		c.set(Calendar.MINUTE, 0);
+		c.set(Calendar.SECOND, 0);
+		c.set(Calendar.MILLISECOND, 0);
+		return c.getTimeInMillis();
+	}
+
+	private static long nextDay(final long midnight) {
+		Calendar c = Calendar.getInstance();
+		c.setTimeInMillis(midnight);
+		c.add(Calendar.DAY_OF_MONTH, 1);
+		return c.getTimeInMillis();
+	}
+
+	private static long parseDate(final String date) {
+		for(String pattern : PATTERNS) {
+			/* the parser would accept a longer date, ignoring its trailing part */
+			if(date.length() != pattern.replace("'", "").length())
+				continue;
+			SimpleDateFormat dateFormatter = new SimpleDateFormat(pattern);
+			dateFormatter.setLenient(false);
+			try {
+				return dateFormatter.parse(date).getTime();
+			} catch (ParseException e) {
+				/* try the next pattern */
+			}
+		}
+		throw new IllegalArgumentException("Unexpected date: " + date);
+	}
+
+	/**
+	 * The part of a single day at an edge of the time window, read from the row of that day in the mentionedBy table
+	 * filtering its timestamps: as for the other time ranges, the end is included
+	 */
+	public static class Edge extends TimeRange {
+
+		private final char[] first;
+
+		private final char[] last;
+
+		private Edge(final long start, final long end) {
+			super(start, end);
+			long midnight = midnight(start);
+			this.first = RowKeys.suffix(RowKeys.date(midnight, RowKeys.DAY));
+			this.last = RowKeys.suffix(RowKeys.date(nextDay(midnight), RowKeys.DAY));
+		}
+
+		@Override
+		public String generateFirstRowKey(final long id) {
+			return RowKeys.rowKey(id, this.first);
+		}
+
+		@Override
+		public String generateLastRowKey(final long id) {
+			return RowKeys.rowKey(id, this.last);
+		}
+	}
+
+}
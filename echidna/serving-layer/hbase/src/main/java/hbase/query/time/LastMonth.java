@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent last month's time window
@@ -13,15 +11,15 @@ public class LastMonth implements FixedTime {
 
 	private String date;
 	
+	private char[] suffix;
+	
 	/** 
 	 * No arguments constructor
 	 * @return a LastMonth instance
 	 */
 	public LastMonth() {
 		super();
-		final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM");
-		final long oneMonthAgo = getLastMonthMills();
-		date = dateFormatter.format(new Date(oneMonthAgo));
+		this.setDate(RowKeys.date(getLastMonthMills(), RowKeys.MONTH));
 	}
 	
 	/** Retrieves the string version of last month's date
@@ -36,6 +34,7 @@ public class LastMonth implements FixedTime {
 	 */
 	public void setDate(String date) {
 		this.date = date;
+		this.suffix = RowKeys.suffix(date);
 	}
 
 
@@ -51,7 +50,7 @@ public class LastMonth implements FixedTime {
 	}
 	
 	private String generateRowKey(final long id) {
-		return id + "_" + date;
+		return RowKeys.rowKey(id, this.suffix);
 	}
 
 	@Override
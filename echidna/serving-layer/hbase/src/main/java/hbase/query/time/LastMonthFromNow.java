@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent exact last month's time window
@@ -11,7 +9,9 @@ import java.util.Date;
  */
 public class LastMonthFromNow extends TimeRange {
 
-	private static final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
+	private char[] first;
+	
+	private char[] last;
 
 	/** 
 	 * No arguments constructor
@@ -28,6 +28,8 @@ public class LastMonthFromNow extends TimeRange {
 	 */
 	private LastMonthFromNow(final long now) {
 		super(getLastMonthMills(now),now);
+		this.first = RowKeys.suffix(RowKeys.date(this.getStart(), RowKeys.DAY));
+		this.last = RowKeys.suffix(RowKeys.date(this.getEnd(), RowKeys.DAY));
 	}
 	
 	
@@ -44,17 +46,24 @@ public class LastMonthFromNow extends TimeRange {
 	}
 	
 	@Override
-	public String generateFirstRowKey(final long id) {
-		return LastMonthFromNow.generateRowKey(id, this.getStart());
+	public void setStart(final long start) {
+		super.setStart(start);
+		this.first = RowKeys.suffix(RowKeys.date(start, RowKeys.DAY));
 	}
 	
 	@Override
-	public String generateLastRowKey(final long id) {
-		return LastMonthFromNow.generateRowKey(id, this.getEnd());
+	public void setEnd(final long end) {
+		super.setEnd(end);
+		this.last = RowKeys.suffix(RowKeys.date(end, RowKeys.DAY));
 	}
 	
-	private static String generateRowKey(final long id, final long timestamp) {
-		
-		return id + "_" + dateFormatter.format(new Date(timestamp));
+	@Override
+	public String generateFirstRowKey(final long id) {
+		return RowKeys.rowKey(id, this.first);
+	}
+	
+	@Override
+	public String generateLastRowKey(final long id) {
+		return RowKeys.rowKey(id, this.last);
 	}
 }
@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent exact last year's time window, today is excluded
@@ -10,12 +8,14 @@ import java.util.Date;
  */
 public class LastYearFromNow implements FixedTime {
 
-	private final static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-
 	private long from;
 	
 	private long to;
 	
+	private char[] first;
+	
+	private char[] last;
+	
 	/** No arguments constructor 
 	 * @return a LastYearFromNow instance */
 	public LastYearFromNow() {
@@ -24,6 +24,8 @@ public class LastYearFromNow implements FixedTime {
 		this.to = now.getTimeInMillis();
 		now.add(Calendar.YEAR, -1);// 1 year ago
 		this.from = now.getTimeInMillis();
+		this.first = RowKeys.suffix(RowKeys.date(this.from, RowKeys.DAY));
+		this.last = RowKeys.suffix(RowKeys.date(this.to, RowKeys.DAY));
 	}
 
 	/**
@@ -44,12 +46,12 @@ public class LastYearFromNow implements FixedTime {
 	
 	@Override
 	public String generateFirstRowKey(long id) {
-		return id + "_" + dateFormatter.format(new Date(this.from));
+		return RowKeys.rowKey(id, this.first);
 	}
 
 	@Override
 	public String generateLastRowKey(long id) {
-		return id + "_" + dateFormatter.format(new Date(this.to));
+		return RowKeys.rowKey(id, this.last);
 	}
 
 }
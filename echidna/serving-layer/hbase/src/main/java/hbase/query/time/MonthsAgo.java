@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent n months ago time window
@@ -11,12 +9,14 @@ import java.util.Date;
  */
 public class MonthsAgo implements FixedTime {
 	
-	private final static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM");
-	
 	private long from;
 	
 	private long to;
 	
+	private char[] first;
+	
+	private char[] last;
+	
 	/** 
 	 * Creates a MonthsAgo instance
 	 * @return the MonthsAgo instance
@@ -31,7 +31,7 @@ public class MonthsAgo implements FixedTime {
 	 * @return the string version of the n months ago period 
 	 */
 	public String toString() {
-		return dateFormatter.format(new Date(from)) + "_" + dateFormatter.format(new Date(to));
+		return new String(this.first, 1, this.first.length - 1) + new String(this.last);
 	}
 	
 	/**
@@ -44,15 +44,17 @@ public class MonthsAgo implements FixedTime {
 		this.to = now.getTimeInMillis();
 		now.add(Calendar.MONTH, -n);// n months ago
 		this.from = now.getTimeInMillis();
+		this.first = RowKeys.suffix(RowKeys.date(this.from, RowKeys.MONTH));
+		this.last = RowKeys.suffix(RowKeys.date(this.to, RowKeys.MONTH));
 	}
 
 	@Override
 	public String generateFirstRowKey(long id) {
-		return id + "_" + dateFormatter.format(new Date(from));
+		return RowKeys.rowKey(id, this.first);
 	}
 
 	@Override
 	public String generateLastRowKey(long id) {
-		return id + "_" + dateFormatter.format(new Date(to));
+		return RowKeys.rowKey(id, this.last);
 	}
 }
\ No newline at end of file
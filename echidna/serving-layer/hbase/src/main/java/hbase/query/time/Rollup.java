@@ -0,0 +1,84 @@
+package hbase.query.time;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+
+/**
+ * Granularity of the views pre-aggregating the mentions of each author, from the coarsest to the finest.
+ * The row key of a bucket is the id of the mentioned author followed by the start of the bucket:
+ * the year (yyyy), the month (yyyy-MM), the monday of the ISO week (yyyy-MM-dd) or the day (yyyy-MM-dd)
+ * @author Daniele Morgantini
+ */
+public enum Rollup {
+
+	YEAR("yyyy", Calendar.YEAR),
+	MONTH("yyyy-MM", Calendar.MONTH),
+	WEEK("yyyy-MM-dd", Calendar.WEEK_OF_YEAR),
+	DAY("yyyy-MM-dd", Calendar.DAY_OF_MONTH);
+
+	private final String pattern;
+
+	private final int field;
+
+	private Rollup(final String pattern, final int field) {
+		this.pattern = pattern;
+		this.field = field;
+	}
+
+	/**
+	 * Tells whether a bucket of this granularity starts on the given day
+	 * @return true if a bucket starts on the day
+	 * @param day the day, at midnight
+	 */
+	public boolean isStart(final Calendar day) {
+		switch(this) {
+		case YEAR:
+			return day.get(Calendar.DAY_OF_YEAR) == 1;
+		case MONTH:
+			return day.get(Calendar.DAY_OF_MONTH) == 1;
+		case WEEK:
+			return day.get(Calendar.DAY_OF_WEEK) == Calendar.MONDAY;
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Computes the start of the following bucket
+	 * @return the first day of the following bucket
+	 * @param start the first day of a bucket
+	 */
+	public Calendar next(final Calendar start) {
+		Calendar next = (Calendar) start.clone();
+		next.add(this.field, 1);
+		return next;
+	}
+
+	/**
+	 * Formats the start of a bucket as the suffix of its row keys
+	 * @return the suffix of the row keys of the bucket
+	 * @param start the first day of the bucket
+	 */
+	public String format(final Calendar start) {
+		return RowKeys.date(start.getTimeInMillis(), this.pattern.length());
+	}
+
+	/**
+	 * Parses the suffix of the row keys of a bucket
+	 * @return the first day of the bucket, at midnight
+	 * @param suffix the suffix of the row keys of the bucket
+	 */
+	public Calendar parse(final String suffix) {
+		SimpleDateFormat dateFormatter = new SimpleDateFormat(this.pattern);
+		dateFormatter.setLenient(false);
+		Calendar day = Calendar.getInstance();
+		try {
+			day.setTime(dateFormatter.parse(suffix));
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Unexpected row key suffix: " + suffix, e);
+		}
+		return day;
+	}
+
+}
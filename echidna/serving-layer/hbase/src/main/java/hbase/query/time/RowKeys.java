@@ -0,0 +1,109 @@
+package hbase.query.time;
+
+import java.util.Calendar;
+
+/**
+ * Utility methods to build the row keys of the time windows, i.e. the id of an author followed by '_' and a date.
+ * The windows format their dates once, when created, with a Calendar of their own (SimpleDateFormat isn't thread-safe
+ * and the windows are shared by the REST threads); the row keys then only append the digits of the id and the date
+ * to a buffer of the calling thread, with no Date nor intermediate String per row key.
+ * @author Daniele Morgantini
+ */
+public class RowKeys {
+
+	/** Length of the year suffix, yyyy */
+	public static final int YEAR = 4;
+
+	/** Length of the month suffix, yyyy-MM */
+	public static final int MONTH = 7;
+
+	/** Length of the day suffix, yyyy-MM-dd */
+	public static final int DAY = 10;
+
+	/** Digits of the longest id, Long.MIN_VALUE, with its sign */
+	private static final int MAXDIGITS = 20;
+
+	private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+		@Override
+		protected char[] initialValue() {
+			return new char[MAXDIGITS + 1 + DAY];
+		}
+	};
+
+	private RowKeys() {
+	}
+
+	/**
+	 * Formats the date of an instant, in the default time zone
+	 * @return the date as yyyy, yyyy-MM or yyyy-MM-dd
+	 * @param millis the instant
+	 * @param length the length of the date: YEAR, MONTH or DAY
+	 */
+	public static String date(final long millis, final int length) {
+		Calendar c = Calendar.getInstance();
+		c.setTimeInMillis(millis);
+		char[] date = new char[length];
+		digits(date, 0, c.get(Calendar.YEAR), 4);
+		if(length >= MONTH) {
+			date[4] = '-';
+			digits(date, 5, c.get(Calendar.MONTH) + 1, 2);
+		}
+		if(length >= DAY) {
+			date[7] = '-';
+			digits(date, 8, c.get(Calendar.DAY_OF_MONTH), 2);
+		}
+		return new String(date);
+	}
+
+	/**
+	 * Prepares the suffix of the row keys of a date
+	 * @return the suffix, '_' followed by the date
+	 * @param date the date
+	 */
+	public static char[] suffix(final String date) {
+		char[] suffix = new char[date.length() + 1];
+		suffix[0] = '_';
+		date.getChars(0, date.length(), suffix, 1);
+		return suffix;
+	}
+
+	/**
+	 * Builds a row key
+	 * @return the id followed by the suffix
+	 * @param id the id of the author
+	 * @param suffix the suffix, '_' followed by the date
+	 */
+	public static String rowKey(final long id, final char[] suffix) {
+		char[] buffer = BUFFER.get();
+		if(buffer.length < MAXDIGITS + suffix.length) {
+			buffer = new char[MAXDIGITS + suffix.length];
+			BUFFER.set(buffer);
+		}
+		int n = 0;
+		long rest = id;
+		if(rest < 0) {
+			buffer[n++] = '-';
+		} else
+			rest = -rest;
+		/* the digits are extracted from the negative value, which also holds Long.MIN_VALUE */
+		int length = 1;
+		for(long r = rest / 10; r != 0; r /= 10)
+			length++;
+		for(int i = n + length - 1; i >= n; i--) {
+			buffer[i] = (char) ('0' - rest % 10);
+			rest /= 10;
+		}
+		n += length;
+		System.arraycopy(suffix, 0, buffer, n, suffix.length);
+		return new String(buffer, 0, n + suffix.length);
+	}
+
+	private static void digits(final char[] date, final int offset, final int value, final int length) {
+		int rest = value;
+		for(int i = offset + length - 1; i >= offset; i--) {
+			date[i] = (char) ('0' + rest % 10);
+			rest /= 10;
+		}
+	}
+
+}
@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent the current month's time window
@@ -10,10 +8,10 @@ import java.util.Date;
  */
 public class ThisMonth implements FixedTime {
 
-	private final static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM");
-
 	private String date;
 	
+	private char[] suffix;
+	
 	/** 
 	 * No arguments constructor
 	 * @return a ThisMonth instance
@@ -23,7 +21,7 @@ public class ThisMonth implements FixedTime {
 		Calendar c = Calendar.getInstance();
 		c.setTimeInMillis(System.currentTimeMillis());
 		final long oneMonthAgo = c.getTimeInMillis();
-		this.date = dateFormatter.format(new Date(oneMonthAgo));
+		this.setDate(RowKeys.date(oneMonthAgo, RowKeys.MONTH));
 	}
 	
 	/** Retrieves the string version of this month's date
@@ -38,11 +36,12 @@ public class ThisMonth implements FixedTime {
 	 */
 	public void setDate(String date) {
 		this.date = date;
+		this.suffix = RowKeys.suffix(date);
 	}
 
 
 	private String generateRowKey(final long id) {
-		return id + "_" + date;
+		return RowKeys.rowKey(id, this.suffix);
 	}
 
 	@Override
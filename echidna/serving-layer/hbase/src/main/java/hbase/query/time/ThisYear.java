@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent this year's time window
@@ -10,10 +8,10 @@ import java.util.Date;
  */
 public class ThisYear implements FixedTime {
 
-	private final static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy");
-
 	private long now;
 	
+	private char[] suffix;
+	
 	
 	/** No arguments constructor 
 	 * @return a ThisYear instance */
@@ -21,11 +19,12 @@ public class ThisYear implements FixedTime {
 		Calendar c = Calendar.getInstance();
 		c.setTimeInMillis(System.currentTimeMillis());
 		this.now = c.getTimeInMillis();
+		this.suffix = RowKeys.suffix(RowKeys.date(this.now, RowKeys.YEAR));
 	}
 	
 	@Override
 	public String generateFirstRowKey(long id) {
-		return id + "_" + dateFormatter.format(new Date(this.now));
+		return RowKeys.rowKey(id, this.suffix);
 	}
 
 	@Override
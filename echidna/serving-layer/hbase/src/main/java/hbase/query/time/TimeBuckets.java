@@ -0,0 +1,126 @@
+package hbase.query.time;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Utility methods to cover a time window with few pre-aggregated buckets, as a segment tree would:
+ * the whole years inside the window are read from the yearly rollup, the whole months left before and after them from the monthly one,
+ * then the whole weeks and finally the single days, so that e.g. the last 52 weeks read a few days, weeks and months instead of 364 days
+ * @author Daniele Morgantini
+ */
+public class TimeBuckets {
+
+	private TimeBuckets() {
+	}
+
+	/**
+	 * Covers the time window with buckets of the available granularities
+	 * @return for each granularity used, the ranges of the row key suffixes of its buckets as pairs of consecutive elements:
+	 * a pair of equal suffixes is a single bucket, otherwise the first suffix is included and the second excluded
+	 * @param timeRange the time window
+	 * @param rollups the available granularities, the days being always available
+	 */
+	public static Map<Rollup,List<String>> decompose(final FixedTime timeRange, final Set<Rollup> rollups) {
+		Calendar[] bounds = bounds(timeRange);
+		return decompose(bounds[0], bounds[1], rollups);
+	}
+
+	/**
+	 * Covers the days in [from, to) with buckets of the available granularities
+	 * @return for each granularity used, the ranges of the row key suffixes of its buckets as pairs of consecutive elements:
+	 * a pair of equal suffixes is a single bucket, otherwise the first suffix is included and the second excluded
+	 * @param from the first day of the window, at midnight
+	 * @param to the day following the window, at midnight
+	 * @param rollups the available granularities, the days being always available
+	 */
+	public static Map<Rollup,List<String>> decompose(final Calendar from, final Calendar to, final Set<Rollup> rollups) {
+
+		List<Rollup> kinds = new ArrayList<Rollup>();
+		List<Calendar> starts = new ArrayList<Calendar>();
+		cover(from, to, 0, rollups, kinds, starts);
+
+		Map<Rollup,List<String>> ranges = new EnumMap<Rollup,List<String>>(Rollup.class);
+		int run = 0;
+		for(int i = 1; i <= kinds.size(); i++) {
+			if(i < kinds.size() && kinds.get(i) == kinds.get(run))
+				continue;
+			Rollup rollup = kinds.get(run);
+			List<String> range = ranges.get(rollup);
+			if(range == null) {
+				range = new ArrayList<String>();
+				ranges.put(rollup, range);
+			}
+			range.add(rollup.format(starts.get(run)));
+			range.add(i - run == 1 ? rollup.format(starts.get(run)) : rollup.format(rollup.next(starts.get(i - 1))));
+			run = i;
+		}
+		return ranges;
+	}
+
+	/**
+	 * Covers the days in [from, to) with the whole buckets of the given granularity they contain,
+	 * and the days left before and after them with the finer granularities
+	 * @param from the first day to cover
+	 * @param to the day following the last one to cover
+	 * @param level the index of the granularity among the values of Rollup
+	 * @param rollups the available granularities
+	 * @param kinds the granularities of the buckets covering the days, in day order
+	 * @param starts the first days of the buckets covering the days, in day order
+	 */
+	private static void cover(final Calendar from, final Calendar to, final int level, final Set<Rollup> rollups,
+							final List<Rollup> kinds, final List<Calendar> starts) {
+		if(!from.before(to))
+			return;
+		Rollup rollup = Rollup.values()[level];
+		if(rollup == Rollup.DAY) {
+			for(Calendar day = from; day.before(to); day = rollup.next(day)) {
+				kinds.add(rollup);
+				starts.add(day);
+			}
+			return;
+		}
+		Calendar first = (Calendar) from.clone();
+		while(first.before(to) && !rollup.isStart(first))
+			first.add(Calendar.DAY_OF_MONTH, 1);
+		if(!rollups.contains(rollup) || rollup.next(first).after(to)) {
+			cover(from, to, level + 1, rollups, kinds, starts);
+			return;
+		}
+		cover(from, first, level + 1, rollups, kinds, starts);
+		Calendar start = first;
+		while(!rollup.next(start).after(to)) {
+			kinds.add(rollup);
+			starts.add(start);
+			start = rollup.next(start);
+		}
+		cover(start, to, level + 1, rollups, kinds, starts);
+	}
+
+	/**
+	 * Computes the days the time window spans, from the row keys it resolves to: a single year, month or day
+	 * when the first and last row keys are the same, the range between them (the last excluded) otherwise.
+	 * An absolute window spans its whole days only, possibly none
+	 * @return the first day of the window and the day following it, at midnight
+	 * @param timeRange the time window
+	 */
+	static Calendar[] bounds(final FixedTime timeRange) {
+		if(timeRange instanceof AbsoluteTime)
+			return ((AbsoluteTime) timeRange).getDays();
+		String first = suffix(timeRange.generateFirstRowKey(0));
+		String last = suffix(timeRange.generateLastRowKey(0));
+		Rollup rollup = first.length() == 4 ? Rollup.YEAR : (first.length() == 7 ? Rollup.MONTH : Rollup.DAY);
+		Calendar from = rollup.parse(first);
+		Calendar to = first.equals(last) ? rollup.next(from) : rollup.parse(last);
+		return new Calendar[]{from, to};
+	}
+
+	private static String suffix(final String rowKey) {
+		return rowKey.substring(rowKey.indexOf('_') + 1);
+	}
+
+}
@@ -0,0 +1,76 @@
+package hbase.query.time;
+
+import hbase.speed.SpeedLayer;
+
+import java.util.Calendar;
+
+/**
+ * Utility methods to identify time windows
+ * @author Daniele Morgantini
+ */
+public class TimeWindows {
+
+	/** Milliseconds a result on the monthly views can be reused for */
+	public static final long MONTHTTL = 6 * 60 * 60 * 1000L;
+
+	/** Milliseconds a result on the daily views can be reused for */
+	public static final long DAYTTL = 60 * 60 * 1000L;
+
+	private TimeWindows() {
+	}
+
+	/**
+	 * Tells whether the time window is answered by the monthly views
+	 * @return true if the time window is answered by the monthly views, false if by the daily ones
+	 * @param timeRange the time window
+	 */
+	public static boolean isMonthly(final FixedTime timeRange) {
+		return timeRange instanceof LastMonth || timeRange instanceof MonthsAgo ||
+				timeRange instanceof LastYear || timeRange instanceof ThisYear;
+	}
+
+	/**
+	 * Computes the canonical form of the time window: the kind of window, along with the rows it resolves to
+	 * (so that, for example, last month's key changes as soon as a new month begins), or its extremes if it's absolute
+	 * @return the canonical form of the time window
+	 * @param timeRange the time window
+	 */
+	public static String key(final FixedTime timeRange) {
+		if(timeRange instanceof AbsoluteTime) {
+			AbsoluteTime absolute = (AbsoluteTime) timeRange;
+			return "AbsoluteTime[" + absolute.getStart() + "," + absolute.getEnd() + "]";
+		}
+		return timeRange.getClass().getSimpleName() + "[" + suffix(timeRange.generateFirstRowKey(0)) +
+				"," + suffix(timeRange.generateLastRowKey(0)) + "]";
+	}
+
+	/**
+	 * Computes for how long a result on the time window can be reused: a few seconds if it's merged with the speed views
+	 * @return the milliseconds a result on the time window stays valid
+	 * @param timeRange the time window
+	 */
+	public static long timeToLive(final FixedTime timeRange) {
+		if(SpeedLayer.getInstance().covers(span(timeRange)[1]))
+			return SpeedLayer.SPEEDTTL;
+		return isMonthly(timeRange) ? MONTHTTL : DAYTTL;
+	}
+
+	/**
+	 * Computes the instants the time window reads: its whole days, or its extremes if it's absolute
+	 * @return the first millisecond of the time window and the one following it
+	 * @param timeRange the time window
+	 */
+	public static long[] span(final FixedTime timeRange) {
+		if(timeRange instanceof AbsoluteTime) {
+			AbsoluteTime absolute = (AbsoluteTime) timeRange;
+			return new long[]{absolute.getStart(), absolute.getEnd()};
+		}
+		Calendar[] bounds = TimeBuckets.bounds(timeRange);
+		return new long[]{bounds[0].getTimeInMillis(), bounds[1].getTimeInMillis()};
+	}
+
+	private static String suffix(final String rowKey) {
+		return rowKey.substring(rowKey.indexOf('_') + 1);
+	}
+
+}
@@ -1,8 +1,6 @@
 package hbase.query.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Simple class to represent n weeks ago time window
@@ -10,12 +8,14 @@ import java.util.Date;
  */
 public class WeeksAgo implements FixedTime {
 	
-	private final static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-	
 	private long from;
 	
 	private long to;
 	
+	private char[] first;
+	
+	private char[] last;
+	
 	/** 
 	 * Creates a WeeksAgo instance
 	 * @return the WeeksAgo instance
@@ -46,7 +46,7 @@ public class WeeksAgo implements FixedTime {
 	 * @return the string version of the n weeks ago period 
 	 */
 	public String toString() {
-		return dateFormatter.format(new Date(from)) + "_" + dateFormatter.format(new Date(to));
+		return new String(this.first, 1, this.first.length - 1) + new String(this.last);
 	}
 	
 	/**
@@ -59,15 +59,17 @@ public class WeeksAgo implements FixedTime {
 		this.to = now.getTimeInMillis();
 		now.add(Calendar.WEEK_OF_YEAR, -n);// n weeks ago
 		this.from = now.getTimeInMillis();
+		this.first = RowKeys.suffix(RowKeys.date(this.from, RowKeys.DAY));
+		this.last = RowKeys.suffix(RowKeys.date(this.to, RowKeys.DAY));
 	}
 
 	@Override
 	public String generateFirstRowKey(final long id) {
-		return id + "_" + dateFormatter.format(new Date(from));
+		return RowKeys.rowKey(id, this.first);
 	}
 
 	@Override
 	public String generateLastRowKey(final long id) {
-		return id + "_" + dateFormatter.format(new Date(to));
+		return RowKeys.rowKey(id, this.last);
 	}
 }
\ No newline at end of file
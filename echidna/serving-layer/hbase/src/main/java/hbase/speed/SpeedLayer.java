@@ -0,0 +1,367 @@
+package hbase.speed;
+
+import hbase.query.AuthorSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.coprocessors.MentionCounts;
+import org.coprocessors.util.LongIntCounter;
+
+/**
+ * In-memory views of the mentions and follows arrived after the last batch export, merged by the queries
+ * with the batch views at read time. The watermark is the instant the batch views are complete up to:
+ * the speed layer only keeps what happened from the watermark on, and forgets it as soon as a new export moves the watermark past it.
+ * The events are kept one by one, so that any window can be counted to the millisecond; their number is capped,
+ * and once it is reached the newer events are skipped until the watermark moves past some of the kept ones.
+ * What it holds is lost on restart, until the ingester replays the events after the watermark
+ * @author Daniele Morgantini
+ */
+public class SpeedLayer {
+
+	/** Milliseconds a result merged with the speed views can be reused for */
+	public static final long SPEEDTTL = 10 * 1000L;
+
+	/** System property with the maximum number of events, mentions and follows together, the shared instance keeps */
+	public static final String CAPACITY = "echidna.speed.capacity";
+
+	/** Default maximum number of events: about 64 MB of timestamps and authors */
+	public static final int DEFAULTCAPACITY = 4 * 1024 * 1024;
+
+	private static SpeedLayer instance;
+
+	private volatile long watermark;
+
+	private final int capacity;
+
+	/** the events kept, or reserved by a record in progress */
+	private final AtomicInteger size = new AtomicInteger();
+
+	/** the mentions by mentioned author */
+	private final ConcurrentMap<Long,Events> mentions = new ConcurrentHashMap<Long,Events>();
+
+	/** the follows by followed author */
+	private final ConcurrentMap<Long,Events> follows = new ConcurrentHashMap<Long,Events>();
+
+	/**
+	 * Creates an instance of SpeedLayer
+	 * @return an instance of SpeedLayer
+	 * @param watermark the instant the batch views are complete up to
+	 */
+	public SpeedLayer(final long watermark) {
+		this(watermark, DEFAULTCAPACITY);
+	}
+
+	/**
+	 * Creates an instance of SpeedLayer
+	 * @return an instance of SpeedLayer
+	 * @param watermark the instant the batch views are complete up to
+	 * @param capacity the maximum number of events kept, mentions and follows together
+	 */
+	public SpeedLayer(final long watermark, final int capacity) {
+		this.watermark = watermark;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Retrieves the shared instance of SpeedLayer, holding nothing until the first events are ingested
+	 * @return the shared instance of SpeedLayer
+	 */
+	public static synchronized SpeedLayer getInstance() {
+		if(instance == null)
+			instance = new SpeedLayer(0, Integer.getInteger(CAPACITY, DEFAULTCAPACITY));
+		return instance;
+	}
+
+	/**
+	 * Retrieves the instant the batch views are complete up to
+	 * @return the watermark, in milliseconds
+	 */
+	public long getWatermark() {
+		return this.watermark;
+	}
+
+	/**
+	 * Retrieves the number of events kept after the watermark
+	 * @return the number of mentions and follows kept
+	 */
+	public int size() {
+		return this.size.get();
+	}
+
+	/**
+	 * Moves the watermark forward once the batch views have been reloaded, forgetting the events they now hold
+	 * @param watermark the instant the batch views are now complete up to
+	 */
+	public synchronized void advance(final long watermark) {
+		if(watermark <= this.watermark)
+			return;
+		this.watermark = watermark;
+		this.expire(this.mentions, watermark);
+		this.expire(this.follows, watermark);
+	}
+
+	/**
+	 * Records a mention, unless the batch views already hold it or the speed layer is full
+	 * @return true if the mention was recorded
+	 * @param mentioner the author who mentioned
+	 * @param mentioned the author who was mentioned
+	 * @param timestamp the instant of the mention
+	 */
+	public boolean mention(final long mentioner, final long mentioned, final long timestamp) {
+		return this.record(this.mentions, mentioned, mentioner, timestamp);
+	}
+
+	/**
+	 * Records a follow, unless the batch views already hold it or the speed layer is full
+	 * @return true if the follow was recorded
+	 * @param follower the author who follows
+	 * @param followed the author who is followed
+	 * @param timestamp the instant of the follow
+	 */
+	public boolean follow(final long follower, final long followed, final long timestamp) {
+		return this.record(this.follows, followed, follower, timestamp);
+	}
+
+	/**
+	 * Tells whether there are no events after the watermark
+	 * @return true if the speed layer holds nothing
+	 */
+	public boolean isEmpty() {
+		return this.mentions.isEmpty() && this.follows.isEmpty();
+	}
+
+	/**
+	 * Tells whether a time window reaches past the watermark, so that its results depend on the speed views
+	 * @return true if the window ends after the watermark and there are events to merge
+	 * @param end the end of the time window
+	 */
+	public boolean covers(final long end) {
+		return end > this.watermark && !this.isEmpty();
+	}
+
+	/**
+	 * Tells whether some of the authors were mentioned in the time window after the watermark
+	 * @return true if there are mentions to merge
+	 * @param ids the mentioned authors
+	 * @param start the first millisecond of the time window
+	 * @param end the millisecond following the time window
+	 */
+	public boolean hasMentions(final Collection<Long> ids, final long start, final long end) {
+		if(end <= this.watermark || this.mentions.isEmpty())
+			return false;
+		for(long id : ids) {
+			Events events = this.mentions.get(id);
+			if(events != null && events.any(start, end))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the mentions received by each author in the time window after the watermark
+	 * @return the mentioners of each mentioned author and their times
+	 * @param ids the mentioned authors
+	 * @param start the first millisecond of the time window
+	 * @param end the millisecond following the time window
+	 * @param authors the mentioners to count, all of them if empty
+	 */
+	public MentionCounts countMentions(final Collection<Long> ids, final long start, final long end, final AuthorSet authors) {
+		Map<Long,LongIntCounter> counters = new HashMap<Long,LongIntCounter>();
+		for(long id : ids) {
+			Events events = this.mentions.get(id);
+			if(events == null)
+				continue;
+			LongIntCounter counter = new LongIntCounter();
+			events.count(start, end, authors, counter);
+			if(!counter.isEmpty())
+				counters.put(id, counter);
+		}
+		return MentionCounts.fromCounters(counters);
+	}
+
+	/**
+	 * Counts the mentions received by each author in the time window after the watermark
+	 * @return the times each mentioned author was mentioned, by the string form of its ID
+	 * @param ids the mentioned authors
+	 * @param start the first millisecond of the time window
+	 * @param end the millisecond following the time window
+	 * @param authors the mentioners to count, all of them if empty
+	 */
+	public Map<String,Integer> aggregateMentions(final Collection<Long> ids, final long start, final long end, final AuthorSet authors) {
+		Map<String,Integer> aggregation = new HashMap<String,Integer>();
+		for(long id : ids) {
+			Events events = this.mentions.get(id);
+			if(events == null)
+				continue;
+			LongIntCounter counter = new LongIntCounter();
+			int times = events.count(start, end, authors, counter);
+			if(times > 0)
+				aggregation.put(String.valueOf(id), times);
+		}
+		return aggregation;
+	}
+
+	/**
+	 * Retrieves the followers each author gained after the watermark
+	 * @return the new followers of each followed author that has some
+	 * @param ids the followed authors
+	 * @param authors the followers to keep, all of them if empty
+	 */
+	public Map<Long,Set<Long>> followers(final Collection<Long> ids, final AuthorSet authors) {
+		Map<Long,Set<Long>> followers = new HashMap<Long,Set<Long>>();
+		for(long id : ids) {
+			Events events = this.follows.get(id);
+			if(events == null)
+				continue;
+			LongIntCounter counter = new LongIntCounter();
+			events.count(Long.MIN_VALUE, Long.MAX_VALUE, authors, counter);
+			if(counter.isEmpty())
+				continue;
+			Set<Long> set = new HashSet<Long>();
+			LongIntCounter.Cursor c = counter.cursor();
+			while(c.next())
+				set.add(c.key());
+			followers.put(id, set);
+		}
+		return followers;
+	}
+
+	private boolean record(final ConcurrentMap<Long,Events> views, final long key, final long other, final long timestamp) {
+		if(timestamp < this.watermark)
+			return false;
+		/* the room of the event is reserved before appending it, so that concurrent records never go past the capacity */
+		if(this.size.incrementAndGet() > this.capacity) {
+			this.size.decrementAndGet();
+			return false;
+		}
+		while(true) {
+			Events events = views.get(key);
+			if(events == null) {
+				Events created = new Events();
+				events = views.putIfAbsent(key, created);
+				if(events == null)
+					events = created;
+			}
+			switch(events.add(timestamp, other)) {
+			case ADDED:
+				return true;
+			case STALE:
+				/* the watermark moved past the event meanwhile, and the events may have been retired rejecting it */
+				if(events.isRetired())
+					views.remove(key, events);
+				this.size.decrementAndGet();
+				return false;
+			default:
+				/* the events were emptied and are being removed, the next attempt adds new ones */
+				views.remove(key, events);
+			}
+		}
+	}
+
+	private void expire(final ConcurrentMap<Long,Events> views, final long watermark) {
+		for(Map.Entry<Long,Events> e : views.entrySet()) {
+			Events events = e.getValue();
+			this.size.addAndGet(-events.expire(watermark));
+			if(events.isRetired())
+				views.remove(e.getKey(), events);
+		}
+	}
+
+	/** The outcomes of appending an event */
+	private enum Outcome { ADDED, STALE, RETIRED }
+
+	/**
+	 * The events of an author, in order of arrival: the timestamp and the other author of each one
+	 */
+	private class Events {
+
+		private long[] timestamps = new long[4];
+
+		private long[] authors = new long[4];
+
+		private int size;
+
+		private boolean retired;
+
+		/**
+		 * Appends an event, unless it is older than the watermark. Checking the watermark under the lock orders the append
+		 * with the expiration run by a concurrent advance: either the expiration drops the event, or the event is rejected here
+		 * @return ADDED, STALE if the batch views hold the event, retiring the events if empty, RETIRED if the events have been retired
+		 */
+		synchronized Outcome add(final long timestamp, final long author) {
+			if(this.retired)
+				return Outcome.RETIRED;
+			if(timestamp < SpeedLayer.this.watermark) {
+				this.retired = this.size == 0;
+				return Outcome.STALE;
+			}
+			if(this.size == this.timestamps.length) {
+				long[] timestamps = new long[this.size * 2];
+				long[] authors = new long[this.size * 2];
+				System.arraycopy(this.timestamps, 0, timestamps, 0, this.size);
+				System.arraycopy(this.authors, 0, authors, 0, this.size);
+				this.timestamps = timestamps;
+				this.authors = authors;
+			}
+			this.timestamps[this.size] = timestamp;
+			this.authors[this.size] = author;
+			this.size++;
+			return Outcome.ADDED;
+		}
+
+		synchronized boolean isRetired() {
+			return this.retired;
+		}
+
+		synchronized boolean any(final long start, final long end) {
+			for(int i = 0; i < this.size; i++)
+				if(this.timestamps[i] >= start && this.timestamps[i] < end)
+					return true;
+			return false;
+		}
+
+		/**
+		 * Counts the events in [start, end) of each other author
+		 * @return the number of events counted
+		 */
+		synchronized int count(final long start, final long end, final AuthorSet filter, final LongIntCounter counter) {
+			int counted = 0;
+			for(int i = 0; i < this.size; i++) {
+				if(this.timestamps[i] < start || this.timestamps[i] >= end)
+					continue;
+				if(!filter.isEmpty() && !filter.contains(this.authors[i]))
+					continue;
+				counter.increment(this.authors[i]);
+				counted++;
+			}
+			return counted;
+		}
+
+		/**
+		 * Drops the events before the watermark, retiring the events if none is left
+		 * @return the number of events dropped
+		 */
+		synchronized int expire(final long watermark) {
+			int n = 0;
+			for(int i = 0; i < this.size; i++) {
+				if(this.timestamps[i] < watermark)
+					continue;
+				this.timestamps[n] = this.timestamps[i];
+				this.authors[n] = this.authors[i];
+				n++;
+			}
+			int dropped = this.size - n;
+			this.size = n;
+			this.retired = n == 0;
+			return dropped;
+		}
+	}
+
+}
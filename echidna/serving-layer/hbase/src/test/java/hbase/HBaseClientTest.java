@@ -13,6 +13,7 @@ import java.util.NavigableMap;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -407,4 +408,26 @@ public class HBaseClientTest {
     		assertFalse(this.casa.exists(row));
     }
     
+    
+    @Test
+    public void scannerMatchesMaterializedScan() throws IOException {
+    	
+    	byte[] lowerRow = Bytes.toBytes("row4");
+    	byte[] upperRow = Bytes.toBytes("row6");
+    	Result[] expected = this.casa.scan(lowerRow, upperRow);
+    	
+    	List<Result> streamed = new ArrayList<Result>();
+    	ResultScanner scanner = this.casa.openScanner(lowerRow, upperRow);
+    	try {
+    		for(Result res : scanner)
+    			streamed.add(res);
+    	} finally {
+    		scanner.close();
+    	}
+    	
+    	assertEquals(streamed.size(), expected.length);
+    	for(int i=0; i<expected.length; i++)
+    		assertEquals(streamed.get(i).getRow(), expected[i].getRow());
+    }
+    
 }
@@ -0,0 +1,285 @@
+package hbase.impls;
+
+import hbase.HBaseClient;
+import hbase.query.AtLeast;
+import hbase.query.AtLeastTimes;
+import hbase.query.Author;
+import hbase.query.HQuery;
+import hbase.query.Mention;
+import hbase.query.time.LastMonth;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.AuthorAggregatorProtocol;
+import org.coprocessors.MentionCounts;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for InMemoryHTable
+ */
+public class InMemoryHTableTest {
+
+	private static final byte[] T = Bytes.toBytes("t");
+
+	@Test
+	public void shouldHonorFiltersVersionsAndTimeRanges() throws IOException {
+		InMemoryHTable table = new InMemoryHTable("cells", new byte[0][], "t");
+		HBaseClient client = new HTableManager(table, 10);
+		byte[] row = Bytes.toBytes("r");
+		byte[] a = Bytes.toBytes("a");
+		byte[] b = Bytes.toBytes("b");
+		byte[] c = Bytes.toBytes("c");
+		client.put(new byte[][]{row, row, row, row}, new byte[][]{T, T, T, T}, new byte[][]{a, a, b, c},
+				new long[]{10L, 20L, 15L, 5L}, new byte[][]{Bytes.toBytes(1), Bytes.toBytes(5), Bytes.toBytes(3), Bytes.toBytes(7)});
+
+		assertEquals(client.get(row).size(), 3);
+		assertEquals(Bytes.toInt(client.get(row).getValue(T, a)), 5);
+		assertEquals(client.get(row, Bytes.toBytes(4)).size(), 2);
+		assertEquals(client.get(row, new byte[][]{a, b}).size(), 2);
+		assertEquals(client.getHistory(row, new byte[][]{T}).size(), 4);
+
+		Result inRange = table.get(new Get(row).setTimeRange(0L, 16L));
+		assertEquals(Bytes.toInt(inRange.getValue(T, a)), 1);
+		assertEquals(inRange.size(), 3);
+
+		table.delete(new Delete(row).deleteColumns(T, a));
+		assertEquals(client.get(row).size(), 2);
+		assertTrue(client.get(Bytes.toBytes("missing")).isEmpty());
+	}
+
+	@Test
+	public void shouldSeekBetweenManyQualifiersOfAWideRow() throws IOException {
+		InMemoryHTable table = new InMemoryHTable("wide", new byte[0][], "t");
+		HBaseClient client = new HTableManager(table, 1000);
+		byte[] row = Bytes.toBytes("celebrity");
+		for(int i = 0; i < 1000; i++)
+			client.put(row, T, Bytes.toBytes(String.valueOf(i)), 1L, Bytes.toBytes(i % 7));
+
+		byte[][] wanted = new byte[100][];
+		for(int i = 0; i < wanted.length; i++)
+			wanted[i] = Bytes.toBytes(String.valueOf(i * 11 + 5));
+		assertEquals(client.get(row, wanted).size(), 91);
+		Result result = client.get(row, wanted, Bytes.toBytes(3));
+		int expected = 0;
+		for(int i = 0; i < wanted.length; i++) {
+			int q = i * 11 + 5;
+			if(q < 1000 && q % 7 >= 3)
+				expected++;
+		}
+		assertEquals(result.size(), expected);
+		assertEquals(client.scan(row, Bytes.toBytes("celebrity0"), wanted).length, 1);
+	}
+
+	@Test
+	public void shouldScanRowRangesAndPrefixes() throws IOException {
+		InMemoryHTable table = new InMemoryHTable("rows", InMemoryHTable.decimalSplits(3), "t");
+		HBaseClient client = new HTableManager(table, 10);
+		String[] rows = {"2000_2014-01", "2000_2014-02", "5000_2014-01", "9000_2014-01"};
+		for(String row : rows)
+			client.put(Bytes.toBytes(row), T, Bytes.toBytes("42"), 1L, Bytes.toBytes(1));
+
+		assertEquals(table.getRegionCount(), 3);
+		assertEquals(client.scan(Bytes.toBytes("2000_2014-01"), Bytes.toBytes("5000_2014-01")).length, 2);
+		assertEquals(client.scan(Bytes.toBytes("2000"), Bytes.toBytes("9999")).length, 4);
+		assertEquals(client.scanPrefix(Bytes.toBytes("2000_"), new byte[][]{Bytes.toBytes("4")}).length, 2);
+		assertEquals(client.scanPrefix(Bytes.toBytes("2000_"), new byte[][]{Bytes.toBytes("5")}).length, 0);
+	}
+
+	@Test
+	public void shouldScanRegionsConcurrently() throws IOException {
+		InMemoryHTable table = new InMemoryHTable("parallel", InMemoryHTable.decimalSplits(4), "t");
+		HTableManager client = new HTableManager(table, 10);
+		for(int id = 1000; id < 10000; id += 7)
+			client.put(Bytes.toBytes(id + "_2014-01"), T, Bytes.toBytes("42"), 1L, Bytes.toBytes(id));
+		Result[] sequential = client.scan(Bytes.toBytes("2000"), Bytes.toBytes("9000"));
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			client.setParallelScans(pool, 3, true);
+			Result[] ordered = client.scan(Bytes.toBytes("2000"), Bytes.toBytes("9000"));
+			assertEquals(ordered.length, sequential.length);
+			for(int i = 0; i < ordered.length; i++)
+				assertTrue(Bytes.equals(ordered[i].getRow(), sequential[i].getRow()));
+
+			client.setParallelScans(pool, 3, false);
+			assertEquals(client.scan(Bytes.toBytes("2000"), Bytes.toBytes("9000")).length, sequential.length);
+			assertEquals(client.scanPrefix(Bytes.toBytes("4"), new byte[][]{Bytes.toBytes("4")}).length, 143);
+			assertEquals(client.scanPrefix(new byte[0], new byte[0][]).length, 1286);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldAggregateMentionsAcrossSimulatedRegions() {
+		HBaseClient mentionedByMonth = HBaseClientFactory.useInMemory(4).getMentionedByMonth();
+		LastMonth lastMonth = new LastMonth();
+		long[][] mentions = {{2000, 101}, {2000, 101}, {6000, 101}, {6000, 102}, {9000, 102}, {9000, 103}};
+		Map<String,Integer> counts = new HashMap<String,Integer>();
+		for(long[] m : mentions) {
+			String cell = lastMonth.generateFirstRowKey(m[0]) + "/" + m[1];
+			counts.put(cell, counts.containsKey(cell) ? counts.get(cell) + 1 : 1);
+		}
+		try {
+			for(Map.Entry<String,Integer> e : counts.entrySet()) {
+				String[] cell = e.getKey().split("/");
+				mentionedByMonth.put(Bytes.toBytes(cell[0]), T, Bytes.toBytes(cell[1]), 1L, Bytes.toBytes(e.getValue()));
+			}
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+
+		List<Author> authors = new HQuery()
+							.users()
+							.thatMentioned(lastMonth, new AtLeast(2), new AtLeastTimes(1),
+									new Mention(2000), new Mention(6000), new Mention(9000))
+							.rankedById(true)
+							.take(10)
+							.answer()
+							.getAuthors();
+
+		assertEquals(authors.size(), 2);
+		assertEquals(authors.get(0).getId(), 101L);
+		assertEquals(authors.get(0).getHits(), 2);
+		assertEquals(authors.get(1).getId(), 102L);
+		assertEquals(authors.get(1).getHits(), 2);
+	}
+
+	@Test
+	public void shouldPruneTheMentionersInTheRegionsAsTheClientWould() throws Throwable {
+		/* the mentioned author (by position), the mentioner and the times:
+		 * with at least 3 times, 101 mentions 3 authors, 102, 103 and 104 mention 2, 105 and 106 just 1 */
+		long[][] mentions = {{0, 101, 5}, {1, 101, 4}, {2, 101, 3},
+							 {0, 102, 3}, {1, 102, 3},
+							 {0, 103, 4}, {2, 103, 6},
+							 {1, 104, 3}, {2, 104, 3},
+							 {0, 105, 2}, {1, 105, 2}, {2, 105, 9},
+							 {0, 106, 3}, {1, 106, 1}};
+		/* all the rows in the first region, where the top-3 cuts the tie among 102, 103 and 104 */
+		this.checkPruning("near", new long[]{2000, 2100, 2200}, mentions, true);
+		/* the rows spread over three regions, where only the times can be thresholded */
+		this.checkPruning("far", new long[]{2000, 6000, 9000}, mentions, false);
+	}
+
+	/**
+	 * Checks that the pruning endpoints return what the client would keep out of the counting ones,
+	 * exactly if the regions hold all the rows, once thresholded and ranked by the client otherwise
+	 */
+	private void checkPruning(final String name, final long[] mentioned, final long[][] mentions, final boolean complete) throws Throwable {
+		InMemoryHTable months = new InMemoryHTable(name + "Months", InMemoryHTable.decimalSplits(4), "t");
+		InMemoryHTable timestamps = new InMemoryHTable(name + "Timestamps", InMemoryHTable.decimalSplits(4), "t");
+		long ts = 1389000000000L;
+		for(long[] m : mentions) {
+			String id = String.valueOf(mentioned[(int) m[0]]);
+			byte[] mentioner = Bytes.toBytes(String.valueOf(m[1]));
+			int january = (int) m[2] / 2;
+			months.put(new Put(Bytes.toBytes(id + "_2014-01")).add(T, mentioner, 1L, Bytes.toBytes(january)));
+			months.put(new Put(Bytes.toBytes(id + "_2014-02")).add(T, mentioner, 1L, Bytes.toBytes((int) m[2] - january)));
+			for(int i = 0; i < m[2]; i++, ts += 1000)
+				timestamps.put(new Put(Bytes.toBytes(id + "_2014-01-06")).add(T, Bytes.toBytes(ts), 1L, Bytes.toBytes(m[1])));
+		}
+
+		Map<Long,List<String>> ranges = new HashMap<Long,List<String>>();
+		Map<Long,List<String>> prefixes = new HashMap<Long,List<String>>();
+		Map<Long,List<String>> days = new HashMap<Long,List<String>>();
+		for(long id : mentioned) {
+			ranges.put(id, Arrays.asList(id + "_2014-01", id + "_2014-03"));
+			prefixes.put(id, Arrays.asList(id + "_2014"));
+			days.put(id, Arrays.asList(id + "_2014-01-06", id + "_2014-01-07"));
+		}
+		byte[][] all = new byte[0][];
+		int[][] thresholds = {{3, 2, 3}, {3, 1, 0}, {1, 2, 0}, {1, 1, 2}};
+		for(int[] t : thresholds) {
+			this.checkPruning(months, complete, t,
+					Batch.<AuthorAggregatorProtocol,MentionCounts>forMethod(AuthorAggregatorProtocol.class, "countMentionsByMM", all, ranges),
+					Batch.<AuthorAggregatorProtocol,MentionCounts>forMethod(AuthorAggregatorProtocol.class, "pruneMentionsByMM", all, ranges, t[0], t[1], t[2]));
+			this.checkPruning(months, complete, t,
+					Batch.<AuthorAggregatorProtocol,MentionCounts>forMethod(AuthorAggregatorProtocol.class, "countMentionsByMMThisYear", all, prefixes),
+					Batch.<AuthorAggregatorProtocol,MentionCounts>forMethod(AuthorAggregatorProtocol.class, "pruneMentionsByMMThisYear", all, prefixes, t[0], t[1], t[2]));
+			this.checkPruning(timestamps, complete, t,
+					Batch.<AuthorAggregatorProtocol,MentionCounts>forMethod(AuthorAggregatorProtocol.class, "countMentionsByMMBackwards", all, 0L, Long.MAX_VALUE, days),
+					Batch.<AuthorAggregatorProtocol,MentionCounts>forMethod(AuthorAggregatorProtocol.class, "pruneMentionsByMMBackwards", all, 0L, Long.MAX_VALUE, days,
+									t[0], t[1], t[2]));
+		}
+	}
+
+	private void checkPruning(final InMemoryHTable table, final boolean complete, final int[] t,
+							final Batch.Call<AuthorAggregatorProtocol,MentionCounts> count,
+							final Batch.Call<AuthorAggregatorProtocol,MentionCounts> prune) throws Throwable {
+		MentionCounts counted = MentionCounts.merge(table.coprocessorExec(AuthorAggregatorProtocol.class, null, null, count).values());
+		MentionCounts pruned = MentionCounts.merge(table.coprocessorExec(AuthorAggregatorProtocol.class, null, null, prune).values());
+		Map<Long,Map<Long,Integer>> expected = qualify(counted, t[0], t[1], t[2]);
+		assertTrue(!expected.isEmpty());
+		if(complete)
+			assertEquals(asMap(pruned), expected, table.getTableName() + " " + Arrays.toString(t));
+		else
+			assertEquals(qualify(pruned, t[0], t[1], t[2]), expected, table.getTableName() + " " + Arrays.toString(t));
+	}
+
+	/**
+	 * Thresholds and ranks the counts as the client does: the mentioners with at least minTimes mentions of at least
+	 * minMentioned authors, the topK of them with most mentioned authors, the lower id first on ties
+	 */
+	private static Map<Long,Map<Long,Integer>> qualify(final MentionCounts counts, final int minTimes, final int minMentioned, final int topK) {
+		final Map<Long,Integer> hits = new HashMap<Long,Integer>();
+		for(Map<Long,Integer> mentioners : asMap(counts).values())
+			for(Map.Entry<Long,Integer> e : mentioners.entrySet())
+				if(e.getValue() >= minTimes)
+					hits.put(e.getKey(), hits.containsKey(e.getKey()) ? hits.get(e.getKey()) + 1 : 1);
+		List<Long> ranked = new ArrayList<Long>();
+		for(Map.Entry<Long,Integer> e : hits.entrySet())
+			if(e.getValue() >= minMentioned)
+				ranked.add(e.getKey());
+		Collections.sort(ranked, new Comparator<Long>() {
+			@Override
+			public int compare(final Long a, final Long b) {
+				int byHits = hits.get(b).compareTo(hits.get(a));
+				return byHits != 0 ? byHits : a.compareTo(b);
+			}
+		});
+		if(topK > 0 && ranked.size() > topK)
+			ranked = ranked.subList(0, topK);
+
+		Map<Long,Map<Long,Integer>> qualified = new HashMap<Long,Map<Long,Integer>>();
+		for(Map.Entry<Long,Map<Long,Integer>> m : asMap(counts).entrySet()) {
+			Map<Long,Integer> kept = new HashMap<Long,Integer>();
+			for(Map.Entry<Long,Integer> e : m.getValue().entrySet())
+				if(e.getValue() >= minTimes && ranked.contains(e.getKey()))
+					kept.put(e.getKey(), e.getValue());
+			if(!kept.isEmpty())
+				qualified.put(m.getKey(), kept);
+		}
+		return qualified;
+	}
+
+	private static Map<Long,Map<Long,Integer>> asMap(final MentionCounts counts) {
+		Map<Long,Map<Long,Integer>> map = new HashMap<Long,Map<Long,Integer>>();
+		for(int i = 0; i < counts.size(); i++) {
+			Map<Long,Integer> mentioners = new HashMap<Long,Integer>();
+			for(int j = 0; j < counts.getMentioners(i).length; j++)
+				mentioners.put(counts.getMentioners(i)[j], counts.getCounts(i)[j]);
+			if(!mentioners.isEmpty())
+				map.put(counts.getMentioned(i), mentioners);
+		}
+		return map;
+	}
+
+}
@@ -0,0 +1,53 @@
+package hbase.impls;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Scan;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for ScanProfile
+ */
+public class ScanProfileTest {
+
+	@Test
+	public void shouldOverrideTheDefaultsWithTheConfiguration() {
+		Configuration conf = new Configuration(false);
+		conf.setInt("echidna.scan.followedBy.caching", 1000);
+		conf.setBoolean("echidna.scan.followedBy.cacheBlocks", false);
+		ScanProfile defaults = new ScanProfile(100, 25, 1024L, true);
+
+		ScanProfile profile = ScanProfile.fromConfiguration(conf, "followedBy", defaults);
+		assertEquals(profile.getCaching(), 1000);
+		assertEquals(profile.getBatch(), 25);
+		assertEquals(profile.getMaxResultSize(), 1024L);
+		assertFalse(profile.isCacheBlocks());
+
+		Scan scan = new Scan();
+		profile.apply(scan);
+		assertEquals(scan.getCaching(), 1000);
+		assertEquals(scan.getBatch(), 25);
+		assertFalse(scan.getCacheBlocks());
+		assertEquals(ScanProfile.fromConfiguration(conf, "follow", defaults).getCaching(), 100);
+	}
+
+	@Test
+	public void shouldChangeTheProfileOfATableAtRuntime() {
+		HBaseClientFactory factory = HBaseClientFactory.useInMemory(2);
+		assertNull(factory.getScanProfile("followedBy"));
+		HTableManager client = (HTableManager) factory.getFollowedBy();
+		assertTrue(factory.getScanProfile("followedBy").isCacheBlocks());
+
+		factory.setScanProfile("followedBy", new ScanProfile(50, 10, 0L, false));
+		assertEquals(client.getScanProfile().getCaching(), 50);
+		assertFalse(factory.getScanProfile("followedBy").isCacheBlocks());
+
+		factory.setScanProfile("follow", new ScanProfile(7, 7, 0L, true));
+		assertEquals(((HTableManager) factory.getFollow()).getScanProfile().getCaching(), 7);
+	}
+
+}
@@ -0,0 +1,72 @@
+package hbase.query;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.coprocessors.util.LongIntCounter;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for AuthorSet
+ */
+public class AuthorSetTest {
+
+	@Test
+	public void shouldKeepTheCountedIdsSorted() {
+		LongIntCounter counter = new LongIntCounter();
+		for(long id : new long[]{30, 10, 20, 10, 30, 30})
+			counter.increment(id);
+		AuthorSet set = AuthorSet.fromCounter(counter, 2);
+
+		assertEquals(set.size(), 2);
+		assertEquals(set.getId(0), 10L);
+		assertEquals(set.getHits(0), 2);
+		assertEquals(set.getId(1), 30L);
+		assertEquals(set.getHits(1), 3);
+		assertTrue(set.contains(30L));
+		assertFalse(set.contains(20L));
+		assertEquals(Bytes.toString(set.qualifiers()[1]), "30");
+		assertEquals(Bytes.toLong(set.rows()[0]), 10L);
+		assertSame(set.qualifiers(), set.qualifiers());
+		assertSame(set.threshold(2), set);
+		assertEquals(set.threshold(3).size(), 1);
+	}
+
+	@Test
+	public void shouldIntersectAndUniteSetsOfAnySize() {
+		LongIntCounter small = new LongIntCounter();
+		small.add(500, 7);
+		small.add(999, 1);
+		small.add(5000, 2);
+		LongIntCounter large = new LongIntCounter();
+		for(long id = 0; id < 1000; id++)
+			large.add(id, 1);
+		AuthorSet a = AuthorSet.fromCounter(small, 0);
+		AuthorSet b = AuthorSet.fromCounter(large, 0);
+
+		assertEquals(ids(a.intersect(b)), "[500, 999]");
+		assertEquals(a.intersect(b).getHits(0), 7);
+		assertEquals(ids(b.intersect(a)), "[500, 999]");
+		assertEquals(b.intersect(a).getHits(0), 1);
+		assertEquals(ids(a.intersect(a.threshold(2))), "[500, 5000]");
+		assertTrue(a.intersect(AuthorSet.empty()).isEmpty());
+
+		AuthorSet union = a.union(b);
+		assertEquals(union.size(), 1001);
+		assertEquals(union.getHits(500), 8);
+		assertEquals(union.getId(1000), 5000L);
+	}
+
+	private static String ids(final AuthorSet set) {
+		long[] ids = new long[set.size()];
+		for(int i = 0; i < ids.length; i++)
+			ids[i] = set.getId(i);
+		return Arrays.toString(ids);
+	}
+
+}
@@ -0,0 +1,63 @@
+package hbase.query;
+
+import hbase.HBaseClient;
+import hbase.impls.HBaseClientFactory;
+import hbase.query.time.LastMonth;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static hbase.query.QueryFixtures.hits;
+import static hbase.query.QueryFixtures.mentions;
+import static hbase.query.QueryFixtures.putMention;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test class for HQueryBatch, on in-memory tables
+ */
+public class HQueryBatchTest {
+
+	@Test
+	public void shouldAnswerEachQueryAsIfAlone() throws IOException {
+		HBaseClient mentionedByMonth = HBaseClientFactory.useInMemory(4).getMentionedByMonth();
+		LastMonth lastMonth = new LastMonth();
+		long[][] mentions = {{3000, 201, 2}, {3000, 202, 1}, {7000, 201, 1}, {7000, 203, 4}, {8000, 202, 1}};
+		for(long[] m : mentions)
+			putMention(mentionedByMonth, lastMonth.generateFirstRowKey(m[0]), m[1], (int) m[2]);
+
+		HQueryExecutor executor = new HQueryExecutor(null);
+		HQueryBatch batch = new HQueryBatch()
+				.add(thatMentioned(lastMonth, 3000, 7000))
+				.add(mentioned(lastMonth, 7000, 8000))
+				.add(thatMentioned(lastMonth, 8000));
+		List<Authors> answers = executor.answer(batch);
+
+		assertEquals(answers.size(), 3);
+		assertEquals(hits(answers.get(0)), hits(executor.answer(thatMentioned(lastMonth, 3000, 7000))));
+		assertEquals(hits(answers.get(1)), hits(executor.answer(mentioned(lastMonth, 7000, 8000))));
+		assertEquals(hits(answers.get(2)), hits(executor.answer(thatMentioned(lastMonth, 8000))));
+
+		assertEquals(hits(answers.get(0)), "201:2 202:1 203:1 ");
+		assertEquals(hits(answers.get(1)), "7000:5 8000:1 ");
+		assertEquals(hits(answers.get(2)), "202:1 ");
+	}
+
+	private static HQuery thatMentioned(final LastMonth lastMonth, final long... ids) {
+		HQuery query = new HQuery();
+		query.users().thatMentioned(lastMonth, new AtLeast(1), new AtLeastTimes(1), mentions(ids))
+					.rankedById(true)
+					.take(10);
+		return query;
+	}
+
+	private static HQuery mentioned(final LastMonth lastMonth, final long... ids) {
+		HQuery query = new HQuery();
+		query.users().mentioned(lastMonth, new AtLeastTimes(1), mentions(ids))
+					.rankedById(true)
+					.take(10);
+		return query;
+	}
+
+}
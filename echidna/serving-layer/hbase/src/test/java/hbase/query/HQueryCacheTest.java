@@ -0,0 +1,53 @@
+package hbase.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Test class for HQueryCache
+ */
+public class HQueryCacheTest {
+
+	@Test
+	public void shouldReturnCopiesOfStoredResults() {
+		HQueryCache cache = new HQueryCache(10, HQueryCache.DEFAULTTTL);
+		List<Author> authors = new ArrayList<Author>();
+		authors.add(new Author(1, 3));
+		cache.put("q", authors, Long.MAX_VALUE);
+		authors.get(0).setHits(7);
+
+		List<Author> cached = cache.get("q");
+		assertEquals(cached.size(), 1);
+		assertEquals(cached.get(0).getHits(), 3);
+		cached.clear();
+		assertEquals(cache.get("q").size(), 1);
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsed() {
+		HQueryCache cache = new HQueryCache(2, HQueryCache.DEFAULTTTL);
+		List<Author> authors = new ArrayList<Author>();
+		cache.put("a", authors, Long.MAX_VALUE);
+		cache.put("b", authors, Long.MAX_VALUE);
+		cache.get("a");
+		cache.put("c", authors, Long.MAX_VALUE);
+		assertNull(cache.get("b"));
+		assertEquals(cache.size(), 2);
+	}
+
+	@Test
+	public void shouldNotStoreExpiredOrInvalidatedResults() {
+		HQueryCache cache = new HQueryCache(10, HQueryCache.DEFAULTTTL);
+		List<Author> authors = new ArrayList<Author>();
+		cache.put("a", authors, 0);
+		assertNull(cache.get("a"));
+		cache.put("b", authors, Long.MAX_VALUE);
+		cache.invalidateAll();
+		assertNull(cache.get("b"));
+	}
+}
@@ -0,0 +1,119 @@
+package hbase.query;
+
+import hbase.HBaseClient;
+import hbase.impls.HBaseClientFactory;
+import hbase.query.subquery.AuthorsTopK;
+import hbase.query.subquery.HSubQuery;
+import hbase.query.time.LastMonth;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.testng.annotations.Test;
+
+import static hbase.query.QueryFixtures.T;
+import static hbase.query.QueryFixtures.hits;
+import static hbase.query.QueryFixtures.mentionRange;
+import static hbase.query.QueryFixtures.putMention;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for HQueryPlanner, on in-memory tables
+ */
+public class HQueryPlannerTest {
+
+	@Test
+	public void shouldExecuteTheMostSelectiveFilterFirst() {
+		HBaseClientFactory.useInMemory(2);
+		HQueryPlanner planner = new HQueryPlanner(10);
+		HQuery query = new HQuery();
+		query.users().thatMentioned(new LastMonth(), new AtLeast(1), new AtLeastTimes(1), mentionRange(1, 30))
+					.whoFollow(new AtLeast(1), new Author(50));
+		HSubQuery thatMentioned = query.getSubqueries().get(0);
+		HSubQuery whoFollow = query.getSubqueries().get(1);
+
+		List<HSubQuery> order = planner.order(query.getSubqueries());
+		assertSame(order.get(0), whoFollow);
+		assertSame(order.get(1), thatMentioned);
+
+		planner.record(thatMentioned, 3);
+		order = planner.order(query.getSubqueries());
+		assertSame(order.get(0), thatMentioned);
+	}
+
+	@Test
+	public void shouldKeepTheHitsOfTheLastDeclaredFilter() throws IOException {
+		HBaseClientFactory factory = HBaseClientFactory.useInMemory(2);
+		HBaseClient mentionedByMonth = factory.getMentionedByMonth();
+		HBaseClient followedBy = factory.getFollowedBy();
+		LastMonth lastMonth = new LastMonth();
+		for(long mentioned = 1; mentioned <= 30; mentioned++)
+			for(long mentioner = 100; mentioner < 100 + mentioned % 4; mentioner++)
+				putMention(mentionedByMonth, lastMonth.generateFirstRowKey(mentioned), mentioner, 1);
+		for(long followed : new long[]{50, 51})
+			for(long follower : new long[]{101, 102, 200})
+				followedBy.put(Bytes.toBytes(followed), T, Bytes.toBytes(String.valueOf(follower)), 1L, Bytes.toBytes(1));
+
+		HQuery query = new HQuery();
+		query.users().thatMentioned(lastMonth, new AtLeast(1), new AtLeastTimes(1), mentionRange(1, 30))
+					.whoFollow(new AtLeast(1), new Author(50), new Author(51))
+					.rankedById(true);
+		List<Author> authors = new HQueryExecutor(null).answer(query).getAuthors();
+
+		assertEquals(authors.size(), 2);
+		assertEquals(authors.get(0).getId(), 101L);
+		assertEquals(authors.get(0).getHits(), 2);
+		assertEquals(authors.get(1).getId(), 102L);
+		assertEquals(authors.get(1).getHits(), 2);
+	}
+
+	@Test
+	public void shouldFuseRankingAndTakeWithoutChangingTheAnswer() throws IOException {
+		HQueryPlanner planner = new HQueryPlanner(10);
+		Random random = new Random(42);
+		List<Author> authors = new ArrayList<Author>();
+		for(int i = 0; i < 500; i++)
+			authors.add(new Author(random.nextInt(300), random.nextInt(10)));
+
+		for(boolean byHits : new boolean[]{true, false}) {
+			for(boolean asc : new boolean[]{true, false}) {
+				for(int amount : new int[]{0, 10, 1000}) {
+					for(boolean set : new boolean[]{true, false}) {
+						HQuery sorted = ranked(byHits, asc, amount);
+						HQuery fused = ranked(byHits, asc, amount);
+						if(set) {
+							sorted.updateUsers(AuthorSet.fromAuthors(authors));
+							fused.updateUsers(AuthorSet.fromAuthors(authors));
+						} else {
+							sorted.updateUsers(new ArrayList<Author>(authors));
+							fused.updateUsers(new ArrayList<Author>(authors));
+						}
+						for(HSubQuery s : sorted.getSubqueries())
+							s.execute(sorted.users());
+						List<HSubQuery> plan = planner.fuse(fused.getSubqueries());
+						assertEquals(plan.size(), 1);
+						assertTrue(plan.get(0) instanceof AuthorsTopK);
+						plan.get(0).execute(fused.users());
+
+						assertEquals(hits(fused.users()), hits(sorted.users()));
+					}
+				}
+			}
+		}
+	}
+
+	private static HQuery ranked(final boolean byHits, final boolean asc, final int amount) {
+		HQuery query = new HQuery();
+		if(byHits)
+			query.users().rankedByHits(asc).take(amount);
+		else
+			query.users().rankedById(asc).take(amount);
+		return query;
+	}
+
+}
@@ -0,0 +1,68 @@
+package hbase.query;
+
+import hbase.HBaseClient;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Fixture builders shared by the query tests
+ * @author Daniele Morgantini
+ */
+final class QueryFixtures {
+
+	/** The column family of the views */
+	static final byte[] T = Bytes.toBytes("t");
+
+	private QueryFixtures() {
+	}
+
+	/**
+	 * Puts the times an author was mentioned by another one into a view keyed by mentioned and time
+	 * @param table the view
+	 * @param row the row key of the mentioned author
+	 * @param mentioner the id of the mentioner
+	 * @param times the times the mentioner mentioned the author
+	 * @throws IOException if the put fails
+	 */
+	static void putMention(final HBaseClient table, final String row, final long mentioner, final int times)
+			throws IOException {
+		table.put(Bytes.toBytes(row), T, Bytes.toBytes(String.valueOf(mentioner)), 1L, Bytes.toBytes(times));
+	}
+
+	/**
+	 * @return the ids and the hits of the authors, in their order, as "id:hits id:hits "
+	 * @param authors the answer of a query
+	 */
+	static String hits(final Authors authors) {
+		StringBuilder hits = new StringBuilder();
+		for(Author a : authors.getAuthors())
+			hits.append(a.getId()).append(':').append(a.getHits()).append(' ');
+		return hits.toString();
+	}
+
+	/**
+	 * @return the mentions of the given authors
+	 * @param ids the ids of the mentioned authors
+	 */
+	static Mention[] mentions(final long... ids) {
+		Mention[] mentions = new Mention[ids.length];
+		for(int i = 0; i < ids.length; i++)
+			mentions[i] = new Mention(ids[i]);
+		return mentions;
+	}
+
+	/**
+	 * @return the mentions of the authors with ids from first to last, both included
+	 * @param first the first id
+	 * @param last the last id
+	 */
+	static Mention[] mentionRange(final long first, final long last) {
+		Mention[] mentions = new Mention[(int) (last - first + 1)];
+		for(int i = 0; i < mentions.length; i++)
+			mentions[i] = new Mention(first + i);
+		return mentions;
+	}
+
+}
@@ -14,7 +14,7 @@ public class TableCreationTest {
     public static void main(String[] args) throws IOException {
 
         HBaseAdministrator admin = new HTableAdmin();
-        String[] tables = new String[]{"mentionedBy", "mentionedByDay", "mentionedByMonth"};
+        String[] tables = new String[]{"mentionedBy", "mentionedByDay", "mentionedByMonth", "mentionedByWeek", "mentionedByYear"};
         
         for(int i=0; i<tables.length; i++) {
         	if(admin.existsTable(tables[i])) {
@@ -0,0 +1,67 @@
+package hbase.query.time;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for RowKeys
+ */
+public class RowKeysTest {
+
+	@Test
+	public void shouldBuildTheSameRowKeysAsStringConcatenation() {
+		Random random = new Random(42);
+		for(int i = 0; i < 1000; i++) {
+			long millis = random.nextLong() % (200L * 365 * 24 * 3600 * 1000);
+			millis = Math.abs(millis);
+			assertEquals(RowKeys.date(millis, RowKeys.DAY), new SimpleDateFormat("yyyy-MM-dd").format(new Date(millis)));
+			assertEquals(RowKeys.date(millis, RowKeys.MONTH), new SimpleDateFormat("yyyy-MM").format(new Date(millis)));
+			assertEquals(RowKeys.date(millis, RowKeys.YEAR), new SimpleDateFormat("yyyy").format(new Date(millis)));
+		}
+		char[] suffix = RowKeys.suffix("2014-02");
+		long[] ids = {0L, 7L, 10L, 123456789L, -42L, Long.MAX_VALUE, Long.MIN_VALUE};
+		for(long id : ids)
+			assertEquals(RowKeys.rowKey(id, suffix), id + "_2014-02");
+	}
+
+	@Test
+	public void shouldGenerateTheSameRowKeysFromManyThreads() throws Exception {
+		final WeeksAgo window = new WeeksAgo(3);
+		final String first = window.generateFirstRowKey(0);
+		final String last = window.generateLastRowKey(0);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for(int t = 0; t < 8; t++) {
+				results.add(pool.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						for(long id = 1; id < 20000; id++) {
+							if(!window.generateFirstRowKey(id).equals(id + first.substring(1))
+									|| !window.generateLastRowKey(id).equals(id + last.substring(1)))
+								return false;
+						}
+						return true;
+					}
+				}));
+			}
+			for(Future<Boolean> r : results)
+				assertTrue(r.get());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package hbase.query.time;
+
+import hbase.impls.HBaseClientFactory;
+import hbase.query.AtLeast;
+import hbase.query.AtLeastTimes;
+import hbase.query.Author;
+import hbase.query.HQuery;
+import hbase.query.Mention;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test class for TimeBuckets
+ */
+public class TimeBucketsTest {
+
+	private static final byte[] T = Bytes.toBytes("t");
+
+	@Test
+	public void shouldCoverTheMiddleWithCoarseBucketsAndTheEdgesWithFineOnes() {
+		Map<Rollup,List<String>> ranges = TimeBuckets.decompose(day(2012, 12, 27), day(2015, 2, 11), EnumSet.allOf(Rollup.class));
+
+		assertEquals(ranges.get(Rollup.YEAR), Arrays.asList("2013", "2015"));
+		assertEquals(ranges.get(Rollup.MONTH), Arrays.asList("2015-01", "2015-01"));
+		assertEquals(ranges.get(Rollup.WEEK), Arrays.asList("2015-02-02", "2015-02-02"));
+		assertEquals(ranges.get(Rollup.DAY), Arrays.asList("2012-12-27", "2013-01-01", "2015-02-01", "2015-02-01", "2015-02-09", "2015-02-11"));
+	}
+
+	@Test
+	public void shouldUseOnlyTheAvailableRollups() {
+		Map<Rollup,List<String>> ranges = TimeBuckets.decompose(day(2013, 11, 15), day(2014, 3, 10), EnumSet.of(Rollup.MONTH));
+
+		assertEquals(ranges.size(), 2);
+		assertEquals(ranges.get(Rollup.MONTH), Arrays.asList("2013-12", "2014-03"));
+		assertEquals(ranges.get(Rollup.DAY), Arrays.asList("2013-11-15", "2013-12-01", "2014-03-01", "2014-03-10"));
+
+		String year = String.valueOf(Calendar.getInstance().get(Calendar.YEAR));
+		assertEquals(TimeBuckets.decompose(new ThisYear(), EnumSet.allOf(Rollup.class)).get(Rollup.YEAR), Arrays.asList(year, year));
+		assertEquals(TimeBuckets.decompose(new ThisYear(), EnumSet.of(Rollup.MONTH)).get(Rollup.MONTH),
+					Arrays.asList(year + "-01", (Integer.parseInt(year) + 1) + "-01"));
+		String month = new LastMonth().getDate();
+		assertEquals(TimeBuckets.decompose(new LastMonth(), EnumSet.allOf(Rollup.class)).get(Rollup.MONTH), Arrays.asList(month, month));
+	}
+
+	@Test
+	public void shouldSumTheBucketsReadFromEachRollup() throws IOException {
+		HBaseClientFactory factory = HBaseClientFactory.useInMemory(4);
+		factory.setRollups(true);
+		LastYearFromNow window = new LastYearFromNow();
+		int ranges = 0;
+		for(Map.Entry<Rollup,List<String>> e : TimeBuckets.decompose(window, factory.getRollups()).entrySet()) {
+			for(int i = 0; i < e.getValue().size(); i += 2) {
+				factory.getMentionedBy(e.getKey()).put(Bytes.toBytes("2000_" + e.getValue().get(i)), T,
+						Bytes.toBytes("101"), 1L, Bytes.toBytes(1));
+				ranges++;
+			}
+		}
+
+		List<Author> mentioned = new HQuery().users().mentioned(window, new AtLeastTimes(1), new Mention(2000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(mentioned.size(), 1);
+		assertEquals(mentioned.get(0).getHits(), ranges);
+
+		List<Author> mentioners = new HQuery().users().thatMentioned(window, new AtLeast(1), new AtLeastTimes(ranges), new Mention(2000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(mentioners.size(), 1);
+		assertEquals(mentioners.get(0).getId(), 101L);
+	}
+
+	@Test
+	public void shouldSplitAnAbsoluteWindowIntoBucketsAndEdges() {
+		AbsoluteTime window = AbsoluteTime.parse("2014-03-05T12:00", "2014-05-02T06:00");
+		Map<Rollup,List<String>> ranges = TimeBuckets.decompose(window, EnumSet.of(Rollup.MONTH));
+
+		assertEquals(ranges.get(Rollup.MONTH), Arrays.asList("2014-04", "2014-04"));
+		assertEquals(ranges.get(Rollup.DAY), Arrays.asList("2014-03-06", "2014-04-01", "2014-05-01", "2014-05-01"));
+		assertEquals(window.getEdges().size(), 2);
+		assertEquals(window.getEdges().get(0).getStart(), window.getStart());
+		assertEquals(window.getEdges().get(0).generateFirstRowKey(7), "7_2014-03-05");
+		assertEquals(window.getEdges().get(0).generateLastRowKey(7), "7_2014-03-06");
+		assertEquals(window.getEdges().get(1).getEnd(), window.getEnd() - 1);
+		assertEquals(window.getEdges().get(1).generateFirstRowKey(7), "7_2014-05-02");
+
+		AbsoluteTime hour = AbsoluteTime.parse("2014-03-05T10:00", "2014-03-05T11:00");
+		assertEquals(TimeBuckets.decompose(hour, EnumSet.allOf(Rollup.class)).size(), 0);
+		assertEquals(hour.getEdges().size(), 1);
+		assertEquals(AbsoluteTime.parse("2014-03-01", "2014-04-01").getEdges().size(), 0);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void shouldRejectAMalformedDate() {
+		AbsoluteTime.parse("2014-03-05T12", "2014-05-02");
+	}
+
+	@Test
+	public void shouldReadTheEdgesOfAnAbsoluteWindowFromTheTimestamps() throws IOException {
+		HBaseClientFactory factory = HBaseClientFactory.useInMemory(4);
+		factory.setRollups(false);
+		AbsoluteTime window = AbsoluteTime.parse("2014-03-05T12:00", "2014-05-02T06:00");
+		byte[] mentioner = Bytes.toBytes("101");
+		factory.getMentionedByDay().put(Bytes.toBytes("3000_2014-03-05"), T, mentioner, 1L, Bytes.toBytes(4));
+		factory.getMentionedByDay().put(Bytes.toBytes("3000_2014-03-10"), T, mentioner, 1L, Bytes.toBytes(1));
+		factory.getMentionedByMonth().put(Bytes.toBytes("3000_2014-04"), T, mentioner, 1L, Bytes.toBytes(2));
+		raw(factory, "3000_2014-03-05", at(2014, 3, 5, 11));
+		raw(factory, "3000_2014-03-05", at(2014, 3, 5, 13));
+		raw(factory, "3000_2014-05-02", at(2014, 5, 2, 5));
+		raw(factory, "3000_2014-05-02", at(2014, 5, 2, 6));
+
+		List<Author> mentioned = new HQuery().users().mentioned(window, new AtLeastTimes(1), new Mention(3000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(mentioned.size(), 1);
+		assertEquals(mentioned.get(0).getHits(), 5);
+
+		assertEquals(new HQuery().users().thatMentioned(window, new AtLeast(1), new AtLeastTimes(5), new Mention(3000))
+									.rankedById(true).take(10).answer().getAuthors().get(0).getId(), 101L);
+		assertEquals(new HQuery().users().thatMentioned(window, new AtLeast(1), new AtLeastTimes(6), new Mention(3000))
+									.rankedById(true).take(10).answer().getAuthors().size(), 0);
+	}
+
+	private static void raw(final HBaseClientFactory factory, final String row, final long timestamp) throws IOException {
+		factory.getMentionedBy().put(Bytes.toBytes(row), T, Bytes.toBytes(timestamp), 1L, Bytes.toBytes(101L));
+	}
+
+	private static long at(final int year, final int month, final int day, final int hour) {
+		Calendar c = day(year, month, day);
+		c.set(Calendar.HOUR_OF_DAY, hour);
+		return c.getTimeInMillis();
+	}
+
+	private static Calendar day(final int year, final int month, final int day) {
+		Calendar c = Calendar.getInstance();
+		c.clear();
+		c.set(year, month - 1, day);
+		return c;
+	}
+
+}
@@ -0,0 +1,127 @@
+package hbase.speed;
+
+import hbase.impls.HBaseClientFactory;
+import hbase.query.AtLeast;
+import hbase.query.AtLeastTimes;
+import hbase.query.Author;
+import hbase.query.HQuery;
+import hbase.query.HQueryCache;
+import hbase.query.Mention;
+import hbase.query.time.AbsoluteTime;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for SpeedLayer
+ */
+public class SpeedLayerTest {
+
+	private static final byte[] T = Bytes.toBytes("t");
+
+	@Test
+	public void shouldMergeTheEventsAfterTheWatermarkWithTheBatchViews() throws IOException {
+		HBaseClientFactory factory = HBaseClientFactory.useInMemory(4);
+		factory.setRollups(false);
+		HQueryCache.getInstance().invalidateAll();
+		SpeedLayer speed = SpeedLayer.getInstance();
+		speed.advance(at(2014, 3, 10));
+		AbsoluteTime window = AbsoluteTime.parse("2014-03-01", "2014-03-20");
+
+		factory.getMentionedByDay().put(Bytes.toBytes("4000_2014-03-05"), T, Bytes.toBytes("101"), 1L, Bytes.toBytes(2));
+		assertTrue(speed.mention(101, 4000, at(2014, 3, 12)));
+		assertTrue(speed.mention(102, 4000, at(2014, 3, 25)));
+		assertFalse(speed.mention(103, 4000, at(2014, 3, 1)));
+
+		List<Author> mentioned = new HQuery().users().mentioned(window, new AtLeastTimes(1), new Mention(4000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(mentioned.size(), 1);
+		assertEquals(mentioned.get(0).getHits(), 3);
+		List<Author> mentioners = new HQuery().users().thatMentioned(window, new AtLeast(1), new AtLeastTimes(3), new Mention(4000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(mentioners.size(), 1);
+		assertEquals(mentioners.get(0).getId(), 101L);
+
+		factory.getFollowedBy().put(Bytes.toBytes(4000L), T, Bytes.toBytes("201"), 1L, Bytes.toBytes(at(2014, 3, 1)));
+		speed.follow(201, 4000, at(2014, 3, 12));
+		speed.follow(202, 4000, at(2014, 3, 12));
+		List<Author> followers = new HQuery().users().whoFollow(new AtLeast(1), new Author(4000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(followers.size(), 2);
+		assertEquals(followers.get(0).getHits(), 1);
+		assertEquals(followers.get(1).getId(), 202L);
+
+		speed.advance(at(2014, 4, 1));
+		HQueryCache.getInstance().invalidateAll();
+		assertTrue(speed.isEmpty());
+		mentioned = new HQuery().users().mentioned(window, new AtLeastTimes(1), new Mention(4000))
+									.rankedById(true).take(10).answer().getAuthors();
+		assertEquals(mentioned.get(0).getHits(), 2);
+	}
+
+	@Test
+	public void shouldNotKeepTheEventsRecordedWhileTheWatermarkMovesPastThem() throws InterruptedException {
+		final SpeedLayer speed = new SpeedLayer(0);
+		for(int round = 1; round <= 50; round++) {
+			final long watermark = round * 10000L;
+			final AtomicBoolean stop = new AtomicBoolean();
+			final CountDownLatch started = new CountDownLatch(4);
+			Thread[] writers = new Thread[4];
+			for(int w = 0; w < writers.length; w++) {
+				writers[w] = new Thread() {
+					@Override
+					public void run() {
+						started.countDown();
+						for(long i = 0; !stop.get(); i++)
+							speed.mention(i, i % 100, watermark - 1);
+					}
+				};
+				writers[w].start();
+			}
+			started.await();
+			Thread.sleep(2);
+			speed.advance(watermark);
+			stop.set(true);
+			for(Thread writer : writers)
+				writer.join();
+			assertTrue(speed.isEmpty(), "round " + round);
+		}
+	}
+
+	@Test
+	public void shouldSkipTheEventsPastTheCapacityUntilTheWatermarkMoves() {
+		SpeedLayer speed = new SpeedLayer(1000, 3);
+		assertFalse(speed.mention(101, 4000, 999));
+		assertTrue(speed.mention(101, 4000, 1000));
+		assertTrue(speed.mention(102, 4000, 2000));
+		assertTrue(speed.follow(201, 4000, 3000));
+		assertFalse(speed.mention(103, 4000, 3000));
+		assertFalse(speed.follow(202, 4000, 3000));
+		assertEquals(speed.size(), 3);
+
+		speed.advance(2500);
+		assertEquals(speed.size(), 1);
+		assertTrue(speed.mention(103, 4000, 3000));
+		assertTrue(speed.follow(202, 4000, 3000));
+		assertFalse(speed.mention(104, 4000, 3000));
+		assertEquals(speed.size(), 3);
+	}
+
+	private static long at(final int year, final int month, final int day) {
+		Calendar c = Calendar.getInstance();
+		c.clear();
+		c.set(year, month - 1, day, 10, 0);
+		return c.getTimeInMillis();
+	}
+
+}
@@ -0,0 +1,146 @@
+package rest;
+
+import hbase.query.Author;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * Body of a response that writes the authors found by a query straight to the client, one at a time,
+ * without building the whole document in memory first.
+ * @author Daniele Morgantini
+ */
+public class AuthorsOutput implements StreamingOutput {
+
+	/**
+	 * Formats the authors can be written in
+	 */
+	public static enum Format {
+
+		/** Compact JSON: {"query":...,"users":[{"id":...,"hits":...},...]} */
+		STREAM(MediaType.APPLICATION_JSON_TYPE),
+
+		/** A JSON object per line: {"id":...,"hits":...} */
+		NDJSON(new MediaType("application", "x-ndjson")),
+
+		/** The number of authors as an int, followed by a long id and an int hits per author, big-endian */
+		BINARY(MediaType.APPLICATION_OCTET_STREAM_TYPE);
+
+		private MediaType type;
+
+		private Format(final MediaType type) {
+			this.type = type;
+		}
+
+		/**
+		 * Retrieves the media type of the format
+		 * @return the media type of the format
+		 */
+		public MediaType getType() {
+			return this.type;
+		}
+
+		/**
+		 * Retrieves the format of a request parameter
+		 * @return the format, null if the parameter doesn't name a streaming format
+		 * @param name the name of the format, case insensitive
+		 */
+		public static Format fromString(final String name) {
+			for(Format f : values())
+				if(f.name().equalsIgnoreCase(name))
+					return f;
+			return null;
+		}
+	}
+
+	private Format format;
+
+	private String query;
+
+	private List<Author> authors;
+
+
+	/**
+	 * Creates an instance of AuthorsOutput
+	 * @return an instance of AuthorsOutput
+	 * @param format the format to write the authors in
+	 * @param query the description of the query, written by the JSON format only
+	 * @param authors the authors to write, in order
+	 */
+	public AuthorsOutput(final Format format, final String query, final List<Author> authors) {
+		this.format = format;
+		this.query = query;
+		this.authors = authors;
+	}
+
+	@Override
+	public void write(final OutputStream output) throws IOException, WebApplicationException {
+		switch(this.format) {
+			case STREAM:
+				this.writeJson(output);
+				break;
+			case NDJSON:
+				this.writeNdjson(output);
+				break;
+			case BINARY:
+				this.writeBinary(output);
+				break;
+		}
+	}
+
+	private void writeJson(final OutputStream output) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
+		writer.write("{\"query\":");
+		writer.write(JSONObject.quote(this.query));
+		writer.write(",\"users\":[");
+		boolean first = true;
+		for(Author a : this.authors) {
+			if(!first)
+				writer.write(',');
+			writeAuthor(writer, a);
+			first = false;
+		}
+		writer.write("]}");
+		writer.flush();
+	}
+
+	private void writeNdjson(final OutputStream output) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
+		for(Author a : this.authors) {
+			writeAuthor(writer, a);
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	private void writeBinary(final OutputStream output) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+		data.writeInt(this.authors.size());
+		for(Author a : this.authors) {
+			data.writeLong(a.getId());
+			data.writeInt(a.getHits());
+		}
+		data.flush();
+	}
+
+	private static void writeAuthor(final Writer writer, final Author a) throws IOException {
+		writer.write("{\"id\":");
+		writer.write(Long.toString(a.getId()));
+		writer.write(",\"hits\":");
+		writer.write(Integer.toString(a.getHits()));
+		writer.write('}');
+	}
+
+}
@@ -0,0 +1,32 @@
+package rest;
+
+import hbase.query.HQueryCache;
+
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/** Class to handle REST http requests on the cache of the query results
+ * @author Daniele Morgantini */
+@Path("/cache")
+public class CacheManager {
+
+	@POST
+	@Path("/invalidate")
+	/** Method to discard all the cached results, to be called as soon as the batch views have been reloaded */
+	public Response invalidate() throws JSONException {
+
+		HQueryCache cache = HQueryCache.getInstance();
+		int invalidated = cache.size();
+		cache.invalidateAll();
+
+		JSONObject response = new JSONObject();
+		response.put("invalidated", invalidated);
+		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+}
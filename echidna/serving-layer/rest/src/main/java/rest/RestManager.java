@@ -3,13 +3,18 @@ package rest;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import hbase.query.AtLeast;
 import hbase.query.AtLeastTimes;
 import hbase.query.Author;
 import hbase.query.Authors;
 import hbase.query.HQuery;
+import hbase.query.HQueryBatch;
+import hbase.query.HQueryManager;
 import hbase.query.Mention;
+import hbase.query.time.AbsoluteTime;
 import hbase.query.time.LastMonth;
 import hbase.query.time.LastMonthFromNow;
 import hbase.query.time.LastYear;
@@ -18,13 +23,17 @@ import hbase.query.time.MonthsAgo;
 import hbase.query.time.ThisYear;
 import hbase.query.time.WeeksAgo;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
@@ -33,16 +42,6 @@ import org.codehaus.jettison.json.JSONObject;
 @Path("/search")
 public class RestManager {
 	
-	private Authors authors;
-	
-	private HQuery query;
-	
-	
-	public RestManager() {
-		this.query = new HQuery();
-		this.authors = new Authors(query);
-	}
-	
 	@GET
 	@Path("/users")
 	/** Method to answer any kind of query, also composed queries */
@@ -67,11 +66,16 @@ public class RestManager {
 		@QueryParam("wfm_users") String wfm_users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
+		
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
 		
 		String output = "Users";
 		if(tm_users!=null && tm_when!=null){
-			this.authorsThatMentionedSubquery(tm_al, tm_times, tm_when, tm_back, tm_users);
+			authorsThatMentionedSubquery(authors, tm_al, tm_times, tm_when, tm_back, tm_users);
 			output += " that mentioned at least: " + tm_al + " user";
 			if(tm_al>1)
 				output += "s";
@@ -85,7 +89,7 @@ public class RestManager {
 		}
 		
 		if(m_users!=null && m_when!=null){
-			this.authorsMentionedSubquery(m_times, m_when, m_back, m_users);
+			authorsMentionedSubquery(authors, m_times, m_when, m_back, m_users);
 			output += " mentioned no less than " + m_times + " time";
 			if(m_times>1)
 				output += "s";
@@ -96,7 +100,7 @@ public class RestManager {
 		}
 		
 		if(wf_users!=null){
-			this.authorsWhoFollowSubquery(wf_al, wf_users);
+			authorsWhoFollowSubquery(authors, wf_al, wf_users);
 			output += " who follow " +
 					"at least: " + wf_al + " user";
 			if(wf_al>1)
@@ -105,17 +109,17 @@ public class RestManager {
 		}
 		
 		if(wff_users!=null) {
-			this.authorsWhoseFollowersFollowSubquery(wff_users);
+			authorsWhoseFollowersFollowSubquery(authors, wff_users);
 			output += " whose followers follow one amongst " + wff_users + ",";
 		}
 		
 		if(wfafb_users!=null) {
-			this.authorsWhoseFollowersAreFollowedBySubquery(wfafb_users);
+			authorsWhoseFollowersAreFollowedBySubquery(authors, wfafb_users);
 			output += " whose followers are followed by one amongst " + wfafb_users + ",";
 		}
 		
 		if(wfm_users!=null) {
-			this.authorsWhoseFollowersMentionedSubquery(wfm_al, wfm_when, wfm_back, wfm_users, wfm_minTimes);
+			authorsWhoseFollowersMentionedSubquery(authors, wfm_al, wfm_when, wfm_back, wfm_users, wfm_minTimes);
 			output += " whose followers mentioned" + 
 						" at least: " + wfm_al + " user";
 			if(wfm_al>1)
@@ -132,19 +136,16 @@ public class RestManager {
 		
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
-		this.authors.take(take);
-		this.authors = this.query.answer();
+		authors.take(take);
+		authors = answer(query);
 		
 		String queryString = output.substring(0, output.length()-1);
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+		return respond(format, queryString, authors);
 	}
 	
 	@GET
@@ -158,40 +159,32 @@ public class RestManager {
 		@QueryParam("users") String tm_users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
+		
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
 		
-		this.authorsThatMentionedSubquery(tm_al, tm_times, tm_when, tm_back, tm_users);
+		authorsThatMentionedSubquery(authors, tm_al, tm_times, tm_when, tm_back, tm_users);
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
 		if(take>0) {
-			this.authors.take(take);
+			authors.take(take);
 		}
-		this.authors = this.query.answer();
+		authors = answer(query);
 		
 		List<Long> result = new ArrayList<Long>();
-		for(Author a : this.authors.getAuthors())
+		for(Author a : authors.getAuthors())
 			result.add(a.getId());
-		String queryString = "Users that mentioned" +
-						" at least: " + tm_al + " user";
-		if(tm_al>1)
-			queryString += "s";
-		queryString += " no less than " + tm_times + " time";
-		if(tm_times>1)
-			queryString += "s";
-		queryString += " when: " + tm_when;
-		if(tm_back>0)
-			queryString += " (" + tm_back + ")";
-		queryString += " amongst: " + tm_users;
-		
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+		String queryString = thatMentionedString(tm_al, tm_times, tm_when, tm_back, tm_users);
+		
+		return respond(format, queryString, authors);
 	}
 	
 	
@@ -205,36 +198,32 @@ public class RestManager {
 		@QueryParam("users") String tm_users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
 		
-		this.authorsMentionedSubquery(tm_times, tm_when, tm_back, tm_users);
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
+		
+		authorsMentionedSubquery(authors, tm_times, tm_when, tm_back, tm_users);
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
 		if(take>0) {
-			this.authors.take(take);
+			authors.take(take);
 		}
-		this.authors = this.query.answer();
+		authors = answer(query);
 		
 		List<Long> result = new ArrayList<Long>();
-		for(Author a : this.authors.getAuthors())
+		for(Author a : authors.getAuthors())
 			result.add(a.getId());
-		String queryString = "Users that mentioned no less than " + tm_times + " time";
-		if(tm_times>1)
-			queryString += "s";
-		queryString += " when: " + tm_when;
-		if(tm_back>0)
-			queryString += " (" + tm_back + ")";
-		queryString += " amongst: " + tm_users;
-		
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+		String queryString = mentionedString(tm_times, tm_when, tm_back, tm_users);
+		
+		return respond(format, queryString, authors);
 	}
 	
 	
@@ -246,23 +235,28 @@ public class RestManager {
 		@QueryParam("users") String wf_users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
+		
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
 			
-		this.authorsWhoFollowSubquery(wf_al, wf_users);
+		authorsWhoFollowSubquery(authors, wf_al, wf_users);
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
 		if(take>0) {
-			this.authors.take(take);
+			authors.take(take);
 		}
-		this.authors = this.query.answer();
+		authors = answer(query);
 		
 		List<Long> result = new ArrayList<Long>();
-		for(Author a : this.authors.getAuthors())
+		for(Author a : authors.getAuthors())
 			result.add(a.getId());
 		String queryString = "Users who follow" +
 						" at least: " + wf_al + " user";
@@ -270,10 +264,7 @@ public class RestManager {
 			queryString += "s";
 		queryString += " amongst: " + wf_users;
 		
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+		return respond(format, queryString, authors);
 	}
 	
 	@GET
@@ -283,30 +274,32 @@ public class RestManager {
 		@QueryParam("users") String users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
+		
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
 			
-		this.authorsWhoseFollowersFollowSubquery(users);
+		authorsWhoseFollowersFollowSubquery(authors, users);
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
 		if(take>0) {
-			this.authors.take(take);
+			authors.take(take);
 		}
-		this.authors = this.query.answer();
+		authors = answer(query);
 		
 		List<Long> result = new ArrayList<Long>();
-		for(Author a : this.authors.getAuthors())
+		for(Author a : authors.getAuthors())
 			result.add(a.getId());
 		
 		String queryString = "Users whose followers follow one amongst " + users;
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+		return respond(format, queryString, authors);
 	}
 	
 	@GET
@@ -316,29 +309,31 @@ public class RestManager {
 		@QueryParam("users") String users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
+		
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
 			
-		this.authorsWhoseFollowersAreFollowedBySubquery(users);
+		authorsWhoseFollowersAreFollowedBySubquery(authors, users);
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
 		if(take>0) {
-			this.authors.take(take);
+			authors.take(take);
 		}
-		this.authors = this.query.answer();
+		authors = answer(query);
 		
 		List<Long> result = new ArrayList<Long>();
-		for(Author a : this.authors.getAuthors())
+		for(Author a : authors.getAuthors())
 			result.add(a.getId());
 		String queryString = "Users whose followers are followed by one amongst" + users;
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+		return respond(format, queryString, authors);
 	}
 	
 	@GET
@@ -352,23 +347,28 @@ public class RestManager {
 		@QueryParam("users") String users,
 		@QueryParam("byId") String byId,
 		@DefaultValue("true") @QueryParam("byHits") boolean byHits,
-		@DefaultValue("10") @QueryParam("take") int take) throws JSONException, IOException{
+		@DefaultValue("10") @QueryParam("take") int take,
+		@DefaultValue("json") @QueryParam("format") String format) throws JSONException, IOException{
+		
+		checkFormat(format);
+		HQuery query = new HQuery();
+		Authors authors = query.users();
 			
-		this.authorsWhoseFollowersMentionedSubquery(al, when, back, users, minTimes);
+		authorsWhoseFollowersMentionedSubquery(authors, al, when, back, users, minTimes);
 		if(byId!=null) { // if byId is present, it's got priority over byHits
 			boolean b = Boolean.parseBoolean(byId);
-			this.authors.rankedById(b);
+			authors.rankedById(b);
 		}
 		else {
-			this.authors.rankedByHits(byHits);
+			authors.rankedByHits(byHits);
 		}
 		if(take>0) {
-			this.authors.take(take);
+			authors.take(take);
 		}
-		this.authors = this.query.answer();
+		authors = answer(query);
 		
 		List<Long> result = new ArrayList<Long>();
-		for(Author a : this.authors.getAuthors())
+		for(Author a : authors.getAuthors())
 			result.add(a.getId());
 		String queryString = "Users whose followers mentioned" + 
 						" at least: " + al + " user";
@@ -382,112 +382,264 @@ public class RestManager {
 			queryString += "s";
 		queryString += " amongst: " + users;
 		
-		JSONObject response = formatResponse(queryString, this.authors);
-		if(this.authors.size()==0)
-			return Response.status(Response.Status.NOT_FOUND).entity(response).build();
-		return Response.ok(response, MediaType.APPLICATION_JSON_TYPE).build();
+		return respond(format, queryString, authors);
+	}
+	
+	@POST
+	@Path("/batch")
+	@Consumes(MediaType.APPLICATION_JSON)
+	/** Method to answer many mentioned and thatMentioned queries at once: the ones on the same time window
+	 * are answered by a single coprocessor invocation. The body is {"queries":[{"type":"mentioned"|"thatMentioned",
+	 * "when":..., "back":..., "users":"id,id,...", "minTimes":..., "atLeast":..., "byId":..., "byHits":..., "take":...},...]},
+	 * with the same defaults as the single queries */
+	public Response batch(String body) throws JSONException, IOException {
+		
+		JSONArray specs;
+		try {
+			specs = new JSONObject(body).getJSONArray("queries");
+		} catch (JSONException e) {
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+		}
+		
+		HQueryBatch batch = new HQueryBatch();
+		List<String> queryStrings = new ArrayList<String>();
+		for(int i=0; i<specs.length(); i++) {
+			JSONObject spec = specs.optJSONObject(i);
+			if(spec == null || !spec.has("when") || !spec.has("users"))
+				throw new WebApplicationException(Response.Status.BAD_REQUEST);
+			String type = spec.optString("type");
+			String when = spec.optString("when");
+			int back = spec.optInt("back", 0);
+			String users = spec.optString("users");
+			int minTimes = spec.optInt("minTimes", 1);
+			int atLeast = spec.optInt("atLeast", 1);
+			
+			HQuery query = new HQuery();
+			Authors authors = query.users();
+			if(type.equals("mentioned")) {
+				authorsMentionedSubquery(authors, minTimes, when, back, users);
+				queryStrings.add(mentionedString(minTimes, when, back, users));
+			}
+			else if(type.equals("thatMentioned")) {
+				authorsThatMentionedSubquery(authors, atLeast, minTimes, when, back, users);
+				queryStrings.add(thatMentionedString(atLeast, minTimes, when, back, users));
+			}
+			else
+				throw new WebApplicationException(Response.Status.BAD_REQUEST);
+			
+			if(spec.has("byId")) { // if byId is present, it's got priority over byHits
+				authors.rankedById(spec.optBoolean("byId"));
+			}
+			else {
+				authors.rankedByHits(spec.optBoolean("byHits", true));
+			}
+			int take = spec.optInt("take", 10);
+			if(take>0) {
+				authors.take(take);
+			}
+			batch.add(query);
+		}
+		
+		List<Authors> answers = answer(batch);
+		JSONArray results = new JSONArray();
+		for(int i=0; i<answers.size(); i++) {
+			JSONObject result = formatResponse(queryStrings.get(i), answers.get(i));
+			if(!result.has("users"))
+				result.put("users", new JSONArray());
+			results.put(result);
+		}
+		JSONObject response = new JSONObject()
+									.put("results", results);
+		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
 	}
 	
-	private void authorsThatMentionedSubquery(int atLeast, int minTimes, String when, int back, String users) {
-		Mention[] mentions = this.mentionsFromString(users);
+	private static void authorsThatMentionedSubquery(final Authors authors, int atLeast, int minTimes, String when, int back, String users) {
+		Mention[] mentions = mentionsFromString(users);
 		switch(when) {
 			case "last_month":
-				this.authors.thatMentioned(new LastMonth(), new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
+				authors.thatMentioned(new LastMonth(), new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "very_last_month":
-				this.authors.thatMentioned(new LastMonthFromNow(), new AtLeast(atLeast), mentions);
+				authors.thatMentioned(new LastMonthFromNow(), new AtLeast(atLeast), mentions);
 				break;
 			case "very_last_year":
-				this.authors.thatMentioned(new LastYearFromNow(), new AtLeast(atLeast), mentions);
+				authors.thatMentioned(new LastYearFromNow(), new AtLeast(atLeast), mentions);
 				break;
 			case "last_year":
-				this.authors.thatMentioned(new LastYear(), new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
+				authors.thatMentioned(new LastYear(), new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "this_year":
-				this.authors.thatMentioned(new ThisYear(), new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
+				authors.thatMentioned(new ThisYear(), new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "months_ago":
-				this.authors.thatMentioned(new MonthsAgo(back), new AtLeast(atLeast),
+				authors.thatMentioned(new MonthsAgo(back), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
 			case "weeks_ago":
-				this.authors.thatMentioned(new WeeksAgo(back), new AtLeast(atLeast),
+				authors.thatMentioned(new WeeksAgo(back), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
+			default:
+				AbsoluteTime window = absoluteTime(when);
+				if(window != null)
+					authors.thatMentioned(window, new AtLeast(atLeast), new AtLeastTimes(minTimes), mentions);
 		}
 	}
 	
-	private void authorsMentionedSubquery(int minTimes, String when, int back, String users) {
-		Mention[] mentions = this.mentionsFromString(users);
+	private static void authorsMentionedSubquery(final Authors authors, int minTimes, String when, int back, String users) {
+		Mention[] mentions = mentionsFromString(users);
 		switch(when) {
 			case "last_month":
-				this.authors.mentioned(new LastMonth(), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new LastMonth(), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "very_last_month":
-				this.authors.mentioned(new LastMonthFromNow(), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new LastMonthFromNow(), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "very_last_year":
-				this.authors.mentioned(new LastYearFromNow(), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new LastYearFromNow(), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "last_year":
-				this.authors.mentioned(new LastYear(), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new LastYear(), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "this_year":
-				this.authors.mentioned(new ThisYear(), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new ThisYear(), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "months_ago":
-				this.authors.mentioned(new MonthsAgo(back), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new MonthsAgo(back), new AtLeastTimes(minTimes), mentions);
 				break;
 			case "weeks_ago":
-				this.authors.mentioned(new WeeksAgo(back), new AtLeastTimes(minTimes), mentions);
+				authors.mentioned(new WeeksAgo(back), new AtLeastTimes(minTimes), mentions);
 				break;
+			default:
+				AbsoluteTime window = absoluteTime(when);
+				if(window != null)
+					authors.mentioned(window, new AtLeastTimes(minTimes), mentions);
 		}
 	}
 	
-	private void authorsWhoFollowSubquery(int atLeast, String users) {
+	/**
+	 * Parses an absolute time window, written as an ISO 8601 interval: from/to, the end excluded,
+	 * each extreme being yyyy-MM-dd, yyyy-MM-ddTHH:mm or yyyy-MM-ddTHH:mm:ss
+	 * @return the time window, or null if when isn't an interval
+	 * @param when the time window
+	 */
+	private static AbsoluteTime absoluteTime(String when) {
+		int slash = when.indexOf('/');
+		if(slash < 0)
+			return null;
+		try {
+			return AbsoluteTime.parse(when.substring(0, slash), when.substring(slash + 1));
+		} catch (IllegalArgumentException e) {
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+		}
+	}
+	
+	private static void authorsWhoFollowSubquery(final Authors authors, int atLeast, String users) {
 		Author[] auths = authorsFromString(users);
-		this.authors.whoFollow(new AtLeast(atLeast), auths);
+		authors.whoFollow(new AtLeast(atLeast), auths);
 	}
 	
-	private void authorsWhoseFollowersFollowSubquery(String users) {
+	private static void authorsWhoseFollowersFollowSubquery(final Authors authors, String users) {
 		Author[] followed = authorsFromString(users);
-		this.authors.whoseFollowersFollow(followed);
+		authors.whoseFollowersFollow(followed);
 	}
 	
-	private void authorsWhoseFollowersAreFollowedBySubquery(String users) {
+	private static void authorsWhoseFollowersAreFollowedBySubquery(final Authors authors, String users) {
 		Author[] followers = authorsFromString(users);
-		this.authors.whoseFollowersAreFollowedBy(followers);
+		authors.whoseFollowersAreFollowedBy(followers);
 	}
 	
-	private void authorsWhoseFollowersMentionedSubquery(int atLeast, String when, 
+	private static void authorsWhoseFollowersMentionedSubquery(final Authors authors, int atLeast, String when, 
 										int back, String users, int minTimes) {
 		
 		Mention[] mentions = mentionsFromString(users);
 		switch(when){
 			case "last_month":
-				this.authors.whoseFollowersMentioned(new LastMonth(), new AtLeast(atLeast),
+				authors.whoseFollowersMentioned(new LastMonth(), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
 			case "last_year":
-				this.authors.whoseFollowersMentioned(new LastYear(), new AtLeast(atLeast),
+				authors.whoseFollowersMentioned(new LastYear(), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
 			case "this_month":
-				this.authors.whoseFollowersMentioned(new ThisYear(), new AtLeast(atLeast),
+				authors.whoseFollowersMentioned(new ThisYear(), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
 			case "months_ago":
-				this.authors.whoseFollowersMentioned(new MonthsAgo(back), new AtLeast(atLeast),
+				authors.whoseFollowersMentioned(new MonthsAgo(back), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
 			case "weeks_ago":
-				this.authors.whoseFollowersMentioned(new WeeksAgo(back), new AtLeast(atLeast),
+				authors.whoseFollowersMentioned(new WeeksAgo(back), new AtLeast(atLeast),
 						new AtLeastTimes(minTimes), mentions);
 				break;
 		}
 	}
 	
-	private Author[] authorsFromString(String users) {
+	/**
+	 * Answers the query on the shared workers, so that the queries running at once are bounded whatever the container does
+	 * @return the authors that match the query
+	 * @param query the query built for the current request
+	 */
+	private static Authors answer(final HQuery query) throws IOException {
+		try {
+			return HQueryManager.getInstance().submit(query).get();
+		} catch (RejectedExecutionException e) {
+			throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Answers the batch of queries on the shared workers, taking a single worker
+	 * @return the authors that match each query, in the order the queries were added
+	 * @param batch the queries built for the current request
+	 */
+	private static List<Authors> answer(final HQueryBatch batch) throws IOException {
+		try {
+			return HQueryManager.getInstance().submit(batch).get();
+		} catch (RejectedExecutionException e) {
+			throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	private static String thatMentionedString(int atLeast, int minTimes, String when, int back, String users) {
+		String queryString = "Users that mentioned" +
+						" at least: " + atLeast + " user";
+		if(atLeast>1)
+			queryString += "s";
+		queryString += " no less than " + minTimes + " time";
+		if(minTimes>1)
+			queryString += "s";
+		queryString += " when: " + when;
+		if(back>0)
+			queryString += " (" + back + ")";
+		queryString += " amongst: " + users;
+		return queryString;
+	}
+	
+	private static String mentionedString(int minTimes, String when, int back, String users) {
+		String queryString = "Users that mentioned no less than " + minTimes + " time";
+		if(minTimes>1)
+			queryString += "s";
+		queryString += " when: " + when;
+		if(back>0)
+			queryString += " (" + back + ")";
+		queryString += " amongst: " + users;
+		return queryString;
+	}
+	
+	private static Author[] authorsFromString(String users) {
 		String[] splitted = users.split(",");
 		Author[] authors = new Author[splitted.length];
 		for(int i=0; i<splitted.length; i++) {
@@ -496,7 +648,7 @@ public class RestManager {
 		return authors;
 	}
 	
-	private Mention[] mentionsFromString(String users) {
+	private static Mention[] mentionsFromString(String users) {
 		String[] splitted = users.split(",");
 		Mention[] mentions = new Mention[splitted.length];
 		for(int i=0; i<splitted.length; i++) {
@@ -505,7 +657,42 @@ public class RestManager {
 		return mentions;
 	}
 	
-	private JSONObject formatResponse(String queryMessage, Authors authors) throws IOException, JSONException {
+	/**
+	 * Checks the requested format before running the query, so that a mistyped one isn't answered in JSON
+	 * @param format json, stream, ndjson or binary, case insensitive
+	 * @throws WebApplicationException BAD_REQUEST if the format is unknown
+	 */
+	private static void checkFormat(String format) {
+		
+		if(!"json".equalsIgnoreCase(format) && AuthorsOutput.Format.fromString(format) == null)
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+	}
+	
+	/**
+	 * Builds the response in the requested format: the indented JSON document by default, or a body written
+	 * author by author, to be preferred for large results
+	 * @return the response, NOT_FOUND if no author matched the query
+	 * @param format json, stream, ndjson or binary
+	 * @param queryString the description of the query
+	 * @param authors the authors that match the query
+	 */
+	private static Response respond(String format, String queryString, Authors authors) throws IOException, JSONException {
+		
+		Response.Status status = authors.size()==0 ? Response.Status.NOT_FOUND : Response.Status.OK;
+		AuthorsOutput.Format streamed = AuthorsOutput.Format.fromString(format);
+		if(streamed != null)
+			return Response.status(status)
+						.entity(new AuthorsOutput(streamed, queryString, authors.getAuthors()))
+						.type(streamed.getType())
+						.build();
+		
+		JSONObject response = formatResponse(queryString, authors);
+		if(status == Response.Status.NOT_FOUND)
+			return Response.status(status).entity(response).build();
+		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+	
+	private static JSONObject formatResponse(String queryMessage, Authors authors) throws IOException, JSONException {
 		
 		JSONObject response = new JSONObject()
 									.put("query", queryMessage);
@@ -0,0 +1,66 @@
+package rest;
+
+import hbase.impls.HBaseClientFactory;
+import hbase.impls.ScanProfile;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/** Class to handle REST http requests on the settings of the scans over each table,
+ * to tune the RPCs of the scans without redeploying
+ * @author Daniele Morgantini */
+@Path("/scanProfiles")
+public class ScanProfileManager {
+
+	@GET
+	@Path("/{table}")
+	/** Method to read the settings of the scans over a table */
+	public Response get(@PathParam("table") final String table) throws JSONException {
+
+		ScanProfile profile = HBaseClientFactory.getInstance().getScanProfile(table);
+		if(profile == null)
+			return Response.status(Response.Status.NOT_FOUND).build();
+		return Response.ok(toJSON(table, profile).toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+	@POST
+	@Path("/{table}")
+	/** Method to change some settings of the scans over a table, the missing ones keeping their current value */
+	public Response set(@PathParam("table") final String table,
+						@QueryParam("caching") final Integer caching,
+						@QueryParam("batch") final Integer batch,
+						@QueryParam("maxResultSize") final Long maxResultSize,
+						@QueryParam("cacheBlocks") final Boolean cacheBlocks) throws JSONException {
+
+		HBaseClientFactory factory = HBaseClientFactory.getInstance();
+		ScanProfile current = factory.getScanProfile(table);
+		if(current == null)
+			return Response.status(Response.Status.NOT_FOUND).build();
+
+		ScanProfile profile = new ScanProfile(caching == null ? current.getCaching() : caching,
+											batch == null ? current.getBatch() : batch,
+											maxResultSize == null ? current.getMaxResultSize() : maxResultSize,
+											cacheBlocks == null ? current.isCacheBlocks() : cacheBlocks);
+		factory.setScanProfile(table, profile);
+		return Response.ok(toJSON(table, profile).toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+	private static JSONObject toJSON(final String table, final ScanProfile profile) throws JSONException {
+		JSONObject json = new JSONObject();
+		json.put("table", table);
+		json.put("caching", profile.getCaching());
+		json.put("batch", profile.getBatch());
+		json.put("maxResultSize", profile.getMaxResultSize());
+		json.put("cacheBlocks", profile.isCacheBlocks());
+		return json;
+	}
+
+}
@@ -0,0 +1,111 @@
+package rest;
+
+import hbase.query.HQueryCache;
+import hbase.speed.SpeedLayer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/** Class to handle REST http requests on the speed layer: the streaming ingester posts the mentions and follows
+ * as they arrive, and the batch exports move the watermark forward once the views have been reloaded
+ * @author Daniele Morgantini */
+@Path("/speed")
+public class SpeedManager {
+
+	@GET
+	/** Method to read the watermark of the speed layer */
+	public Response get() throws JSONException {
+		return respond(new JSONObject());
+	}
+
+	@POST
+	@Path("/mentions")
+	@Consumes({"application/x-ndjson", MediaType.TEXT_PLAIN})
+	/** Method to record the mentions arrived after the last batch export, one {"mentioner":...,"mentioned":...,"ts":...} per line */
+	public Response mentions(final InputStream body) throws JSONException, IOException {
+		return this.ingest(body, "mentioner", "mentioned", true);
+	}
+
+	@POST
+	@Path("/follows")
+	@Consumes({"application/x-ndjson", MediaType.TEXT_PLAIN})
+	/** Method to record the follows arrived after the last batch export, one {"follower":...,"followed":...,"ts":...} per line */
+	public Response follows(final InputStream body) throws JSONException, IOException {
+		return this.ingest(body, "follower", "followed", false);
+	}
+
+	@POST
+	@Path("/watermark")
+	/** Method to move the watermark forward, to be called with the instant the batch views are complete up to
+	 * as soon as they have been reloaded: the speed layer forgets what came before it, and the cached results are discarded */
+	public Response watermark(@QueryParam("ts") final Long ts) throws JSONException {
+		if(ts == null)
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+		SpeedLayer.getInstance().advance(ts);
+		HQueryCache.getInstance().invalidateAll();
+		return respond(new JSONObject());
+	}
+
+	private Response ingest(final InputStream body, final String from, final String to, final boolean mentions)
+					throws JSONException, IOException {
+
+		/* the whole body is validated first, so that a malformed line leaves nothing recorded and the ingester can retry it */
+		List<long[]> events = new ArrayList<long[]>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(body, "UTF-8"));
+		String line;
+		while((line = reader.readLine()) != null) {
+			if(line.trim().isEmpty())
+				continue;
+			try {
+				JSONObject event = new JSONObject(line);
+				events.add(new long[] {event.getLong(from), event.getLong(to), event.getLong("ts")});
+			} catch (JSONException e) {
+				throw new WebApplicationException(Response.Status.BAD_REQUEST);
+			}
+		}
+
+		SpeedLayer speed = SpeedLayer.getInstance();
+		long watermark = speed.getWatermark();
+		boolean wasEmpty = speed.isEmpty();
+		int recorded = 0;
+		int skipped = 0;
+		for(long[] event : events) {
+			boolean added = mentions ? speed.mention(event[0], event[1], event[2]) : speed.follow(event[0], event[1], event[2]);
+			if(added)
+				recorded++;
+			else
+				skipped++;
+		}
+		/* the results cached while the speed layer was empty were computed on the batch views only, and kept as long as those;
+		 * they are discarded once the events are there, so that the queries after them are answered with the events */
+		if(recorded > 0 && (wasEmpty || speed.getWatermark() != watermark))
+			HQueryCache.getInstance().invalidateAll();
+
+		JSONObject response = new JSONObject();
+		response.put("recorded", recorded);
+		response.put("skipped", skipped);
+		return respond(response);
+	}
+
+	private static Response respond(final JSONObject response) throws JSONException {
+		response.put("watermark", SpeedLayer.getInstance().getWatermark());
+		return Response.ok(response.toString(4), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+}